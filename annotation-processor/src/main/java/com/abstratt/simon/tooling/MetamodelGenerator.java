@@ -0,0 +1,629 @@
+package com.abstratt.simon.tooling;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+import com.abstratt.simon.metamodel.Metamodel.PrimitiveKind;
+import com.abstratt.simon.metamodel.dsl.Meta;
+
+/**
+ * Generates, for a type annotated with {@link Meta.Package}, the Java source of
+ * a class that builds the corresponding EMF metamodel, with the same structure
+ * the reflection-based mapper (AnnotatedJava2EcoreMapper) would build from the
+ * compiled classes. Packages the package refers to are built along with it, so
+ * a generated class depends on EMF and the Simon runtime only.
+ *
+ * The generated class is named after the package type, with a "Metamodel"
+ * suffix, and provides a static {@code build()} method and a
+ * {@code MetamodelSource.Factory}.
+ */
+class MetamodelGenerator {
+
+    static final String SUFFIX = "Metamodel";
+
+    private enum Kind {
+        Primitive, Enumeration, Record, Object
+    }
+
+    private enum FeatureKind {
+        Containment, Reference, Attribute
+    }
+
+    private final ProcessingEnvironment processingEnv;
+    private final Map<TypeElement, PackageModel> packages = new LinkedHashMap<>();
+    private final List<ClassifierModel> pending = new ArrayList<>();
+
+    private static class PackageModel {
+        final TypeElement element;
+        final String variable;
+        final Map<String, ClassifierModel> classifiers = new LinkedHashMap<>();
+
+        PackageModel(TypeElement element) {
+            this.element = element;
+            this.variable = element.getSimpleName() + "_package";
+        }
+    }
+
+    private static class ClassifierModel {
+        final PackageModel ePackage;
+        final String name;
+        final Kind kind;
+        final TypeElement element;
+        final String variable;
+        final List<ClassifierModel> superTypes = new ArrayList<>();
+        final List<FeatureModel> features = new ArrayList<>();
+        String primitiveType;
+        boolean isAbstract;
+        boolean rootComposite;
+
+        ClassifierModel(PackageModel ePackage, String name, Kind kind, TypeElement element) {
+            this.ePackage = ePackage;
+            this.name = name;
+            this.kind = kind;
+            this.element = element;
+            this.variable = ePackage.element.getSimpleName() + "_" + name;
+        }
+    }
+
+    private static class FeatureModel {
+        final ClassifierModel owner;
+        final FeatureKind kind;
+        final String name;
+        final String variable;
+        ClassifierModel type;
+        int lowerBound;
+        int upperBound;
+        String opposite;
+        boolean name_;
+        boolean documentation;
+        boolean modifier;
+
+        FeatureModel(ClassifierModel owner, FeatureKind kind, String name) {
+            this.owner = owner;
+            this.kind = kind;
+            this.name = name;
+            this.variable = owner.variable + "_" + name;
+        }
+    }
+
+    MetamodelGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Generates the source for the given package type.
+     *
+     * @return the qualified name of the generated class, and its source
+     * @throws IllegalArgumentException if the package refers to a type that is
+     *                                  not part of a metamodel
+     */
+    Map.Entry<String, String> generate(TypeElement packageElement) {
+        var root = packageFor(packageElement);
+        while (!pending.isEmpty())
+            complete(pending.remove(0));
+        var javaPackage = processingEnv.getElementUtils().getPackageOf(packageElement).getQualifiedName().toString();
+        var className = packageElement.getSimpleName() + SUFFIX;
+        var qualifiedName = javaPackage.isEmpty() ? className : javaPackage + "." + className;
+        return Map.entry(qualifiedName, new SourceWriter(javaPackage, className, root).write());
+    }
+
+    private PackageModel packageFor(TypeElement packageElement) {
+        var existing = packages.get(packageElement);
+        if (existing != null)
+            return existing;
+        var ePackage = new PackageModel(packageElement);
+        packages.put(packageElement, ePackage);
+        var memberTypes = ElementFilter.typesIn(processingEnv.getElementUtils().getAllMembers(packageElement));
+        for (TypeElement member : memberTypes)
+            if (member.getModifiers().contains(Modifier.PUBLIC))
+                classifierFor(ePackage, member.asType());
+        return ePackage;
+    }
+
+    /**
+     * Finds or creates the classifier for the given Java type. Java types that
+     * map to primitive types are created in the given package.
+     */
+    private ClassifierModel classifierFor(PackageModel current, TypeMirror type) {
+        var erased = processingEnv.getTypeUtils().erasure(type);
+        var javaPrimitive = getJavaPrimitiveType(erased);
+        if (javaPrimitive != null) {
+            var name = erased.getKind().isPrimitive() ? erased.toString()
+                    : ((DeclaredType) erased).asElement().getSimpleName().toString();
+            return current.classifiers.computeIfAbsent(name, it -> {
+                var primitive = new ClassifierModel(current, name, Kind.Primitive, null);
+                primitive.primitiveType = javaPrimitive;
+                return primitive;
+            });
+        }
+        if (erased.getKind() != TypeKind.DECLARED)
+            throw new IllegalArgumentException("Not a metamodel type: " + type);
+        var element = (TypeElement) ((DeclaredType) erased).asElement();
+        var packageElement = getPackageElement(element);
+        if (packageElement == null)
+            throw new IllegalArgumentException("Not a metamodel class: " + element.getQualifiedName());
+        var ePackage = packageFor(packageElement);
+        var name = element.getSimpleName().toString();
+        var existing = ePackage.classifiers.get(name);
+        if (existing != null)
+            return existing;
+        var classifier = new ClassifierModel(ePackage, name, kindOf(element), element);
+        ePackage.classifiers.put(name, classifier);
+        pending.add(classifier);
+        return classifier;
+    }
+
+    private Kind kindOf(TypeElement element) {
+        if (element.getAnnotation(Meta.PrimitiveType.class) != null)
+            return Kind.Primitive;
+        if (element.getKind() == ElementKind.ENUM)
+            return Kind.Enumeration;
+        if (element.getAnnotation(Meta.RecordType.class) != null)
+            return Kind.Record;
+        return Kind.Object;
+    }
+
+    /**
+     * The outermost type enclosing a member type, if it is a package.
+     */
+    private static TypeElement getPackageElement(TypeElement element) {
+        if (element.getNestingKind() != NestingKind.MEMBER)
+            return null;
+        var current = element;
+        while (current.getNestingKind() == NestingKind.MEMBER)
+            current = (TypeElement) current.getEnclosingElement();
+        return current.getAnnotation(Meta.Package.class) == null ? null : current;
+    }
+
+    private void complete(ClassifierModel classifier) {
+        var element = classifier.element;
+        switch (classifier.kind) {
+        case Primitive:
+            classifier.primitiveType = getPrimitiveType(element.getAnnotation(Meta.PrimitiveType.class).value());
+            addSuperTypes(classifier);
+            break;
+        case Enumeration:
+            break;
+        case Record:
+            addSuperTypes(classifier);
+            addFeatures(classifier, FeatureKind.Attribute, Meta.Attribute.class);
+            break;
+        case Object:
+            var objectType = element.getAnnotation(Meta.ObjectType.class);
+            var instantiable = objectType == null || objectType.instantiable();
+            classifier.isAbstract = !instantiable || (element.getModifiers().contains(Modifier.ABSTRACT)
+                    && element.getKind() != ElementKind.INTERFACE);
+            var composite = element.getAnnotation(Meta.Composite.class);
+            classifier.rootComposite = composite != null && composite.root();
+            addSuperTypes(classifier);
+            addFeatures(classifier, FeatureKind.Containment, Meta.Contained.class);
+            addFeatures(classifier, FeatureKind.Reference, Meta.Reference.class);
+            addFeatures(classifier, FeatureKind.Attribute, Meta.Attribute.class);
+            break;
+        }
+    }
+
+    private void addSuperTypes(ClassifierModel classifier) {
+        var superTypes = new ArrayList<TypeMirror>();
+        superTypes.add(classifier.element.getSuperclass());
+        superTypes.addAll(classifier.element.getInterfaces());
+        for (TypeMirror superType : superTypes) {
+            if (superType.getKind() != TypeKind.DECLARED)
+                continue;
+            var superElement = (TypeElement) ((DeclaredType) superType).asElement();
+            if (superElement.getNestingKind() == NestingKind.MEMBER)
+                classifier.superTypes.add(classifierFor(classifier.ePackage, superType));
+        }
+    }
+
+    private void addFeatures(ClassifierModel owner, FeatureKind kind,
+            Class<? extends Annotation> annotationClass) {
+        var accessors = ElementFilter.methodsIn(owner.element.getEnclosedElements()).stream()
+                .filter(it -> it.getAnnotation(annotationClass) != null)
+                .sorted(Comparator.comparing(it -> it.getSimpleName().toString())).toList();
+        for (ExecutableElement accessor : accessors) {
+            var feature = new FeatureModel(owner, kind, toFeatureName(accessor.getSimpleName().toString()));
+            setBounds(accessor, feature);
+            feature.type = classifierFor(owner.ePackage, getType(accessor));
+            if (kind == FeatureKind.Reference) {
+                var opposite = accessor.getAnnotation(Meta.Reference.class).opposite();
+                feature.opposite = opposite.isEmpty() ? null : opposite;
+            }
+            if (kind == FeatureKind.Attribute) {
+                feature.name_ = accessor.getAnnotation(Meta.Name.class) != null;
+                feature.documentation = accessor.getAnnotation(Meta.Documentation.class) != null;
+                feature.modifier = accessor.getAnnotation(Meta.Modifier.class) != null;
+            }
+            owner.features.add(feature);
+        }
+    }
+
+    private void setBounds(ExecutableElement accessor, FeatureModel feature) {
+        var required = accessor.getAnnotation(Meta.Required.class);
+        var types = processingEnv.getTypeUtils();
+        var iterable = types.erasure(processingEnv.getElementUtils().getTypeElement("java.lang.Iterable").asType());
+        var multivalued = types.isAssignable(types.erasure(accessor.getReturnType()), iterable);
+        if (multivalued) {
+            feature.lowerBound = required != null && required.value() ? 1 : 0;
+            feature.upperBound = -1;
+        } else {
+            feature.lowerBound = required == null || required.value() ? 1 : 0;
+            feature.upperBound = 1;
+        }
+    }
+
+    private static TypeMirror getType(ExecutableElement accessor) {
+        var typed = accessor.getAnnotation(Meta.Typed.class);
+        if (typed == null)
+            return accessor.getReturnType();
+        try {
+            typed.value();
+            throw new IllegalStateException("Type should not be available: " + accessor);
+        } catch (MirroredTypeException e) {
+            return e.getTypeMirror();
+        }
+    }
+
+    private static String toFeatureName(String methodName) {
+        var featureName = methodName.replaceFirst("^get", "");
+        if (!featureName.isEmpty())
+            featureName = Character.toLowerCase(featureName.charAt(0)) + featureName.substring(1);
+        return featureName.replaceFirst("_$", "");
+    }
+
+    /**
+     * The EMF data type for a Java type that maps to a primitive type, as a
+     * constant in EcorePackage.Literals, or null.
+     */
+    private static String getJavaPrimitiveType(TypeMirror type) {
+        switch (type.getKind()) {
+        case BOOLEAN:
+            return "EBOOLEAN";
+        case INT:
+            return "EINT";
+        case DECLARED:
+            var element = (TypeElement) ((DeclaredType) type).asElement();
+            if (element.getAnnotation(Meta.PrimitiveType.class) != null)
+                return null;
+            switch (element.getQualifiedName().toString()) {
+            case "java.lang.Boolean":
+                return "EBOOLEAN_OBJECT";
+            case "java.lang.Integer":
+                return "EINTEGER_OBJECT";
+            case "java.lang.String":
+                return "ESTRING";
+            default:
+                return null;
+            }
+        default:
+            return null;
+        }
+    }
+
+    private static String getPrimitiveType(PrimitiveKind kind) {
+        switch (kind) {
+        case Boolean:
+            return "EBOOLEAN";
+        case Integer:
+            return "EINT";
+        case Decimal:
+            return "EBIG_DECIMAL";
+        default:
+            return "ESTRING";
+        }
+    }
+
+    /**
+     * The primitive kind for an EMF data type, as a constant in
+     * Metamodel.PrimitiveKind.
+     */
+    private static String getPrimitiveKind(String primitiveType) {
+        switch (primitiveType) {
+        case "EBOOLEAN":
+        case "EBOOLEAN_OBJECT":
+            return "Boolean";
+        case "EINT":
+        case "EINTEGER_OBJECT":
+            return "Integer";
+        case "EBIG_DECIMAL":
+            return "Decimal";
+        default:
+            return "String";
+        }
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private class SourceWriter {
+        private final String javaPackage;
+        private final String className;
+        private final PackageModel root;
+        private final StringBuilder source = new StringBuilder();
+
+        SourceWriter(String javaPackage, String className, PackageModel root) {
+            this.javaPackage = javaPackage;
+            this.className = className;
+            this.root = root;
+        }
+
+        String write() {
+            if (!javaPackage.isEmpty())
+                line("package %s;", javaPackage).line("");
+            line("import java.io.IOException;");
+            line("import java.io.InputStream;");
+            line("import java.io.UncheckedIOException;");
+            line("import java.nio.charset.StandardCharsets;");
+            line("");
+            line("import javax.annotation.processing.Generated;");
+            line("");
+            line("import org.eclipse.emf.ecore.EAttribute;");
+            line("import org.eclipse.emf.ecore.EClass;");
+            line("import org.eclipse.emf.ecore.EClassifier;");
+            line("import org.eclipse.emf.ecore.EEnum;");
+            line("import org.eclipse.emf.ecore.EEnumLiteral;");
+            line("import org.eclipse.emf.ecore.EPackage;");
+            line("import org.eclipse.emf.ecore.EReference;");
+            line("import org.eclipse.emf.ecore.EStructuralFeature;");
+            line("import org.eclipse.emf.ecore.EcoreFactory;");
+            line("import org.eclipse.emf.ecore.EcorePackage;");
+            line("import org.eclipse.emf.ecore.util.EcoreUtil;");
+            line("");
+            line("import com.abstratt.simon.compiler.source.MetamodelSource;");
+            line("import com.abstratt.simon.compiler.source.ecore.EPackageMetamodelSource;");
+            line("import com.abstratt.simon.metamodel.Metamodel.PrimitiveKind;");
+            line("import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;");
+            line("import com.abstratt.simon.metamodel.ecore.impl.MetaEcoreHelper;");
+            line("");
+            line("/**");
+            line(" * Builds the metamodel for {@link %s}.", root.element.getQualifiedName());
+            line(" */");
+            line("@Generated(%s)", quote(SimonDSLProcessor.class.getName()));
+            line("public final class %s {", className);
+            line("");
+            line("    private %s() {", className);
+            line("    }");
+            line("");
+            writeBuild();
+            line("");
+            writeHelpers();
+            line("");
+            writeFactory();
+            line("}");
+            return source.toString();
+        }
+
+        private void writeBuild() {
+            line("    /**");
+            line("     * Builds a new copy of the metamodel, along with the packages it refers to.");
+            line("     */");
+            line("    public static EPackage build() {");
+            for (PackageModel ePackage : packages.values()) {
+                line("        var %s = newPackage(%s);", ePackage.variable, quote(ePackage.element.getSimpleName().toString()));
+                var builtIns = ePackage.element.getAnnotation(Meta.Package.class).builtIns();
+                for (String builtIn : builtIns) {
+                    int lastDot = builtIn.lastIndexOf('.');
+                    var simpleName = lastDot < 0 ? builtIn : builtIn.substring(lastDot + 1);
+                    var resourcePath = lastDot < 0 ? builtIn + ".simon" : "/" + builtIn.replace('.', '/') + ".simon";
+                    line("        addBuiltIn(%s, %s.class, %s, %s);", ePackage.variable,
+                            ePackage.element.getQualifiedName(), quote(simpleName), quote(resourcePath));
+                }
+            }
+            forEachClassifier(this::writeClassifier);
+            forEachClassifier(classifier -> {
+                for (ClassifierModel superType : classifier.superTypes)
+                    line("        %s.getESuperTypes().add(%s);", classifier.variable, superType.variable);
+                return null;
+            });
+            forEachClassifier(classifier -> {
+                for (FeatureModel feature : classifier.features)
+                    writeFeature(feature);
+                return null;
+            });
+            forEachClassifier(classifier -> {
+                for (FeatureModel feature : classifier.features)
+                    if (feature.opposite != null)
+                        line("        setOpposite(%s, %s);", feature.variable, findOpposite(feature).variable);
+                return null;
+            });
+            line("        return %s;", root.variable);
+            line("    }");
+        }
+
+        private void forEachClassifier(Function<ClassifierModel, Void> writer) {
+            for (PackageModel ePackage : packages.values())
+                for (ClassifierModel classifier : ePackage.classifiers.values())
+                    writer.apply(classifier);
+        }
+
+        private Void writeClassifier(ClassifierModel classifier) {
+            var name = quote(classifier.name);
+            var ePackage = classifier.ePackage.variable;
+            switch (classifier.kind) {
+            case Enumeration:
+                line("        var %s = newEnum(%s, %s);", classifier.variable, ePackage, name);
+                var literals = ElementFilter.fieldsIn(classifier.element.getEnclosedElements()).stream()
+                        .filter(it -> it.getKind() == ElementKind.ENUM_CONSTANT).toList();
+                for (int i = 0; i < literals.size(); i++)
+                    line("        addLiteral(%s, %s, %d);", classifier.variable,
+                            quote(literals.get(i).getSimpleName().toString()), i);
+                break;
+            case Primitive:
+                line("        var %s = newPrimitiveType(%s, %s, EcorePackage.Literals.%s, PrimitiveKind.%s);",
+                        classifier.variable, ePackage, name, classifier.primitiveType,
+                        getPrimitiveKind(classifier.primitiveType));
+                break;
+            case Record:
+                line("        var %s = newClass(%s, %s, false);", classifier.variable, ePackage, name);
+                line("        MetaEcoreHelper.makeRecordType(%s);", classifier.variable);
+                break;
+            case Object:
+                line("        var %s = newClass(%s, %s, %s);", classifier.variable, ePackage, name,
+                        classifier.isAbstract);
+                if (classifier.rootComposite)
+                    line("        EcoreUtil.setAnnotation(%s, MetaEcoreHelper.SIMON_ANNOTATION, "
+                            + "MetaEcoreHelper.ROOT_COMPOSITE_VALUE, Boolean.toString(true));", classifier.variable);
+                break;
+            }
+            return null;
+        }
+
+        private void writeFeature(FeatureModel feature) {
+            var owner = feature.owner.variable;
+            var name = quote(feature.name);
+            if (feature.kind == FeatureKind.Attribute) {
+                line("        var %s = newAttribute(%s, %s, %s, %d, %d);", feature.variable, owner, name,
+                        feature.type.variable, feature.lowerBound, feature.upperBound);
+                if (feature.name_)
+                    line("        MetaEcoreHelper.markAsName(%s);", feature.variable);
+                if (feature.documentation)
+                    line("        MetaEcoreHelper.markAsDocumentation(%s);", feature.variable);
+                if (feature.modifier)
+                    line("        MetaEcoreHelper.markAsModifier(%s);", feature.variable);
+            } else {
+                if (feature.type.kind != Kind.Object && feature.type.kind != Kind.Record)
+                    throw new IllegalArgumentException("Not an object type: " + feature.type.name + " (for "
+                            + feature.owner.name + "." + feature.name + ")");
+                line("        var %s = newReference(%s, %s, %s, %d, %d, %s);", feature.variable, owner, name,
+                        feature.type.variable, feature.lowerBound, feature.upperBound,
+                        feature.kind == FeatureKind.Containment);
+            }
+        }
+
+        private FeatureModel findOpposite(FeatureModel feature) {
+            return feature.type.features.stream()
+                    .filter(it -> it.kind != FeatureKind.Attribute && it.name.equals(feature.opposite)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No opposite " + feature.opposite + " for "
+                            + feature.owner.name + "." + feature.name + " in " + feature.type.name));
+        }
+
+        private void writeHelpers() {
+            line("    private static EPackage newPackage(String name) {");
+            line("        var ePackage = EcoreFactory.eINSTANCE.createEPackage();");
+            line("        ePackage.setName(name);");
+            line("        ePackage.setNsURI(name);");
+            line("        ePackage.setNsPrefix(name);");
+            line("        var builtIns = EcoreFactory.eINSTANCE.createEAnnotation();");
+            line("        builtIns.setSource(\"simon/builtIns\");");
+            line("        ePackage.getEAnnotations().add(builtIns);");
+            line("        return ePackage;");
+            line("    }");
+            line("");
+            line("    private static void addBuiltIn(EPackage ePackage, Class<?> packageClass, String name, String path) {");
+            line("        try (InputStream contents = packageClass.getResourceAsStream(path)) {");
+            line("            if (contents == null)");
+            line("                throw new IllegalStateException(\"Could not find built-in '\" + name + \"' for \" + packageClass);");
+            line("            ePackage.getEAnnotation(\"simon/builtIns\").getDetails().put(name,");
+            line("                    new String(contents.readAllBytes(), StandardCharsets.UTF_8));");
+            line("        } catch (IOException e) {");
+            line("            throw new UncheckedIOException(\"Could not read built-in '\" + name + \"' for \" + packageClass, e);");
+            line("        }");
+            line("    }");
+            line("");
+            line("    private static EClass newClass(EPackage ePackage, String name, boolean isAbstract) {");
+            line("        var eClass = EcoreFactory.eINSTANCE.createEClass();");
+            line("        eClass.setName(name);");
+            line("        eClass.setAbstract(isAbstract);");
+            line("        ePackage.getEClassifiers().add(eClass);");
+            line("        return eClass;");
+            line("    }");
+            line("");
+            line("    private static EClass newPrimitiveType(EPackage ePackage, String name, EClassifier valueType,");
+            line("            PrimitiveKind kind) {");
+            line("        var eClass = newClass(ePackage, name, false);");
+            line("        var eAttribute = EcoreFactory.eINSTANCE.createEAttribute();");
+            line("        eAttribute.setName(MetaEcoreHelper.PRIMITIVE_VALUE_FEATURE);");
+            line("        eAttribute.setEType(valueType);");
+            line("        eClass.getEStructuralFeatures().add(eAttribute);");
+            line("        MetaEcoreHelper.makePrimitiveType(eClass, kind);");
+            line("        return eClass;");
+            line("    }");
+            line("");
+            line("    private static EEnum newEnum(EPackage ePackage, String name) {");
+            line("        var eEnum = EcoreFactory.eINSTANCE.createEEnum();");
+            line("        eEnum.setName(name);");
+            line("        ePackage.getEClassifiers().add(eEnum);");
+            line("        return eEnum;");
+            line("    }");
+            line("");
+            line("    private static void addLiteral(EEnum eEnum, String name, int value) {");
+            line("        EEnumLiteral literal = EcoreFactory.eINSTANCE.createEEnumLiteral();");
+            line("        literal.setName(name);");
+            line("        literal.setLiteral(name);");
+            line("        literal.setValue(value);");
+            line("        eEnum.getELiterals().add(literal);");
+            line("    }");
+            line("");
+            line("    private static EAttribute newAttribute(EClass owner, String name, EClassifier type, int lower, int upper) {");
+            line("        return addFeature(owner, EcoreFactory.eINSTANCE.createEAttribute(), name, type, lower, upper);");
+            line("    }");
+            line("");
+            line("    private static EReference newReference(EClass owner, String name, EClass type, int lower, int upper,");
+            line("            boolean containment) {");
+            line("        var eReference = addFeature(owner, EcoreFactory.eINSTANCE.createEReference(), name, type, lower, upper);");
+            line("        eReference.setContainment(containment);");
+            line("        return eReference;");
+            line("    }");
+            line("");
+            line("    private static <F extends EStructuralFeature> F addFeature(EClass owner, F feature, String name,");
+            line("            EClassifier type, int lower, int upper) {");
+            line("        feature.setName(name);");
+            line("        feature.setEType(type);");
+            line("        feature.setLowerBound(lower);");
+            line("        feature.setUpperBound(upper);");
+            line("        owner.getEStructuralFeatures().add(feature);");
+            line("        return feature;");
+            line("    }");
+            line("");
+            line("    private static void setOpposite(EReference thisSide, EReference opposite) {");
+            line("        thisSide.setEOpposite(opposite);");
+            line("        opposite.setEOpposite(thisSide);");
+            line("    }");
+        }
+
+        private void writeFactory() {
+            line("    /**");
+            line("     * Builds sources out of a new copy of the metamodel, built on every build.");
+            line("     */");
+            line("    public static class Factory implements MetamodelSource.Factory<EcoreType<? extends EClassifier>> {");
+            line("        @Override");
+            line("        public MetamodelSource<EcoreType<? extends EClassifier>> build() {");
+            line("            return new EPackageMetamodelSource.Factory(%s.build()).build();", className);
+            line("        }");
+            line("");
+            line("        @Override");
+            line("        public boolean equals(Object other) {");
+            line("            return other instanceof Factory;");
+            line("        }");
+            line("");
+            line("        @Override");
+            line("        public int hashCode() {");
+            line("            return Factory.class.hashCode();");
+            line("        }");
+            line("    }");
+        }
+
+        private SourceWriter line(String format, Object... args) {
+            source.append(args.length == 0 ? format : String.format(format, args)).append('\n');
+            return this;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.abstratt.simon.tooling;
 
 import com.google.auto.service.AutoService;
+import com.abstratt.simon.metamodel.dsl.Meta;
 import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,19 +9,31 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.processing.*;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.NestingKind;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic;
 import javax.tools.StandardLocation;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Optional;
 import java.util.Set;
 
 @SupportedAnnotationTypes("com.abstratt.simon.metamodel.dsl.Meta.*")
 @SupportedSourceVersion(SourceVersion.RELEASE_17)
+@SupportedOptions(SimonDSLProcessor.GENERATE_METAMODELS)
 @AutoService(Processor.class)
 public class SimonDSLProcessor extends AbstractProcessor {
 
+    /**
+     * When "true", a class that builds the EMF metamodel is generated for each
+     * package type (see {@link MetamodelGenerator}), so the metamodel does not
+     * need to be mapped from the compiled classes at runtime. Code using the
+     * generated classes needs the EMF-based metamodel source on the classpath.
+     */
+    public static final String GENERATE_METAMODELS = "simon.generateMetamodels";
+
     private static final Logger log = LoggerFactory.getLogger(SimonDSLProcessor.class);
 
     @Override
@@ -52,10 +65,28 @@ public class SimonDSLProcessor extends AbstractProcessor {
                     }
             );
         });
+        if (Boolean.parseBoolean(processingEnv.getOptions().get(GENERATE_METAMODELS)))
+            ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(Meta.Package.class)).stream()
+                    .filter(it -> it.getNestingKind() == NestingKind.TOP_LEVEL)
+                    .forEach(this::generateMetamodel);
 
         return true;
     }
 
+    private void generateMetamodel(TypeElement packageElement) {
+        try {
+            var generated = new MetamodelGenerator(processingEnv).generate(packageElement);
+            var created = processingEnv.getFiler().createSourceFile(generated.getKey(), packageElement);
+            try (var writer = new BufferedWriter(created.openWriter())) {
+                writer.write(generated.getValue());
+            }
+        } catch (IllegalArgumentException e) {
+            printMessage(Diagnostic.Kind.ERROR, e.getMessage(), packageElement);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     protected void printMessage(Diagnostic.Kind note, String message, Element e) {
         processingEnv.getMessager().printMessage(note, message, e);
     }
@@ -1,7 +1,10 @@
 package com.abstratt.simon.compiler.antlr;
 
+import java.util.concurrent.Executor;
+
 import com.abstratt.simon.compiler.SimonCompiler;
 import com.abstratt.simon.compiler.antlr.impl.SimonCompilerAntlrImpl;
+import com.abstratt.simon.compiler.antlr.impl.UnitCache;
 import com.abstratt.simon.compiler.backend.Backend;
 import com.abstratt.simon.compiler.source.MetamodelSource.Factory;
 import com.abstratt.simon.metamodel.Metamodel.ObjectType;
@@ -9,10 +12,44 @@ import com.abstratt.simon.metamodel.Metamodel.Slotted;
 
 public class SimonCompilerAntlrFactory implements SimonCompiler.Factory {
 
+    private final Executor unitExecutor;
+
+    private final UnitCache<?> unitCache;
+
+    public SimonCompilerAntlrFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a factory for compilers that parse independent units concurrently.
+     *
+     * @param unitExecutor the executor to parse units on, or null to parse them
+     *                     sequentially
+     */
+    public SimonCompilerAntlrFactory(Executor unitExecutor) {
+        this(unitExecutor, null);
+    }
+
+    /**
+     * Creates a factory for compilers that share a cache of imported units.
+     *
+     * @param unitExecutor the executor to parse units on, or null to parse them
+     *                     sequentially
+     * @param unitCache    the cache imported units are materialized from, or null
+     *                     to always parse them (the cache must only be used with
+     *                     backends building the same kind of model)
+     */
+    public SimonCompilerAntlrFactory(Executor unitExecutor, UnitCache<?> unitCache) {
+        this.unitExecutor = unitExecutor;
+        this.unitCache = unitCache;
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     public <T> SimonCompiler<T> create(Factory<?> typeSourceFactory,
             Backend<? extends ObjectType, ? extends Slotted, T> configurationProvider) {
-        return new SimonCompilerAntlrImpl<>(typeSourceFactory, configurationProvider);
+        return new SimonCompilerAntlrImpl<>(typeSourceFactory, configurationProvider, unitExecutor,
+                (UnitCache<T>) unitCache);
     }
 
 }
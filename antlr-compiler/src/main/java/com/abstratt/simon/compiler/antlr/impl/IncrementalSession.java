@@ -0,0 +1,234 @@
+package com.abstratt.simon.compiler.antlr.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.abstratt.simon.compiler.CompilationStats;
+import com.abstratt.simon.compiler.CompilationStats.Phase;
+import com.abstratt.simon.compiler.Problem;
+import com.abstratt.simon.compiler.Problem.Severity;
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.SimonCompiler;
+import com.abstratt.simon.compiler.backend.Adoption;
+import com.abstratt.simon.compiler.backend.Backend;
+import com.abstratt.simon.compiler.source.ContentProvider;
+import com.abstratt.simon.compiler.source.FileContentProvider;
+import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.compiler.source.SourceProvider;
+
+/**
+ * A compilation session that reuses, on each compilation, what it can from the
+ * previous one.
+ *
+ * For each unit, the session records a fingerprint of its contents, the units
+ * it imports, the root objects built from it, the problems found while parsing
+ * it and its resolution requests. A unit whose contents did not change since the
+ * previous compilation is not parsed again: its root objects are adopted into the
+ * new model and its imports are followed as recorded. Only units that changed,
+ * or that were not part of the previous compilation, are parsed. The objects
+ * built for units that changed or went away are discarded.
+ *
+ * All resolution requests of units that were parsed are resolved, but requests
+ * carried over from unchanged units are only resolved again if they may have
+ * been affected (see {@link SimonBuilder#resolveAgain(List, boolean)}).
+ *
+ * As when parsing concurrently, each unit is parsed with a problem handler of
+ * its own, so a fatal error only stops the unit it occurs in. Units with fatal
+ * errors are always parsed again.
+ *
+ * The metamodel source is built once and kept open until the session is closed,
+ * so reused objects and new ones share the same types.
+ *
+ * Units are only reused if the backend can carry objects over from one
+ * compilation to the next (see {@link Backend#adoption()}). Otherwise, all units
+ * are parsed again on each compilation.
+ */
+class IncrementalSession<T> implements SimonCompiler.Session<T> {
+    private final SimonCompilerAntlrImpl<T> compiler;
+    private final MetamodelSource<?> typeSource;
+    /**
+     * The units of the last compilation, in the order they were compiled.
+     */
+    private Map<String, Unit<T>> units = new LinkedHashMap<>();
+    private boolean closed;
+
+    private static class Unit<T> {
+        private final byte[] fingerprint;
+        private final List<String> imports;
+        private final List<T> roots;
+        private final List<Problem> problems;
+        private final List<SimonBuilder.ResolutionRequests<T>> requests;
+        private final boolean reusable;
+
+        Unit(byte[] fingerprint, List<String> imports, List<T> roots, List<Problem> problems,
+                List<SimonBuilder.ResolutionRequests<T>> requests, boolean reusable) {
+            this.fingerprint = fingerprint;
+            this.imports = imports;
+            this.roots = roots;
+            this.problems = problems;
+            this.requests = requests;
+            this.reusable = reusable;
+        }
+
+        boolean isReusableFor(byte[] currentFingerprint) {
+            return reusable && Arrays.equals(fingerprint, currentFingerprint);
+        }
+    }
+
+    IncrementalSession(SimonCompilerAntlrImpl<T> compiler, MetamodelSource<?> typeSource) {
+        this.compiler = compiler;
+        this.typeSource = typeSource;
+    }
+
+    @Override
+    public List<Result<T>> compile(List<String> entryPoints, SourceProvider sources) {
+        if (closed)
+            throw new IllegalStateException("Session already closed");
+        var augmentedSources = SimonCompilerAntlrImpl.withBuiltIns(sources, typeSource);
+        var problemHandler = new ProblemHandler();
+        var backend = compiler.modelHandling.forCompilation();
+        var builder = new SimonBuilder<>(problemHandler, typeSource, backend);
+        SimonCompilerAntlrImpl.prefetchImports(builder, sources, typeSource);
+        var results = backend.runOperation(() -> doCompile(entryPoints, augmentedSources, builder));
+        return SimonCompilerAntlrImpl.collectResults(results, problemHandler);
+    }
+
+    private Map<String, Result<T>> doCompile(List<String> entryPoints, SourceProvider sources,
+            SimonBuilder<T> builder) {
+        var adoption = builder.getModelHandling().adoption();
+        var previousUnits = adoption == null ? Collections.<String, Unit<T>> emptyMap() : units;
+        var currentUnits = new LinkedHashMap<String, Unit<T>>();
+        var results = new LinkedHashMap<String, Result<T>>();
+        var parsed = new HashSet<String>();
+        Set<String> toParse = new LinkedHashSet<>(entryPoints);
+        while (!toParse.isEmpty()) {
+            var imports = new LinkedHashSet<String>();
+            for (String name : toParse) {
+                var stats = new CompilationStats();
+                var start = System.nanoTime();
+                var input = sources.access(name);
+                if (input == null) {
+                    results.put(name,
+                            Result.failure(name, new Problem(name, "No source found for '" + name + "'", Severity.Fatal)));
+                    continue;
+                }
+                Fingerprinted contents;
+                try {
+                    contents = fingerprint(input);
+                } catch (IOException e) {
+                    results.put(name, Result.failure(name, new Problem(name, e.toString(), Severity.Fatal)));
+                    continue;
+                }
+                stats.addTime(Phase.SourceAccess, System.nanoTime() - start);
+                var unit = previousUnits.get(name);
+                if (unit != null && unit.isReusableFor(contents.fingerprint())) {
+                    unit.roots.forEach(adoption::adopt);
+                    builder.chargeTo(unit.requests, stats);
+                } else {
+                    if (unit != null)
+                        discard(adoption, unit);
+                    unit = parseUnit(builder, name, contents, stats);
+                    parsed.add(name);
+                }
+                currentUnits.put(name, unit);
+                results.put(name, new Result<>(name, unit.roots, Collections.emptyList(), stats));
+                imports.addAll(unit.imports);
+            }
+            imports.removeIf(results::containsKey);
+            toParse = imports;
+        }
+        previousUnits.forEach((name, unit) -> {
+            if (!currentUnits.containsKey(name))
+                discard(adoption, unit);
+        });
+        currentUnits.values().forEach(unit -> unit.problems.forEach(builder.getProblemHandler()::handleProblem));
+        var otherChanges = !parsed.isEmpty()
+                || !new ArrayList<>(previousUnits.keySet()).equals(new ArrayList<>(currentUnits.keySet()));
+        currentUnits.forEach((name, unit) -> {
+            if (parsed.contains(name))
+                builder.resolve(unit.requests);
+            else
+                builder.resolveAgain(unit.requests, otherChanges);
+        });
+        // units cannot be reused without adoption, so they are not kept either
+        units = adoption == null ? Collections.emptyMap() : currentUnits;
+        return results;
+    }
+
+    private void discard(Adoption<T> adoption, Unit<T> unit) {
+        unit.roots.forEach(adoption::discard);
+    }
+
+    private Unit<T> parseUnit(SimonBuilder<T> builder, String name, Fingerprinted contents, CompilationStats stats) {
+        var unitProblems = new ProblemHandler();
+        var unitBuilder = builder.newUnitBuilder(unitProblems);
+        var result = compiler.parseUnit(unitBuilder, name, contents.contents(), stats);
+        var problems = new ArrayList<Problem>();
+        unitProblems.getAllProblems().values().forEach(problems::addAll);
+        return new Unit<>(contents.fingerprint(), unitBuilder.collectImports(), result.getRootObjects(), problems,
+                unitBuilder.takeResolutionRequests(), !unitProblems.hasFatalError());
+    }
+
+    /**
+     * The contents of a unit, and their fingerprint.
+     */
+    record Fingerprinted(ContentProvider contents, byte[] fingerprint) {
+    }
+
+    /**
+     * Fingerprints the contents of a unit. Files are fingerprinted as mapped into
+     * memory, and are parsed from their own provider, so they are not copied onto
+     * the heap. Other contents are read once, and parsed from what was read.
+     */
+    static Fingerprinted fingerprint(ContentProvider input) throws IOException {
+        var mapped = input instanceof FileContentProvider ? ((FileContentProvider) input).map() : null;
+        if (mapped != null)
+            return new Fingerprinted(input, fingerprint(mapped));
+        String contents;
+        try (var reader = input.getContents()) {
+            contents = read(reader);
+        }
+        return new Fingerprinted(() -> new StringReader(contents),
+                fingerprint(ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static String read(Reader reader) throws IOException {
+        var contents = new StringWriter();
+        reader.transferTo(contents);
+        return contents.toString();
+    }
+
+    private static byte[] fingerprint(ByteBuffer contents) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contents);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        units = Collections.emptyMap();
+        typeSource.close();
+    }
+}
@@ -0,0 +1,68 @@
+package com.abstratt.simon.compiler.antlr.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import com.abstratt.simon.genutils.SearchTrace;
+
+/**
+ * Records looking up the name in a resolution request. Disabled by default.
+ */
+@Name("com.abstratt.simon.NameResolution")
+@Label("Name Resolution")
+@Category({ "Simon", "Compiler" })
+@Description("Looking up a name referred to in a unit")
+@Enabled(false)
+class NameResolutionEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Line")
+    int line;
+
+    @Label("Name")
+    String name;
+
+    @Label("Resolved")
+    boolean resolved;
+
+    @Label("Hops")
+    int hops;
+
+    @Label("Memoized")
+    @Description("Whether the name had already been looked up from an equivalent scope")
+    boolean memoized;
+
+    @Label("Global Fallback")
+    @Description("Whether the name was not found locally, and was searched for from the roots")
+    boolean globalFallback;
+
+    /**
+     * Starts recording a lookup.
+     *
+     * @return a trace for the search to fill in, or null if this event is not
+     *         being recorded
+     */
+    SearchTrace start() {
+        begin();
+        return isEnabled() ? new SearchTrace() : null;
+    }
+
+    void end(String source, int line, String[] path, boolean resolved, boolean memoized, SearchTrace trace) {
+        end();
+        if (trace == null || !shouldCommit())
+            return;
+        this.source = source;
+        this.line = line;
+        this.name = String.join(".", path);
+        this.resolved = resolved;
+        this.memoized = memoized;
+        this.hops = trace.getHops();
+        this.globalFallback = trace.fellBack();
+        commit();
+    }
+}
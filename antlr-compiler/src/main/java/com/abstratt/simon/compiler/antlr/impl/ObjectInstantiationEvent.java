@@ -0,0 +1,40 @@
+package com.abstratt.simon.compiler.antlr.impl;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Records instantiating the object declared by an object header, including
+ * resolving its type and naming it. Disabled by default.
+ */
+@Name("com.abstratt.simon.ObjectInstantiation")
+@Label("Object Instantiation")
+@Category({ "Simon", "Compiler" })
+@Description("Instantiating an object as its header is parsed")
+@Enabled(false)
+class ObjectInstantiationEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Line")
+    int line;
+
+    @Label("Type")
+    String type;
+
+    void end(String source, ParserRuleContext ctx, String type) {
+        end();
+        if (!shouldCommit())
+            return;
+        this.source = source;
+        this.line = ctx.start.getLine();
+        this.type = type;
+        commit();
+    }
+}
@@ -0,0 +1,96 @@
+package com.abstratt.simon.compiler.antlr.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.abstratt.simon.compiler.Problem;
+import com.abstratt.simon.compiler.Problem.Severity;
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.backend.Completion;
+import com.abstratt.simon.compiler.source.SourceProvider;
+
+/**
+ * Hands the result of each unit over as soon as the unit is done (see
+ * {@link com.abstratt.simon.compiler.SimonCompiler#compile(List, SourceProvider, Consumer)}).
+ *
+ * As each unit is parsed, its resolution requests are resolved for as long as
+ * their names can be resolved against the units parsed so far (see
+ * {@link SimonBuilder#resolveAvailable(List)}). A unit whose requests are all
+ * resolved is done. Other units wait until all units are parsed, when their
+ * remaining requests are resolved, in order.
+ *
+ * Once a result has been handed over, the backend is told its unit is done (see
+ * {@link Completion#done(String, List)}).
+ */
+class ResultStream<T> {
+    private final SimonBuilder<T> builder;
+    private final ProblemHandler problemHandler;
+    private final Consumer<Result<T>> resultConsumer;
+    private final Completion<T> completion;
+    private final Map<String, Pending<T>> pending = new LinkedHashMap<>();
+
+    private static class Pending<T> {
+        private final Result<T> result;
+        private final List<SimonBuilder.ResolutionRequests<T>> requests;
+
+        Pending(Result<T> result, List<SimonBuilder.ResolutionRequests<T>> requests) {
+            this.result = result;
+            this.requests = requests;
+        }
+    }
+
+    ResultStream(SimonBuilder<T> builder, ProblemHandler problemHandler, Consumer<Result<T>> resultConsumer,
+            Completion<T> completion) {
+        this.builder = builder;
+        this.problemHandler = problemHandler;
+        this.resultConsumer = resultConsumer;
+        this.completion = completion;
+    }
+
+    /**
+     * A unit has been parsed, and its problems reported.
+     *
+     * @param result   the unit's result
+     * @param requests the unit's resolution requests
+     */
+    void unitParsed(Result<T> result, List<SimonBuilder.ResolutionRequests<T>> requests) {
+        var unresolved = builder.resolveAvailable(requests);
+        if (unresolved.isEmpty())
+            handOver(result);
+        else
+            pending.put(result.getSource(), new Pending<>(result, unresolved));
+    }
+
+    /**
+     * All units have been parsed: resolves what is left and hands over the
+     * remaining results.
+     *
+     * @param results the results of all units parsed, in order
+     * @return all results, in order
+     */
+    List<Result<T>> complete(Map<String, Result<T>> results) {
+        pending.values().forEach(it -> builder.resolve(it.requests));
+        pending.values().forEach(it -> handOver(it.result));
+        pending.clear();
+        var allResults = new ArrayList<>(results.values());
+        problemHandler.getAllProblems().forEach((source, problems) -> {
+            if (results.containsKey(source))
+                return;
+            Result<T> missing = Result.failure(source, new Problem(source, "Missing source", Severity.Fatal));
+            missing.getProblems().addAll(problems);
+            allResults.add(missing);
+            resultConsumer.accept(missing);
+        });
+        return allResults;
+    }
+
+    private void handOver(Result<T> result) {
+        result.getProblems().addAll(problemHandler.getProblems(result.getSource()));
+        result.getStats().publish(result.getSource());
+        resultConsumer.accept(result);
+        SimonCompilerAntlrImpl.complete(completion, result);
+    }
+}
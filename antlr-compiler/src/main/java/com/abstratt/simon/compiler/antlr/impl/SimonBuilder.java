@@ -1,30 +1,40 @@
 package com.abstratt.simon.compiler.antlr.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.BiConsumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.abstratt.simon.parser.antlr.SimonParser.*;
 import org.antlr.v4.runtime.ParserRuleContext;
-import org.antlr.v4.runtime.tree.TerminalNode;
+import org.antlr.v4.runtime.Token;
 import org.apache.commons.lang3.StringUtils;
 
 import com.abstratt.simon.compiler.AbortCompilationException;
+import com.abstratt.simon.compiler.CompilationStats;
+import com.abstratt.simon.compiler.CompilationStats.Counter;
+import com.abstratt.simon.compiler.CompilationStats.Phase;
 import com.abstratt.simon.compiler.CompilerException;
 import com.abstratt.simon.compiler.Problem;
 import com.abstratt.simon.compiler.Problem.Category;
 import com.abstratt.simon.compiler.Problem.Severity;
 import com.abstratt.simon.compiler.backend.Backend;
-import com.abstratt.simon.compiler.backend.Linking;
 import com.abstratt.simon.compiler.backend.MetamodelException;
+import com.abstratt.simon.compiler.backend.NameResolution;
 import com.abstratt.simon.compiler.backend.Parenting;
 import com.abstratt.simon.compiler.source.MetamodelSource;
 import com.abstratt.simon.metamodel.Metamodel.BasicType;
@@ -54,6 +64,12 @@ import org.slf4j.LoggerFactory;
  * requests. After all units are parsed, {@link #resolve()} (pass 2) resolves
  * those requests and links the references — so a reference may point forward,
  * across imports, anywhere in the model graph.
+ *
+ * The builder does not need the parse tree to be built: what it needs from a
+ * rule is copied out (as {@link SourceText} or {@link QualifiedName}) as the
+ * rule is exited, and kept only until the enclosing rule is done with it. Memory
+ * use while parsing is then proportional to the model being built, rather than
+ * to the size of the source.
  */
 class SimonBuilder<T> extends SimonBaseListener {
 
@@ -65,10 +81,10 @@ class SimonBuilder<T> extends SimonBaseListener {
         private final T object;
         /** The type of the object. */
         private final Slotted type;
-        private List<ModifierContext> modifiers;
-        private final List<ModelCommentContext> modelComments;
+        private List<QualifiedName> modifiers;
+        private final List<SourceText> modelComments;
 
-        public ElementInfo(String sourceName, T object, Slotted type, List<ModifierContext> modifiers, List<ModelCommentContext> modelComments) {
+        public ElementInfo(String sourceName, T object, Slotted type, List<QualifiedName> modifiers, List<SourceText> modelComments) {
             this.sourceName = sourceName;
             this.object = object;
             this.type = type;
@@ -96,14 +112,47 @@ class SimonBuilder<T> extends SimonBaseListener {
         public Slotted getSlotted() {
             return type;
         }
-        public List<ModifierContext> getModifiers() {
+        public List<QualifiedName> getModifiers() {
 			return modifiers;
 		}
-        public List<ModelCommentContext> getModelComments() {
+        public List<SourceText> getModelComments() {
             return modelComments;
         }
     }
 
+    /**
+     * A token's text, and where it was found.
+     */
+    record SourceText(String text, int line, int column) {
+        static SourceText of(Token token) {
+            return new SourceText(token.getText(), token.getLine(), token.getCharPositionInLine());
+        }
+    }
+
+    /**
+     * The identifiers in a (possibly) qualified name, and where the name was
+     * found.
+     */
+    record QualifiedName(List<String> parts, int line, int column) {
+        QualifiedName at(Token token) {
+            return new QualifiedName(parts, token.getLine(), token.getCharPositionInLine());
+        }
+
+        String text() {
+            return String.join(".", parts);
+        }
+    }
+
+    /**
+     * The literals given as the value of a slot.
+     */
+    private static class SlotValue {
+        private final List<Object> literals = new ArrayList<>();
+        private boolean list;
+        private int line;
+        private int column;
+    }
+
     private final Problem.Handler problemHandler;
     private final Backend<ObjectType, Slotted, T> modelHandling;
     private final MetamodelSource<?> metamodelSource;
@@ -112,66 +161,192 @@ class SimonBuilder<T> extends SimonBaseListener {
      */
     private final Deque<ElementInfo> currentScope = new LinkedList<>();
     private final List<ElementInfo> built = new LinkedList<>();
-    private final List<ResolutionRequest> resolutionRequests = new LinkedList<>();
+    /** The requests of the units parsed so far, a batch per unit, in order. */
+    private List<ResolutionRequests<T>> resolutionRequests = new ArrayList<>();
+    /** The requests of the unit being parsed. */
+    private ResolutionRequests<T> unitRequests;
+    /** The parts of names to resolve, so each distinct part is only kept once. */
+    private final Map<String, String> namePool;
     private final List<String> imports = new ArrayList<>();
-    private final List<ModifierContext> availableModifiers = new ArrayList<>();
-    private final Deque<List<ModelCommentContext>> pendingDocumentations = new LinkedList<>();
+    /** Told about each import as soon as it is parsed, if not null. */
+    private Consumer<String> importListener;
+    private final List<QualifiedName> availableModifiers = new ArrayList<>();
+    private final Deque<List<SourceText>> pendingDocumentations = new LinkedList<>();
+    /** The parts of the qualified identifier being parsed. */
+    private final List<String> identifierParts = new ArrayList<>();
+    /** The last qualified identifier parsed, until taken. */
+    private QualifiedName qualifiedName;
+    /** The class and name of the object header being parsed. */
+    private QualifiedName objectClass;
+    private SourceText objectName;
+    /** The name referred to by the link being parsed. */
+    private QualifiedName objectNameRef;
+    /** The feature names of the slots, components and links being parsed, innermost first. */
+    private final Deque<SourceText> featureNames = new LinkedList<>();
+    /** The values of the slots being parsed, innermost first. */
+    private final Deque<SlotValue> slotValues = new LinkedList<>();
+    /** How many scopes were open when each of the components being parsed started, innermost first. */
+    private final Deque<Integer> componentDepths = new LinkedList<>();
     private Set<String> languages;
     private String sourceName;
+    /** The stats of the unit being parsed. */
+    private CompilationStats stats;
+
+    /** Memoizes names that could not be resolved. */
+    private static final Object UNRESOLVED = new Object();
+
+    /**
+     * A path looked up from a shared scope.
+     */
+    private record LookupKey(Object scope, String[] path) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof LookupKey && ((LookupKey) other).scope == scope
+                    && Arrays.equals(((LookupKey) other).path, path);
+        }
 
-    interface Resolver<R> {
-        void resolve(R resolved);
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(scope) + Arrays.hashCode(path);
+        }
     }
 
-    class ResolutionRequest {
-        private final ParserRuleContext context;
-        private final T scope;
-        private final String name;
-        private final Resolver<T> resolver;
-        private final String source;
-        private Type expectedType;
-        private final Set<String> languages;
+    /** How many names are looked up at a time when resolving concurrently. */
+    private static final int LOOKUP_BATCH = 256;
 
-        public ResolutionRequest(ParserRuleContext context, String source, T scope, String name, Set<String> languages,
-                Resolver<T> resolver) {
+    /**
+     * The names a unit asks to be resolved once all units are parsed, and the
+     * references to link them through.
+     *
+     * Models may have millions of references, so requests are not objects of
+     * their own, but entries in parallel arrays kept per unit: everything the
+     * requests of a unit share (source name, stats) is kept once, and name paths
+     * are split once and their parts pooled.
+     */
+    static final class ResolutionRequests<T> {
+        private final String source;
+        /** The stats to charge resolving the requests to. */
+        private CompilationStats stats;
+        private int size;
+        private int[] lines;
+        private int[] columns;
+        private Object[] scopes;
+        /** The parts of each name, interned in the builder's name pool. */
+        private String[][] paths;
+        private Reference[] references;
+        /** What each name last resolved to, if resolution succeeded. */
+        private Object[] resolved;
+
+        ResolutionRequests(String source, CompilationStats stats, int capacity) {
             this.source = source;
-            this.context = context;
-            this.scope = scope;
-            this.name = name;
-            this.languages = languages;
-            this.resolver = resolver;
+            this.stats = stats;
+            this.lines = new int[capacity];
+            this.columns = new int[capacity];
+            this.scopes = new Object[capacity];
+            this.paths = new String[capacity][];
+            this.references = new Reference[capacity];
+            this.resolved = new Object[capacity];
+        }
+
+        void add(int line, int column, T scope, String[] path, Reference reference) {
+            if (size == lines.length)
+                resize(Math.max(16, size * 2));
+            lines[size] = line;
+            columns[size] = column;
+            scopes[size] = scope;
+            paths[size] = path;
+            references[size] = reference;
+            size++;
+        }
+
+        /**
+         * Lets go of the room left for more requests, once no more are added.
+         */
+        void trim() {
+            if (size < lines.length)
+                resize(size);
+        }
+
+        private void resize(int capacity) {
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            scopes = Arrays.copyOf(scopes, capacity);
+            paths = Arrays.copyOf(paths, capacity);
+            references = Arrays.copyOf(references, capacity);
+            resolved = Arrays.copyOf(resolved, capacity);
+        }
+
+        /**
+         * The (not yet resolved) requests from the given one on.
+         */
+        ResolutionRequests<T> from(int first) {
+            var rest = new ResolutionRequests<T>(source, stats, size - first);
+            for (int i = first; i < size; i++)
+                rest.add(lines[i], columns[i], scope(i), paths[i], references[i]);
+            return rest;
         }
 
-        public String getSource() {
+        /**
+         * Copies the (not yet resolved) requests so they are made from the copies
+         * of the objects they were made from.
+         */
+        ResolutionRequests<T> copy(Map<T, T> copies, CompilationStats stats) {
+            var copy = new ResolutionRequests<T>(source, stats, size);
+            for (int i = 0; i < size; i++)
+                copy.add(lines[i], columns[i], copies.getOrDefault(scope(i), scope(i)), paths[i], references[i]);
+            return copy;
+        }
+
+        int size() {
+            return size;
+        }
+
+        String getSource() {
             return source;
         }
 
-        int getLine() {
-            return context.start.getLine();
+        T scope(int request) {
+            return (T) scopes[request];
+        }
+
+        T resolved(int request) {
+            return (T) resolved[request];
         }
 
-        int getColumn() {
-            return context.start.getCharPositionInLine();
+        String getName(int request) {
+            return String.join(".", paths[request]);
+        }
+
+        boolean isQualified(int request) {
+            return paths[request].length > 1;
         }
     }
 
     public SimonBuilder(Problem.Handler problemHandler, MetamodelSource metamodelSource,
             Backend<? extends ObjectType, ? extends Slotted, T> modelHandling) {
+        this(problemHandler, metamodelSource, modelHandling, new ConcurrentHashMap<>());
+    }
+
+    private SimonBuilder(Problem.Handler problemHandler, MetamodelSource metamodelSource,
+            Backend<? extends ObjectType, ? extends Slotted, T> modelHandling, Map<String, String> namePool) {
         this.problemHandler = problemHandler;
         this.metamodelSource = metamodelSource;
         this.modelHandling = (Backend<ObjectType, Slotted, T>) modelHandling;
+        this.namePool = namePool;
     }
 
     @Override
     public void exitImportDeclaration(com.abstratt.simon.parser.antlr.SimonParser.ImportDeclarationContext ctx) {
-        var source = getCharLiteral(ctx);
-        addImport(source);
+        var literal = ctx.getStop();
+        if (literal.getType() == SimonParser.CHAR_LITERAL)
+            addImport(getCharLiteral(literal));
     }
 
     @Override
     public void exitLanguageDeclaration(LanguageDeclarationContext ctx) {
-        var language = ctx.IDENT().getText();
-        addLanguage(language);
+        var language = ctx.getStop();
+        if (language.getType() == SimonParser.IDENT)
+            addLanguage(language.getText());
     }
 
     @Override
@@ -179,10 +354,20 @@ class SimonBuilder<T> extends SimonBaseListener {
         assert sourceName != null;
     }
 
-    public void startSource(String sourceName) {
+    public void startSource(String sourceName, CompilationStats stats) {
         assert this.sourceName == null;
         this.currentScope.clear();
+        this.identifierParts.clear();
+        this.featureNames.clear();
+        this.slotValues.clear();
+        this.componentDepths.clear();
+        this.qualifiedName = null;
+        this.objectClass = null;
+        this.objectName = null;
+        this.objectNameRef = null;
         this.sourceName = sourceName;
+        this.stats = stats;
+        this.unitRequests = new ResolutionRequests<>(sourceName, stats, 0);
         this.languages = new LinkedHashSet<>();
         this.pendingDocumentations.push(new ArrayList<>());
     }
@@ -190,8 +375,14 @@ class SimonBuilder<T> extends SimonBaseListener {
     public void endSource(String sourceName) {
         assert sourceName.equals(this.sourceName);
         reportMisplacedComments(pendingDocumentations.pop());
+        if (unitRequests.size() > 0) {
+            unitRequests.trim();
+            resolutionRequests.add(unitRequests);
+        }
+        this.unitRequests = null;
         this.sourceName = null;
         this.languages = null;
+        this.stats = null;
     }
 
     public List<T> buildUnit() {
@@ -208,27 +399,229 @@ class SimonBuilder<T> extends SimonBaseListener {
     }
 
     void resolve() {
-        for (ResolutionRequest request : resolutionRequests)
-            resolveRequest(request);
+        resolve(resolutionRequests);
+    }
+
+    /**
+     * Resolves the pending requests, looking names up concurrently on the given
+     * executor, if the backend supports it.
+     *
+     * Names are looked up in batches while the model is left untouched, and then
+     * linked on the calling thread, in the order they were requested - so the
+     * outcome is the same as when resolving sequentially.
+     */
+    void resolve(Executor executor) {
+        var requests = resolutionRequests;
+        var count = requests.stream().mapToInt(ResolutionRequests::size).sum();
+        var lookups = count <= LOOKUP_BATCH ? null : modelHandling.concurrentNameResolution();
+        if (lookups == null) {
+            resolve(requests);
+            return;
+        }
+        var resolved = new Object[requests.size()][];
+        var nanos = new long[requests.size()][];
+        var memo = new ConcurrentHashMap<LookupKey, Object>();
+        var batches = new ArrayList<CompletableFuture<Void>>();
+        for (int unit = 0; unit < requests.size(); unit++) {
+            var unitRequests = requests.get(unit);
+            var unitResolved = resolved[unit] = new Object[unitRequests.size()];
+            var unitNanos = nanos[unit] = new long[unitRequests.size()];
+            for (int start = 0; start < unitRequests.size(); start += LOOKUP_BATCH) {
+                int batchStart = start;
+                int batchEnd = Math.min(start + LOOKUP_BATCH, unitRequests.size());
+                batches.add(CompletableFuture.runAsync(() -> {
+                    for (int i = batchStart; i < batchEnd; i++) {
+                        var lookupStart = System.nanoTime();
+                        unitResolved[i] = lookUp(lookups, unitRequests, i, memo);
+                        unitNanos[i] = System.nanoTime() - lookupStart;
+                    }
+                }, executor));
+            }
+        }
+        try {
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+        for (int unit = 0; unit < requests.size(); unit++) {
+            var unitRequests = requests.get(unit);
+            for (int i = 0; i < unitRequests.size(); i++) {
+                // stats are not thread-safe, so lookups are only accounted for here
+                unitRequests.stats.increment(Counter.NameLookups);
+                unitRequests.stats.addTime(Phase.Resolution, nanos[unit][i]);
+                resolveRequest(unitRequests, i, (T) resolved[unit][i]);
+            }
+        }
+    }
+
+    void resolve(List<ResolutionRequests<T>> requests) {
+        var memo = new HashMap<LookupKey, Object>();
+        for (ResolutionRequests<T> unitRequests : requests)
+            for (int i = 0; i < unitRequests.size(); i++)
+                resolveRequest(unitRequests, i, memo);
     }
 
-    private void resolveRequest(ResolutionRequest request) {
-        String name = request.name;
-        Resolver<T> resolver = request.resolver;
-        T scope = request.scope;
-        String[] nameComponents = name.contains(".") ? name.split("\\.") : new String[] { name };
-        T resolved = modelHandling.nameResolution().resolve(scope, nameComponents);
+    /**
+     * Resolves again requests carried over from an earlier compilation of a unit
+     * that has not changed since, and whose objects are reused.
+     *
+     * Requests that failed before are always retried. Requests that succeeded are
+     * kept as they are, unless other units changed and the name is qualified: an
+     * unqualified name only resolves within the requester's own tree, which has not
+     * changed, but a qualified one may resolve against any root.
+     *
+     * @param requests     the carried over requests
+     * @param otherChanges whether any other units were parsed again, added or
+     *                     removed
+     */
+    void resolveAgain(List<ResolutionRequests<T>> requests, boolean otherChanges) {
+        var memo = new HashMap<LookupKey, Object>();
+        for (ResolutionRequests<T> unitRequests : requests)
+            for (int i = 0; i < unitRequests.size(); i++)
+                if (unitRequests.resolved(i) == null || (otherChanges && unitRequests.isQualified(i)))
+                    resolveRequest(unitRequests, i, memo);
+    }
+
+    /**
+     * Resolves the given requests in order, for as long as their names can be
+     * resolved against the model built so far, and returns the ones left.
+     *
+     * What a name resolves to does not change as more units are built: names are
+     * looked up in the requester's own tree first, and then against roots in the
+     * order they were built, so roots built later can only matter for names that
+     * do not resolve yet. Resolution stops at the first name that does not
+     * resolve, so references are still linked in the order they were requested.
+     *
+     * @return the requests that could not be resolved yet, in order
+     */
+    List<ResolutionRequests<T>> resolveAvailable(List<ResolutionRequests<T>> requests) {
+        var memo = new HashMap<LookupKey, Object>();
+        for (int unit = 0; unit < requests.size(); unit++) {
+            var unitRequests = requests.get(unit);
+            for (int i = 0; i < unitRequests.size(); i++) {
+                var resolved = lookUp(unitRequests, i, memo);
+                if (resolved == null) {
+                    var left = new ArrayList<ResolutionRequests<T>>(requests.size() - unit);
+                    left.add(unitRequests.from(i));
+                    left.addAll(requests.subList(unit + 1, requests.size()));
+                    return left;
+                }
+                resolveRequest(unitRequests, i, resolved);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Charges the work of resolving the given requests from now on to the given
+     * stats (for instance, when a unit's requests are carried over to a new
+     * compilation).
+     */
+    void chargeTo(List<ResolutionRequests<T>> requests, CompilationStats stats) {
+        requests.forEach(it -> it.stats = stats);
+    }
+
+    /**
+     * Copies the given (not yet resolved) requests so they are made from the
+     * copies of the objects they were made from (for instance, when a unit is
+     * materialized from the {@link UnitCache}).
+     *
+     * @param copies each object mapped to its copy
+     * @param stats  the stats to charge resolving the copies to
+     */
+    List<ResolutionRequests<T>> copyRequests(List<ResolutionRequests<T>> requests, Map<T, T> copies,
+            CompilationStats stats) {
+        var result = new ArrayList<ResolutionRequests<T>>(requests.size());
+        for (ResolutionRequests<T> unitRequests : requests)
+            result.add(unitRequests.copy(copies, stats));
+        return result;
+    }
+
+    private T lookUp(ResolutionRequests<T> requests, int request, Map<LookupKey, Object> memo) {
+        var start = System.nanoTime();
+        var resolved = lookUp(modelHandling.nameResolution(), requests, request, memo);
+        requests.stats.increment(Counter.NameLookups);
+        requests.stats.addTime(Phase.Resolution, System.nanoTime() - start);
+        return resolved;
+    }
+
+    /**
+     * Looks up the name in a request, unless the same name was already looked up
+     * from a scope the backend considers equivalent (see
+     * {@link NameResolution#sharedScope(Object, String...)}).
+     *
+     * @param memo what names looked up so far resolved to (or
+     *             {@link #UNRESOLVED}), by shared scope and path; only valid for
+     *             as long as the model does not change
+     */
+    private T lookUp(NameResolution<T> lookups, ResolutionRequests<T> requests, int request,
+            Map<LookupKey, Object> memo) {
+        var event = new NameResolutionEvent();
+        var trace = event.start();
+        var scope = requests.scope(request);
+        var path = requests.paths[request];
+        var sharedScope = lookups.sharedScope(scope, path);
+        var key = sharedScope == null ? null : new LookupKey(sharedScope, path);
+        var memoized = key == null ? null : memo.get(key);
+        T resolved;
+        if (memoized != null) {
+            resolved = memoized == UNRESOLVED ? null : (T) memoized;
+        } else {
+            resolved = lookups.resolve(scope, trace, path);
+            if (key != null)
+                memo.put(key, resolved == null ? UNRESOLVED : resolved);
+        }
+        event.end(requests.getSource(), requests.lines[request], path, resolved != null, memoized != null, trace);
+        return resolved;
+    }
+
+    private void resolveRequest(ResolutionRequests<T> requests, int request, Map<LookupKey, Object> memo) {
+        resolveRequest(requests, request, lookUp(requests, request, memo));
+    }
+
+    private void resolveRequest(ResolutionRequests<T> requests, int request, T resolved) {
+        var start = System.nanoTime();
+        try {
+            link(requests, request, resolved);
+        } finally {
+            requests.stats.addTime(Phase.Resolution, System.nanoTime() - start);
+        }
+    }
+
+    private void link(ResolutionRequests<T> requests, int request, T resolved) {
+        T previous = requests.resolved(request);
+        requests.resolved[request] = null;
         if (resolved != null) {
             try {
-                resolver.resolve(resolved);
+                apply(requests, request, previous, resolved);
+                requests.resolved[request] = resolved;
+                return;
             } catch (MetamodelException e) {
-                reportError(Severity.Error, Category.TypeError, request.getSource(), request.getLine(),
-                        request.getColumn(), e.getMessage());
+                reportError(Severity.Error, Category.TypeError, requests.getSource(), requests.lines[request],
+                        requests.columns[request], e.getMessage());
             }
         } else {
-            reportError(Severity.Error, Category.UnresolvedName, request.getSource(), request.getLine(),
-                    request.getColumn(), "Unknown name: '" + name + "'");
+            reportError(Severity.Error, Category.UnresolvedName, requests.getSource(), requests.lines[request],
+                    requests.columns[request], "Unknown name: '" + requests.getName(request) + "'");
         }
+        if (previous != null)
+            apply(requests, request, previous, null);
+    }
+
+    /**
+     * Applies a request's resolution, replacing the previous one (if any).
+     */
+    private void apply(ResolutionRequests<T> requests, int request, T previous, T resolved) {
+        var reference = requests.references[request];
+        var scope = requests.scope(request);
+        if (previous == null)
+            modelHandling.linking().link(reference, scope, resolved);
+        else
+            modelHandling.linking().relink(reference, scope, previous, resolved);
     }
 
     @Override
@@ -239,8 +632,17 @@ class SimonBuilder<T> extends SimonBaseListener {
 
     @Override
     public void exitObjectHeader(ObjectHeaderContext ctx) {
-        var object = ctx.objectClass();
-        var typeName = getTypeName(object);
+        var event = new ObjectInstantiationEvent();
+        event.begin();
+        var typeName = instantiateObject(ctx);
+        event.end(sourceName, ctx, typeName);
+    }
+
+    private String instantiateObject(ObjectHeaderContext ctx) {
+        var typeName = getTypeName(objectClass);
+        var objectName = this.objectName;
+        this.objectClass = null;
+        this.objectName = null;
         var resolvedType = metamodelSource.resolveType(StringUtils.capitalize(typeName), languages);
         var asObjectType = (ObjectType) resolvedType;
         if (asObjectType == null)
@@ -249,12 +651,11 @@ class SimonBuilder<T> extends SimonBaseListener {
         if (!asObjectType.isInstantiable())
             reportError(Severity.Fatal, Category.AbstractElement, sourceName, ctx,
                     "Language element not instantiable: " + typeName);
-        var instantiation = modelHandling.instantiation();
-        var created = (T) instantiation.createObject(asObjectType.isRoot(), asObjectType);
-        var objectName = ctx.objectName();
+        var created = instantiate(asObjectType.isRoot(), asObjectType);
         if (objectName != null)
-            modelHandling.nameSetting().setName(created, getIdentifier(objectName));
+            modelHandling.nameSetting().setName(created, objectName.text());
         newScope(asObjectType, created);
+        return resolvedType.name();
     }
 
     @Override
@@ -268,50 +669,116 @@ class SimonBuilder<T> extends SimonBaseListener {
         built.add(lastScope);
     }
 
-    private String getTypeName(ObjectClassContext object) {
-        String text = object.getText();
-        if (text.indexOf('.') < 0)
-            return text;
-        String[] components = text.split("\\.");
-        String typeName = components[0] + '.' + components[1];
-        return typeName;
+    private String getTypeName(QualifiedName objectClass) {
+        var parts = objectClass.parts();
+        return String.join(".", parts.subList(0, Math.min(2, parts.size())));
     }
 
-    private String getIdentifier(ParserRuleContext object) {
-        TerminalNode token = object.getToken(SimonParser.IDENT, 0);
-        return token.getText();
-    }
-
-    private String getCharLiteral(ParserRuleContext object) {
-        TerminalNode token = object.getToken(SimonParser.CHAR_LITERAL, 0);
+    private String getCharLiteral(Token token) {
         String text = token.getText();
         return text.substring(1, text.length() - 1);
     }
 
+    @Override
+    public void exitSimpleIdentifier(SimpleIdentifierContext ctx) {
+        identifierParts.add(ctx.getStart().getText());
+    }
+
+    @Override
+    public void exitQualifiedIdentifier(QualifiedIdentifierContext ctx) {
+        if (ctx.getParent() instanceof IdentifierTailContext)
+            // the rest of an enclosing identifier
+            return;
+        var start = ctx.getStart();
+        qualifiedName = new QualifiedName(List.copyOf(identifierParts), start.getLine(),
+                start.getCharPositionInLine());
+        identifierParts.clear();
+    }
+
+    private QualifiedName takeQualifiedName() {
+        var taken = qualifiedName;
+        qualifiedName = null;
+        return taken;
+    }
+
+    @Override
+    public void exitObjectClass(ObjectClassContext ctx) {
+        objectClass = takeQualifiedName();
+    }
+
+    @Override
+    public void exitObjectName(ObjectNameContext ctx) {
+        objectName = SourceText.of(ctx.getStart());
+    }
+
+    @Override
+    public void exitObjectNameRef(ObjectNameRefContext ctx) {
+        objectNameRef = takeQualifiedName();
+    }
+
+    @Override
+    public void exitFeatureName(FeatureNameContext ctx) {
+        featureNames.push(SourceText.of(ctx.getStart()));
+    }
+
+    /**
+     * Returns the feature name given to the slot, component or link being parsed.
+     */
+    private SourceText peekFeatureName(ParserRuleContext owner) {
+        if (owner.getStart().getType() != SimonParser.IDENT)
+            reportError(Severity.Fatal, Category.MissingFeature, sourceName, owner, "Feature name expected");
+        return featureNames.peek();
+    }
+
+    private SourceText takeFeatureName(ParserRuleContext owner) {
+        var featureName = peekFeatureName(owner);
+        featureNames.pop();
+        return featureName;
+    }
+
     @Override
     public void exitLink(LinkContext ctx) {
+        var featureName = takeFeatureName(ctx);
+        var nameToResolve = objectNameRef;
+        objectNameRef = null;
         ElementInfo parentInfo = currentScope().get();
-        FeatureNameContext featureNameCtx = ctx.featureName();
-        Reference reference = getObjectFeature(parentInfo, featureNameCtx, ObjectType::referenceByName);
-        Linking<T, Reference> linking = modelHandling.linking();
-        String nameToResolve = ctx.objectNameRef().getText();
-        requestResolution(nameToResolve, resolved -> linking.link(reference, parentInfo.object, resolved),
-                ctx.objectNameRef());
+        Reference reference = getObjectFeature(parentInfo, featureName, ObjectType::referenceByName);
+        requestResolution(nameToResolve, reference);
+    }
+
+    private T instantiate(boolean root, Slotted type) {
+        stats.increment(Counter.ObjectsInstantiated);
+        return modelHandling.instantiation().createObject(root, type);
     }
 
-    private void requestResolution(String name, Resolver<T> resolver, ParserRuleContext context) {
-        resolutionRequests.add(new ResolutionRequest(context, sourceName, this.currentScope().get().getObject(), name,
-                languages, resolver));
+    private void setValue(Slot slot, T target, Object value) {
+        stats.increment(Counter.SlotsSet);
+        modelHandling.valueSetting().setValue(slot, target, value);
+    }
+
+    private void requestResolution(QualifiedName name, Reference reference) {
+        stats.increment(Counter.ResolutionRequests);
+        var parts = name.parts();
+        var path = new String[parts.size()];
+        for (int i = 0; i < path.length; i++)
+            path[i] = namePool.computeIfAbsent(parts.get(i), it -> it);
+        unitRequests.add(name.line(), name.column(), this.currentScope().get().getObject(), path, reference);
+    }
+
+    @Override
+    public void enterComponent(ComponentContext ctx) {
+        componentDepths.push(currentScope.size());
     }
 
     @Override
     public void exitComponent(ComponentContext ctx) {
+        int depth = componentDepths.pop();
+        var featureName = takeFeatureName(ctx);
         if (hasFatalError())
             return;
-        // Only count actual childObject nodes; pascalComment entries do not create scopes
-        int childCount = ctx.childObjects().childObject().size();
-        List<T> components = new ArrayList<>(childCount);
-        for (int i = 0; i < childCount; i++) {
+        // the scopes opened since the component started are its children's
+        List<T> components = new ArrayList<>(currentScope.size() - depth);
+        while (currentScope.size() > depth) {
             SimonBuilder<T>.ElementInfo last = dropScope();
             T child = last.getObject();
             debug("Collecting child to add: ", last);
@@ -319,10 +786,10 @@ class SimonBuilder<T> extends SimonBaseListener {
         }
         ElementInfo parentInfo = currentScope().get();
         Parenting<T, Composition> parenting = modelHandling.parenting();
-        Composition composition = getObjectFeature(parentInfo, ctx.featureName(), ObjectType::compositionByName);
+        Composition composition = getObjectFeature(parentInfo, featureName, ObjectType::compositionByName);
         if (composition == null) {
-            reportError(Severity.Fatal, Category.MissingFeature, sourceName, ctx.featureName(),
-                    "No feature '" + getIdentifier(ctx.featureName()) + "' found on " + parentInfo.getType().name());
+            reportError(Severity.Fatal, Category.MissingFeature, sourceName, featureName.line(), featureName.column(),
+                    "No feature '" + featureName.text() + "' found on " + parentInfo.getType().name());
             return;
         }
         for (T child : components) {
@@ -331,17 +798,16 @@ class SimonBuilder<T> extends SimonBaseListener {
     }
 
     private <F extends Feature<ObjectType>> F getObjectFeature(ElementInfo featureOwnerInfo,
-            ParserRuleContext featureNameCtx, BiFunction<ObjectType, String, F> getter) {
+            SourceText featureName, BiFunction<ObjectType, String, F> getter) {
         Slotted parentType = featureOwnerInfo.getType();
         if (!(parentType instanceof ObjectType))
             reportError(Severity.Fatal, Category.ElementAdmitsNoFeatures, featureOwnerInfo.getSourceName(),
-                    featureNameCtx, "This type cannot have components: " + parentType.name());
+                    featureName.line(), featureName.column(), "This type cannot have components: " + parentType.name());
         ObjectType parentTypeAsObjectType = (ObjectType) parentType;
-        String featureName = getIdentifier(featureNameCtx);
-        F feature = getter.apply(parentTypeAsObjectType, featureName);
+        F feature = getter.apply(parentTypeAsObjectType, featureName.text());
         if (feature == null)
-            reportError(Severity.Fatal, Category.MissingFeature, featureOwnerInfo.getSourceName(), featureNameCtx,
-                    "No feature '" + featureName + "' in " + parentType.name());
+            reportError(Severity.Fatal, Category.MissingFeature, featureOwnerInfo.getSourceName(), featureName.line(),
+                    featureName.column(), "No feature '" + featureName.text() + "' in " + parentType.name());
         return feature;
     }
 
@@ -365,17 +831,18 @@ class SimonBuilder<T> extends SimonBaseListener {
     public void exitRecordLiteral(RecordLiteralContext ctx) {
         // take the record out of the stack
         debug("Removing record", currentScope());
-        dropScope();
+        var record = dropScope();
+        slotValues.peek().literals.add(record.getObject());
     }
     
-    private List<ModifierContext> consumeModifiers() {
+    private List<QualifiedName> consumeModifiers() {
     	var snapshot = new ArrayList<>(this.availableModifiers);
     	availableModifiers.clear();
     	log.debug("Modifiers: {}", snapshot);
     	return snapshot; 
     }
 
-    private List<ModelCommentContext> consumeModelComments() {
+    private List<SourceText> consumeModelComments() {
         var top = pendingDocumentations.peek();
         if (top == null) {
             return Collections.emptyList();
@@ -402,9 +869,9 @@ class SimonBuilder<T> extends SimonBaseListener {
         }
 	}
 
-    private void applyModelComment(ElementInfo info, ModelCommentContext it) {
+    private void applyModelComment(ElementInfo info, SourceText it) {
         T object = info.getObject();
-        String textWithDelimiters = it.getText();
+        String textWithDelimiters = it.text();
         String text = textWithDelimiters.substring(3, textWithDelimiters.length() - 3);
         modelHandling.documenting().document(object, text);
     }
@@ -418,24 +885,21 @@ class SimonBuilder<T> extends SimonBaseListener {
         }
     }
 
-    private void applyModifier(ParserRuleContext ctx, SimonBuilder<T>.ElementInfo info, ModifierContext modifier) {
-        QualifiedIdentifierContext qualifiedId = modifier.qualifiedIdentifier();
-        String head = qualifiedId.simpleIdentifier().getText();
+    private void applyModifier(ParserRuleContext ctx, SimonBuilder<T>.ElementInfo info, QualifiedName modifier) {
+        List<String> parts = modifier.parts();
         String qualifier;
         String localId;
-        if (qualifiedId.identifierTail() != null) {
-            QualifiedIdentifierContext tail = qualifiedId.identifierTail().qualifiedIdentifier();
-            if (tail.identifierTail() != null) {
-                reportError(Severity.Error, Category.TypeError, sourceName, modifier,
-                        "Modifier '" + qualifiedId.getText()
-                                + "' must be a simple identifier or <EnumType>.<literal>");
-                return;
-            }
-            qualifier = head;
-            localId = tail.simpleIdentifier().getText();
+        if (parts.size() > 2) {
+            reportError(Severity.Error, Category.TypeError, sourceName, modifier.line(), modifier.column(),
+                    "Modifier '" + modifier.text() + "' must be a simple identifier or <EnumType>.<literal>");
+            return;
+        }
+        if (parts.size() == 2) {
+            qualifier = parts.get(0);
+            localId = parts.get(1);
         } else {
             qualifier = null;
-            localId = head;
+            localId = parts.get(0);
         }
         Slotted owner = info.getType();
         List<Slot> matchingSlots = new ArrayList<>();
@@ -469,20 +933,20 @@ class SimonBuilder<T> extends SimonBaseListener {
             }
         }
         if (matchingSlots.size() == 1) {
-            modelHandling.valueSetting().setValue(matchingSlots.get(0), info.getObject(), matchingValues.get(0));
+            setValue(matchingSlots.get(0), info.getObject(), matchingValues.get(0));
             return;
         }
         if (matchingSlots.size() > 1) {
             List<String> conflicting = matchingSlots.stream().map(Slot::name).collect(Collectors.toList());
-            reportError(Severity.Error, Category.TypeError, sourceName, modifier,
-                    "Ambiguous modifier '" + qualifiedId.getText() + "' on type " + owner.name()
+            reportError(Severity.Error, Category.TypeError, sourceName, modifier.line(), modifier.column(),
+                    "Ambiguous modifier '" + modifier.text() + "' on type " + owner.name()
                             + " - matches modifier-eligible slots: " + conflicting);
             return;
         }
         List<String> available = owner.slots().stream().filter(Slot::isModifier).map(Slot::name)
                 .toList();
-        reportError(Severity.Error, Category.UnknownElement, sourceName, modifier,
-                "Unknown modifier '" + qualifiedId.getText() + "' on type " + owner.name()
+        reportError(Severity.Error, Category.UnknownElement, sourceName, modifier.line(), modifier.column(),
+                "Unknown modifier '" + modifier.text() + "' on type " + owner.name()
                         + " - modifier-eligible slots: " + available);
     }
 
@@ -492,7 +956,7 @@ class SimonBuilder<T> extends SimonBaseListener {
         SlotContext slotContext = findParent(ctx, SlotContext.class);
         ElementInfo info = currentScope().get();
 
-        String propertyName = getIdentifier(slotContext.featureName());
+        String propertyName = peekFeatureName(slotContext).text();
         Slotted asSlotted = info.type;
         Slot slot = asSlotted.slotByName(propertyName);
         if (slot == null) {
@@ -501,11 +965,11 @@ class SimonBuilder<T> extends SimonBaseListener {
                     + " - slots are: " + slotNames);
         }
         if (!(slot.type() instanceof RecordType)) {
-            // no instance required
-            return;
+            reportError(Severity.Fatal, Category.TypeError, sourceName, ctx,
+                    "Slot '" + slot.name() + "' does not take records");
         }
         RecordType asRecordType = (RecordType) slot.type();
-        T created = modelHandling.instantiation().createObject(asRecordType.isRoot(), asRecordType);
+        T created = instantiate(asRecordType.isRoot(), asRecordType);
         newScope(asRecordType, created);
     }
 
@@ -519,14 +983,14 @@ class SimonBuilder<T> extends SimonBaseListener {
     
     @Override
     public void exitModifier(ModifierContext ctx) {
-    	availableModifiers.add(ctx);
+    	availableModifiers.add(takeQualifiedName().at(ctx.getStart()));
     }
 
     @Override
     public void exitModelComment(ModelCommentContext ctx) {
         var top = pendingDocumentations.peek();
         if (top != null) {
-            top.add(ctx);
+            top.add(SourceText.of(ctx.getStart()));
         }
     }
 
@@ -550,39 +1014,50 @@ class SimonBuilder<T> extends SimonBaseListener {
         reportMisplacedComments(pendingDocumentations.pop());
     }
 
-    private void reportMisplacedComments(List<ModelCommentContext> leftover) {
-        for (ModelCommentContext orphan : leftover) {
-            reportError(Severity.Error, Category.MisplacedModelComment, sourceName, orphan,
+    private void reportMisplacedComments(List<SourceText> leftover) {
+        for (SourceText orphan : leftover) {
+            reportError(Severity.Error, Category.MisplacedModelComment, sourceName, orphan.line(), orphan.column(),
                     "Model comment is not attached to any object");
         }
     }
 
     @Override
-    public void exitSlot(SlotContext ctx) {
-        var info = currentScope().get();
-        T target = info.getObject();
-        parseSlotValue(ctx, info.getType(), SlotContext::featureName, this::buildSlotValue, (slot, value) -> modelHandling.valueSetting().setValue(slot, target, value));
+    public void enterSlot(SlotContext ctx) {
+        slotValues.push(new SlotValue());
     }
 
-    private <CTX extends ParserRuleContext, FCTX extends ParserRuleContext> void parseSlotValue(CTX ctx, Slotted slotOwner, FeatureNameProvider<CTX, FCTX> featureName, SlotValueBuilder<CTX> valueBuilder, BiConsumer<Slot, Object> valueConsumer) {
-		var slot = getSlotByFeatureName(slotOwner, featureName.get(ctx));
-        Object slotValue = valueBuilder.build((CTX) ctx, slot);
-        valueConsumer.accept(slot, slotValue);
+    @Override
+    public void enterSlotValue(SlotValueContext ctx) {
+        var value = slotValues.peek();
+        value.line = ctx.getStart().getLine();
+        value.column = ctx.getStart().getCharPositionInLine();
     }
 
-    interface SlotValueBuilder<CTX extends ParserRuleContext> {
-    	Object build(CTX context, Slot slot);
+    @Override
+    public void exitListLiteral(ListLiteralContext ctx) {
+        slotValues.peek().list = true;
     }
-    
-    interface FeatureNameProvider<CTX extends ParserRuleContext, FCTX extends ParserRuleContext> {
-    	FCTX get(CTX context);
+
+    @Override
+    public void exitLiteral(LiteralContext ctx) {
+        var token = ctx.getStart();
+        switch (token.getType()) {
+        case SimonParser.CHAR_LITERAL, SimonParser.NUM_LITERAL, SimonParser.IDENT -> slotValues.peek().literals
+                .add(token.getText());
+        default -> {
+            // records are taken as they are exited
+        }
+        }
     }
 
-	private Slot getSlotByFeatureName(Slotted slotOwner, ParserRuleContext slotName) {
-		var propertyName = getIdentifier(slotName);
-        var slot = getSlotByName(slotOwner, propertyName);
-		return slot;
-	}
+    @Override
+    public void exitSlot(SlotContext ctx) {
+        var value = slotValues.pop();
+        var featureName = takeFeatureName(ctx);
+        var info = currentScope().get();
+        var slot = getSlotByName(info.getType(), featureName.text());
+        setValue(slot, info.getObject(), buildSlotValue(slot, value));
+    }
 
 	private Slot getSlotByName(Slotted slotOwner, String propertyName) {
 		var slot = slotOwner.slotByName(propertyName);
@@ -594,54 +1069,44 @@ class SimonBuilder<T> extends SimonBaseListener {
 		return slot;
 	}
 
-	private Object buildSlotValue(SlotContext ctx, Slot slot) {
-        SlotValueContext slotValueContext = ctx.slotValue();
+	private Object buildSlotValue(Slot slot, SlotValue value) {
         BasicType slotType = slot.type();
         boolean expectsList = slot.multivalued();
-        ListLiteralContext listCtx = slotValueContext.listLiteral();
-        boolean givenList = listCtx != null;
+        boolean givenList = value.list;
         if (expectsList && !givenList) {
-            reportError(Severity.Fatal, Category.TypeError, sourceName, slotValueContext,
+            reportError(Severity.Fatal, Category.TypeError, sourceName, value.line, value.column,
                     "Slot '" + slot.name() + "' is multivalued; expected a list value like [a, b]");
         }
         if (!expectsList && givenList) {
-            reportError(Severity.Fatal, Category.TypeError, sourceName, slotValueContext,
+            reportError(Severity.Fatal, Category.TypeError, sourceName, value.line, value.column,
                     "Slot '" + slot.name() + "' is single-valued; a list value is not allowed");
         }
         if (givenList) {
-            List<LiteralContext> elements = listCtx.literal();
-            List<Object> values = new ArrayList<>(elements.size());
-            for (LiteralContext element : elements) {
+            List<Object> values = new ArrayList<>(value.literals.size());
+            for (Object element : value.literals) {
                 values.add(buildLiteralValue(slotType, element));
             }
             return values;
         }
-        return buildLiteralValue(slotType, slotValueContext.literal());
+        if (value.literals.isEmpty())
+            // a syntax error has been reported
+            return null;
+        return buildLiteralValue(slotType, value.literals.get(0));
 	}
 
-    private Object buildLiteralValue(BasicType slotType, LiteralContext literal) {
+    private Object buildLiteralValue(BasicType slotType, Object literal) {
+        if (slotType instanceof RecordType) {
+            // already built
+            return literal;
+        }
         if (slotType instanceof Primitive) {
-            return parsePrimitiveLiteral((Primitive) slotType, literal.getText());
+            return parsePrimitiveLiteral((Primitive) slotType, (String) literal);
         }
         if (slotType instanceof Enumerated) {
-            return parseEnumeratedLiteral((Enumerated) slotType, literal.getText());
-        }
-        if (slotType instanceof RecordType) {
-            return parseRecordLiteral((RecordType) slotType, literal.recordLiteral());
+            return parseEnumeratedLiteral((Enumerated) slotType, (String) literal);
         }
         throw new IllegalStateException("Unsupported basic type: " + slotType.name());
     }
-	
-    private Object parseRecordLiteral(RecordType recordType, RecordLiteralContext recordLiteralContext) {
-        T newRecord = modelHandling.instantiation().createObject(recordType.isRoot(), recordType);
-        PropertiesContext properties = recordLiteralContext.properties();
-        List<SlotContext> slots = properties.slot();
-        for (SlotContext slotContext : slots) {
-            parseSlotValue(slotContext, recordType, SlotContext::featureName, this::buildSlotValue, (Slot slot, Object newValue) -> modelHandling.valueSetting()
-                    .setValue(slot, newRecord, (T) newValue));
-        }
-        return newRecord;
-    }
 
     private Object parseEnumeratedLiteral(Enumerated type, String valueName) {
         return type.valueForName(valueName);
@@ -678,6 +1143,18 @@ class SimonBuilder<T> extends SimonBaseListener {
 
     public void addImport(String importPath) {
         imports.add(importPath);
+        if (importListener != null)
+            importListener.accept(importPath);
+    }
+
+    /**
+     * Lets the given listener know about each import as soon as it is parsed
+     * (for instance, so the imported source can be fetched while the importing
+     * unit is still being parsed), by this builder or its unit builders. The
+     * listener may be called from multiple threads at once.
+     */
+    void setImportListener(Consumer<String> importListener) {
+        this.importListener = importListener;
     }
 
     public void addLanguage(String language) {
@@ -690,6 +1167,61 @@ class SimonBuilder<T> extends SimonBaseListener {
         return result;
     }
 
+    /**
+     * Creates a builder for parsing a single unit in isolation (for instance, on a
+     * worker thread), with its own problem handler and pending state. What it
+     * collects is later taken over by this builder via {@link #merge(SimonBuilder)}.
+     */
+    SimonBuilder<T> newUnitBuilder(Problem.Handler unitProblemHandler) {
+        return newUnitBuilder(unitProblemHandler, modelHandling);
+    }
+
+    /**
+     * Creates a builder for parsing a single unit in isolation, building with the
+     * given backend (see {@link Backend#runOperations(List, Executor)}).
+     */
+    SimonBuilder<T> newUnitBuilder(Problem.Handler unitProblemHandler,
+            Backend<? extends ObjectType, ? extends Slotted, T> unitBackend) {
+        var unitBuilder = new SimonBuilder<>(unitProblemHandler, metamodelSource, unitBackend, namePool);
+        unitBuilder.importListener = importListener;
+        return unitBuilder;
+    }
+
+    /**
+     * Takes over the imports and pending resolution requests collected by a unit
+     * builder, in the order the unit builder collected them.
+     */
+    void merge(SimonBuilder<T> unitBuilder) {
+        imports.addAll(unitBuilder.collectImports());
+        resolutionRequests.addAll(unitBuilder.takeResolutionRequests());
+    }
+
+    /**
+     * Takes on the imports and pending resolution requests of a unit parsed
+     * earlier, as if this builder had just parsed it.
+     */
+    void replay(List<String> unitImports, List<ResolutionRequests<T>> unitRequests) {
+        unitImports.forEach(this::addImport);
+        resolutionRequests.addAll(unitRequests);
+    }
+
+    /**
+     * Hands over the resolution requests collected so far, which this builder will
+     * no longer resolve.
+     */
+    List<ResolutionRequests<T>> takeResolutionRequests() {
+        var result = resolutionRequests;
+        resolutionRequests = new ArrayList<>();
+        return result;
+    }
+
+    /**
+     * The backend this builder builds with.
+     */
+    Backend<ObjectType, Slotted, T> getModelHandling() {
+        return modelHandling;
+    }
+
     public Problem.Handler getProblemHandler() {
         return problemHandler;
     }
@@ -1,7 +1,6 @@
 package com.abstratt.simon.compiler.antlr.impl;
 
 import java.io.IOException;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -10,6 +9,9 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStream;
@@ -18,18 +20,24 @@ import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.UnbufferedTokenStream;
 import org.antlr.v4.runtime.tree.pattern.RuleTagToken;
-import org.apache.commons.lang3.tuple.Pair;
 
 import com.abstratt.simon.compiler.AbortCompilationException;
+import com.abstratt.simon.compiler.CompilationStats;
+import com.abstratt.simon.compiler.CompilationStats.Counter;
+import com.abstratt.simon.compiler.CompilationStats.Phase;
 import com.abstratt.simon.compiler.Problem;
 import com.abstratt.simon.compiler.Problem.Category;
 import com.abstratt.simon.compiler.Problem.Severity;
 import com.abstratt.simon.compiler.Result;
 import com.abstratt.simon.compiler.SimonCompiler;
 import com.abstratt.simon.compiler.backend.Backend;
+import com.abstratt.simon.compiler.backend.Completion;
+import com.abstratt.simon.compiler.backend.IsolatedOperation;
 import com.abstratt.simon.compiler.source.ContentProvider;
+import com.abstratt.simon.compiler.source.FileContentProvider;
 import com.abstratt.simon.compiler.source.DebuggedSourceProvider;
 import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.compiler.source.PrefetchingSourceProvider;
 import com.abstratt.simon.compiler.source.SourceProvider;
 import com.abstratt.simon.compiler.source.SourceProviderChain;
 import com.abstratt.simon.metamodel.Metamodel.ObjectType;
@@ -42,47 +50,178 @@ public class SimonCompilerAntlrImpl<T> implements SimonCompiler<T> {
 
     public final Backend<? extends ObjectType, ? extends Slotted, T> modelHandling;
 
+    /**
+     * Parses the units of an import wave, and looks up names, concurrently, if
+     * not null.
+     */
+    private final Executor unitExecutor;
+
+    /**
+     * Where imported units are materialized from when their contents did not
+     * change, if not null.
+     */
+    private final UnitCache<T> unitCache;
+
     public SimonCompilerAntlrImpl(MetamodelSource.Factory<?> typeSourceFactory,
             Backend<? extends ObjectType, ? extends Slotted, T> configurationProvider) {
+        this(typeSourceFactory, configurationProvider, null);
+    }
+
+    /**
+     * Creates a compiler that parses the units of each import wave concurrently
+     * on the given executor.
+     *
+     * Each unit is parsed by a builder of its own. Their roots, imports, problems
+     * and pending resolution requests are merged in source order before
+     * references are resolved, so results are the same as when parsing
+     * sequentially - except that a fatal error only stops the unit it occurs in.
+     *
+     * Names referred to are then looked up concurrently as well (if the backend
+     * supports it), but still linked in the order they were found in.
+     *
+     * @param unitExecutor the executor to parse units and look up names on, or
+     *                     null to compile sequentially
+     */
+    public SimonCompilerAntlrImpl(MetamodelSource.Factory<?> typeSourceFactory,
+            Backend<? extends ObjectType, ? extends Slotted, T> configurationProvider, Executor unitExecutor) {
+        this(typeSourceFactory, configurationProvider, unitExecutor, null);
+    }
+
+    /**
+     * Creates a compiler that materializes imported units (built-in sources,
+     * libraries) from the given cache when their contents are the same as when
+     * they were cached, instead of parsing them again, and caches those it had to
+     * parse.
+     *
+     * Only backends that can copy objects (see
+     * {@link com.abstratt.simon.compiler.backend.Adoption#copy(List)}) benefit
+     * from a cache.
+     *
+     * @param unitCache the cache to use, or null to always parse imported units
+     */
+    public SimonCompilerAntlrImpl(MetamodelSource.Factory<?> typeSourceFactory,
+            Backend<? extends ObjectType, ? extends Slotted, T> configurationProvider, Executor unitExecutor,
+            UnitCache<T> unitCache) {
         this.typeSourceFactory = typeSourceFactory;
         this.modelHandling = configurationProvider;
+        this.unitExecutor = unitExecutor;
+        this.unitCache = unitCache;
     }
 
     @Override
     public List<Result<T>> compile(List<String> entryPoints, SourceProvider sources) {
-        try (var typeSource = typeSourceFactory.build()) {
-            var builtInSources = typeSource.builtInSources();
-            var augmentedSources = new SourceProviderChain(
-                    Arrays.asList(new DebuggedSourceProvider(builtInSources), new DebuggedSourceProvider(sources)));
-            return doCompile(entryPoints, augmentedSources, typeSource);
+        try (var typeSource = MetamodelSource.build(typeSourceFactory)) {
+            return doCompile(entryPoints, sources, typeSource, null);
+        }
+
+    }
+
+    @Override
+    public List<Result<T>> compile(List<String> entryPoints, SourceProvider sources,
+            Consumer<Result<T>> resultConsumer) {
+        try (var typeSource = MetamodelSource.build(typeSourceFactory)) {
+            return doCompile(entryPoints, sources, typeSource, resultConsumer);
         }
+    }
+
+    /**
+     * Opens a session that, on each compilation, parses again only the units that
+     * changed since the previous one, and resolves again only the references that
+     * may have been affected by those changes.
+     *
+     * Units are always parsed sequentially in a session.
+     */
+    @Override
+    public Session<T> openSession() {
+        return new IncrementalSession<>(this, MetamodelSource.build(typeSourceFactory));
+    }
+
+    /**
+     * Sources imported are prefetched as soon as they are found, if the given
+     * sources can prefetch them. Built-in sources are never prefetched, as they
+     * are served ahead of the given sources (see
+     * {@link #withBuiltIns(SourceProvider, MetamodelSource)}), which would then
+     * never be asked for them.
+     */
+    static void prefetchImports(SimonBuilder<?> builder, SourceProvider sources, MetamodelSource<?> typeSource) {
+        if (!(sources instanceof PrefetchingSourceProvider))
+            return;
+        var prefetching = (PrefetchingSourceProvider) sources;
+        var builtInSources = typeSource.builtInSources();
+        builder.setImportListener(name -> {
+            if (builtInSources.access(name) == null)
+                prefetching.prefetch(name);
+        });
+    }
 
+    static SourceProvider withBuiltIns(SourceProvider sources, MetamodelSource<?> typeSource) {
+        var builtInSources = typeSource.builtInSources();
+        return new SourceProviderChain(
+                Arrays.asList(new DebuggedSourceProvider(builtInSources), new DebuggedSourceProvider(sources)));
     }
 
-    private ArrayList<Result<T>> doCompile(List<String> entryPoints, SourceProvider sources,
-            MetamodelSource<?> typeSource) {
+    private List<Result<T>> doCompile(List<String> entryPoints, SourceProvider sources,
+            MetamodelSource<?> typeSource, Consumer<Result<T>> resultConsumer) {
         var problemHandler = new ProblemHandler();
-        var builder = new SimonBuilder<>(problemHandler, typeSource, modelHandling);
-        var results = modelHandling.runOperation(() -> parseUnits(sources, entryPoints, builder));
-        builder.resolve();
+        // whatever the backend keeps for this compilation is kept apart from others
+        var backend = modelHandling.forCompilation();
+        var builder = new SimonBuilder<>(problemHandler, typeSource, backend);
+        prefetchImports(builder, sources, typeSource);
+        if (unitExecutor != null)
+            typeSource.prepareForConcurrentUse();
+        var completion = backend.completion();
+        var stream = resultConsumer == null ? null
+                : new ResultStream<>(builder, problemHandler, resultConsumer, completion);
+        return backend.runOperation(() -> {
+            var parsed = parseUnits(withBuiltIns(sources, typeSource), entryPoints, typeSource.identity(), builder,
+                    stream);
+            if (unitExecutor == null)
+                builder.resolve();
+            else
+                builder.resolve(unitExecutor);
+            if (stream != null)
+                return stream.complete(parsed);
+            var results = collectResults(parsed, problemHandler);
+            results.forEach(it -> complete(completion, it));
+            return results;
+        });
+    }
+
+    /**
+     * Lets the backend know the unit the given result is for is done, and keeps
+     * in the result whatever stands for the unit's roots from then on.
+     */
+    static <T> void complete(Completion<T> completion, Result<T> result) {
+        var roots = result.getRootObjects();
+        var standIns = completion.done(result.getSource(), roots);
+        if (standIns == roots)
+            return;
+        roots.clear();
+        roots.addAll(standIns);
+    }
+
+    static <T> ArrayList<Result<T>> collectResults(Map<String, Result<T>> results, ProblemHandler problemHandler) {
         problemHandler.getAllProblems().forEach((source, problem) -> {
             Result<T> sourceResult = results.computeIfAbsent(source,
                     s -> Result.failure(s, new Problem(source, "Missing source", Severity.Fatal)));
             sourceResult.getProblems().addAll(problem);
         });
+        results.values().forEach(it -> it.getStats().publish(it.getSource()));
         return new ArrayList<>(results.values());
     }
 
-    private Map<String, Result<T>> parseUnits(SourceProvider sources, List<String> entryPoints,
-            SimonBuilder<T> builder) {
+    private Map<String, Result<T>> parseUnits(SourceProvider sources, List<String> entryPoints, Object metamodel,
+            SimonBuilder<T> builder, ResultStream<T> stream) {
         Set<String> toParse = new LinkedHashSet<>(entryPoints);
         Set<String> alreadyParsed = new LinkedHashSet<>();
         var results = new LinkedHashMap<String, Result<T>>();
 
         while (!toParse.isEmpty()) {
             var thisBatch = toParse;
-            var contentProviders = thisBatch.stream().map(it -> Pair.of(it, sources.access(it)));
-            var batchResults = contentProviders.map(input -> parseUnit(builder, input.getKey(), input.getValue()));
+            // entry points change between compilations, imported units seldom do
+            var cachedFor = unitCache == null || alreadyParsed.isEmpty() ? null : metamodel;
+            var batchResults = unitExecutor == null ? parseSequentially(sources, thisBatch, cachedFor, builder, stream)
+                    : parseConcurrently(sources, thisBatch, cachedFor, builder, stream);
             batchResults.forEach(it -> results.put(it.getSource(), it));
             alreadyParsed.addAll(thisBatch);
             List<String> imports = builder.collectImports();
@@ -92,29 +231,176 @@ public class SimonCompilerAntlrImpl<T> implements SimonCompiler<T> {
         return results;
     }
 
-    private Result<T> parseUnit(SimonBuilder<T> builder, String name, ContentProvider input) {
+    /**
+     * @param cachedFor the identity of the metamodel units are cached for, or null
+     *                  if the units in the batch are not cached
+     */
+    private List<Result<T>> parseSequentially(SourceProvider sources, Set<String> batch, Object cachedFor,
+            SimonBuilder<T> builder, ResultStream<T> stream) {
+        if (cachedFor != null)
+            return batch.stream()
+                    .map(name -> merge(builder,
+                            parseCachedUnit(builder, builder.getModelHandling(), name, sources, cachedFor), stream))
+                    .collect(Collectors.toList());
+        return batch.stream().map(name -> {
+            var result = parseUnit(builder, name, sources);
+            builder.getModelHandling().completion().built(name, result.getRootObjects());
+            if (stream != null)
+                stream.unitParsed(result, builder.takeResolutionRequests());
+            return result;
+        }).collect(Collectors.toList());
+    }
+
+    private List<Result<T>> parseConcurrently(SourceProvider sources, Set<String> batch, Object cachedFor,
+            SimonBuilder<T> builder, ResultStream<T> stream) {
+        var unitParses = new ArrayList<IsolatedOperation<T, ParsedUnit<T>>>(batch.size());
+        for (String name : batch)
+            unitParses.add(cachedFor == null ? unitBackend -> parseIsolatedUnit(builder, unitBackend, name, sources)
+                    : unitBackend -> parseCachedUnit(builder, unitBackend, name, sources, cachedFor));
+        var parsedUnits = builder.getModelHandling().runOperations(unitParses, unitExecutor);
+        var batchResults = new ArrayList<Result<T>>(parsedUnits.size());
+        for (ParsedUnit<T> parsed : parsedUnits)
+            batchResults.add(merge(builder, parsed, stream));
+        return batchResults;
+    }
+
+    private Result<T> merge(SimonBuilder<T> builder, ParsedUnit<T> parsed, ResultStream<T> stream) {
+        parsed.problems.getAllProblems().values()
+                .forEach(problems -> problems.forEach(builder.getProblemHandler()::handleProblem));
+        builder.getModelHandling().completion().built(parsed.result.getSource(), parsed.result.getRootObjects());
+        if (stream != null)
+            stream.unitParsed(parsed.result, parsed.builder.takeResolutionRequests());
+        builder.merge(parsed.builder);
+        return parsed.result;
+    }
+
+    private ParsedUnit<T> parseIsolatedUnit(SimonBuilder<T> builder, Backend<?, ?, T> unitBackend, String name,
+            SourceProvider sources) {
+        var unitProblems = new ProblemHandler();
+        var unitBuilder = builder.newUnitBuilder(unitProblems, (Backend<ObjectType, Slotted, T>) unitBackend);
+        var result = parseUnit(unitBuilder, name, sources);
+        return new ParsedUnit<>(result, unitBuilder, unitProblems);
+    }
+
+    /**
+     * Parses a unit in isolation, unless the unit cache has it for the same
+     * contents, in which case the unit is materialized from a copy of what was
+     * cached. A unit that had to be parsed is cached, unless it had fatal errors.
+     * Nothing is cached if the backend cannot carry objects over.
+     */
+    private ParsedUnit<T> parseCachedUnit(SimonBuilder<T> builder, Backend<?, ?, T> unitBackend, String name,
+            SourceProvider sources, Object metamodel) {
+        var adoption = unitBackend.adoption();
+        if (adoption == null)
+            return parseIsolatedUnit(builder, unitBackend, name, sources);
+        var unitProblems = new ProblemHandler();
+        var unitBuilder = builder.newUnitBuilder(unitProblems, (Backend<ObjectType, Slotted, T>) unitBackend);
+        var stats = new CompilationStats();
+        var start = System.nanoTime();
+        var input = sources.access(name);
+        if (input == null)
+            return new ParsedUnit<>(parseUnit(unitBuilder, name, null, stats), unitBuilder, unitProblems);
+        IncrementalSession.Fingerprinted contents;
+        try {
+            contents = IncrementalSession.fingerprint(input);
+        } catch (IOException e) {
+            return new ParsedUnit<>(Result.failure(name, new Problem(name, e.toString(), Severity.Fatal)),
+                    unitBuilder, unitProblems);
+        }
+        stats.addTime(Phase.SourceAccess, System.nanoTime() - start);
+        var fingerprint = contents.fingerprint();
+        var cached = unitCache.get(metamodel, name, fingerprint);
+        if (cached != null) {
+            var copies = adoption.copy(cached.roots);
+            var roots = cached.roots.stream().map(copies::get).collect(Collectors.toList());
+            roots.forEach(adoption::adopt);
+            unitBuilder.replay(cached.imports, unitBuilder.copyRequests(cached.requests, copies, stats));
+            cached.problems.forEach(unitProblems::handleProblem);
+            return new ParsedUnit<>(new Result<>(name, roots, Collections.emptyList(), stats), unitBuilder,
+                    unitProblems);
+        }
+        var result = parseUnit(unitBuilder, name, contents.contents(), stats);
+        var copies = unitProblems.hasFatalError() ? null : adoption.copy(result.getRootObjects());
+        if (copies != null) {
+            // the copies are kept as they are now, before any reference is resolved
+            var imports = unitBuilder.collectImports();
+            var requests = unitBuilder.takeResolutionRequests();
+            var problems = new ArrayList<Problem>();
+            unitProblems.getAllProblems().values().forEach(problems::addAll);
+            var roots = result.getRootObjects().stream().map(copies::get).collect(Collectors.toList());
+            unitCache.put(metamodel, name, new UnitCache.Unit<>(fingerprint, roots, imports, problems,
+                    unitBuilder.copyRequests(requests, copies, null)));
+            unitBuilder.replay(imports, requests);
+        }
+        return new ParsedUnit<>(result, unitBuilder, unitProblems);
+    }
+
+    private static class ParsedUnit<T> {
+        private final Result<T> result;
+        private final SimonBuilder<T> builder;
+        private final ProblemHandler problems;
+
+        ParsedUnit(Result<T> result, SimonBuilder<T> builder, ProblemHandler problems) {
+            this.result = result;
+            this.builder = builder;
+            this.problems = problems;
+        }
+    }
+
+    private Result<T> parseUnit(SimonBuilder<T> builder, String name, SourceProvider sources) {
+        var stats = new CompilationStats();
+        var start = System.nanoTime();
+        var input = sources.access(name);
+        stats.addTime(Phase.SourceAccess, System.nanoTime() - start);
+        return parseUnit(builder, name, input, stats);
+    }
+
+    Result<T> parseUnit(SimonBuilder<T> builder, String name, ContentProvider input, CompilationStats stats) {
         if (input == null) {
             return Result.failure(name, new Problem(name, "No source found for '" + name + "'", Severity.Fatal));
         }
+        var event = new UnitParseEvent();
+        event.begin();
         try {
-            doParse(name, input.getContents(), builder);
+            doParse(name, input, builder, stats);
         } catch (AbortCompilationException e) {
             // aborted due to fatal error
         } catch (IOException e) {
             return Result.failure(name, new Problem(name, e.toString(), Severity.Fatal));
         }
         var roots = builder.buildUnit();
-        return new Result(name, roots, Collections.emptyList());
+        event.end(name, stats);
+        return new Result<>(name, roots, Collections.emptyList(), stats);
     }
 
-    private void doParse(String source, Reader contents, SimonBuilder<T> builder) throws IOException {
-        doParse(source, CharStreams.fromReader(contents), builder);
+    private void doParse(String source, ContentProvider contents, SimonBuilder<T> builder, CompilationStats stats)
+            throws IOException {
+        var start = System.nanoTime();
+        var mapped = contents instanceof FileContentProvider ? ((FileContentProvider) contents).map() : null;
+        if (mapped != null) {
+            // decoded as the lexer goes, so the contents are not copied onto the heap
+            var input = new Utf8CharStream(mapped, source);
+            stats.addTime(Phase.SourceAccess, System.nanoTime() - start);
+            try {
+                doParse(source, input, builder, stats);
+            } finally {
+                stats.add(Counter.CharactersRead, input.size());
+            }
+            return;
+        }
+        var input = CharStreams.fromReader(contents.getContents());
+        stats.addTime(Phase.SourceAccess, System.nanoTime() - start);
+        stats.add(Counter.CharactersRead, input.size());
+        doParse(source, input, builder, stats);
     }
 
-    private void doParse(String source, CharStream input, SimonBuilder<T> builder) {
+    private void doParse(String source, CharStream input, SimonBuilder<T> builder, CompilationStats stats) {
         var lexer = new SimonLexer(input);
         var parser = new SimonParser(new UnbufferedTokenStream<RuleTagToken>(lexer));
-        parser.addParseListener(builder);
+        // the builder copies what it needs as rules are exited
+        parser.setBuildParseTree(false);
+        var listener = new TimedParseListener(builder, stats);
+        parser.addParseListener(listener);
         parser.addErrorListener(new BaseErrorListener() {
             @Override
             public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
@@ -122,10 +408,14 @@ public class SimonCompilerAntlrImpl<T> implements SimonCompiler<T> {
                 builder.reportError(Severity.Error, Category.SyntaxError, source, line, charPositionInLine, msg);
             }
         });
-        builder.startSource(source);
+        builder.startSource(source, stats);
+        var buildingBefore = listener.buildingNanos();
+        var start = System.nanoTime();
         try {
             parser.program();
         } finally {
+            var building = listener.buildingNanos() - buildingBefore;
+            stats.addTime(Phase.Parsing, System.nanoTime() - start - building);
             builder.endSource(source);
         }
     }
@@ -155,4 +445,4 @@ class ProblemHandler implements Problem.Handler {
         sourceProblems.add(toHandle);
         hasFatalProblem = hasFatalProblem || toHandle.severity() == Severity.Fatal;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
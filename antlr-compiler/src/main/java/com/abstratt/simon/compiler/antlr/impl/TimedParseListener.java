@@ -0,0 +1,84 @@
+package com.abstratt.simon.compiler.antlr.impl;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import com.abstratt.simon.compiler.AbortCompilationException;
+import com.abstratt.simon.compiler.CompilationStats;
+import com.abstratt.simon.compiler.CompilationStats.Phase;
+import com.abstratt.simon.parser.antlr.SimonParser.ImportDeclarationContext;
+
+/**
+ * Forwards parse events to a builder the same way the parser would, keeping
+ * track of the time spent building (as opposed to parsing).
+ *
+ * Once the builder aborts the compilation of a unit, no more events are
+ * forwarded: the parser keeps exiting rules as it unwinds, and the builder is no
+ * longer in a state to handle them.
+ */
+class TimedParseListener implements ParseTreeListener {
+    private final ParseTreeListener builder;
+    private final CompilationStats stats;
+    private boolean aborted;
+
+    TimedParseListener(ParseTreeListener builder, CompilationStats stats) {
+        this.builder = builder;
+        this.stats = stats;
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        if (aborted)
+            return;
+        var start = System.nanoTime();
+        try {
+            builder.enterEveryRule(ctx);
+            ctx.enterRule(builder);
+        } catch (AbortCompilationException e) {
+            aborted = true;
+            throw e;
+        } finally {
+            charge(ctx, start);
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        if (aborted)
+            return;
+        var start = System.nanoTime();
+        try {
+            ctx.exitRule(builder);
+            builder.exitEveryRule(ctx);
+        } catch (AbortCompilationException e) {
+            aborted = true;
+            throw e;
+        } finally {
+            charge(ctx, start);
+        }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        builder.visitTerminal(node);
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        builder.visitErrorNode(node);
+    }
+
+    /**
+     * The time spent building so far.
+     */
+    long buildingNanos() {
+        return stats.getNanos(Phase.Building) + stats.getNanos(Phase.ImportDiscovery);
+    }
+
+    private void charge(ParserRuleContext ctx, long start) {
+        var phase = ctx instanceof ImportDeclarationContext ? Phase.ImportDiscovery : Phase.Building;
+        stats.addTime(phase, System.nanoTime() - start);
+    }
+}
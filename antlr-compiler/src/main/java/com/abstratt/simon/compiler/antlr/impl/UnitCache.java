@@ -0,0 +1,96 @@
+package com.abstratt.simon.compiler.antlr.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.abstratt.simon.compiler.Problem;
+
+/**
+ * Keeps what parsing imported units (built-in sources, libraries) produced
+ * across compilations, so a unit whose contents are the same as when it was
+ * cached is not lexed and parsed again, but materialized from a copy of the
+ * cached objects instead (see {@link SimonCompilerAntlrImpl}).
+ *
+ * Each unit is cached under its name along with a fingerprint of its contents,
+ * and has: the root objects as they were right after parsing (before any
+ * reference was resolved), which are never handed out themselves, the units it
+ * imports, the problems found while parsing it and its pending resolution
+ * requests. Only units without fatal errors are cached. Entry points are never
+ * cached, as they are expected to change between compilations.
+ *
+ * Cached objects are instances of the types in the metamodel they were built
+ * against, so the cache only holds units for one metamodel at a time (see
+ * {@link com.abstratt.simon.compiler.source.MetamodelSource#identity()}):
+ * compiling against another metamodel drops all cached units. Compilers sharing
+ * a cache should then share their metamodel as well (see
+ * {@link com.abstratt.simon.compiler.source.MetamodelSourceCache}).
+ *
+ * This class is thread-safe.
+ */
+public class UnitCache<T> {
+    private Object metamodel;
+    private final Map<String, Unit<T>> units = new HashMap<>();
+    private long hits;
+
+    static class Unit<T> {
+        private final byte[] fingerprint;
+        final List<T> roots;
+        final List<String> imports;
+        final List<Problem> problems;
+        final List<SimonBuilder.ResolutionRequests<T>> requests;
+
+        Unit(byte[] fingerprint, List<T> roots, List<String> imports, List<Problem> problems,
+                List<SimonBuilder.ResolutionRequests<T>> requests) {
+            this.fingerprint = fingerprint;
+            this.roots = roots;
+            this.imports = imports;
+            this.problems = problems;
+            this.requests = requests;
+        }
+    }
+
+    /**
+     * Returns the unit cached under the given name, if it was built against the
+     * given metamodel from contents with the given fingerprint.
+     */
+    synchronized Unit<T> get(Object metamodel, String name, byte[] fingerprint) {
+        if (!Objects.equals(this.metamodel, metamodel))
+            return null;
+        var unit = units.get(name);
+        if (unit == null || !Arrays.equals(unit.fingerprint, fingerprint))
+            return null;
+        hits++;
+        return unit;
+    }
+
+    synchronized void put(Object metamodel, String name, Unit<T> unit) {
+        if (!Objects.equals(this.metamodel, metamodel)) {
+            units.clear();
+            this.metamodel = metamodel;
+        }
+        units.put(name, unit);
+    }
+
+    /**
+     * The number of units currently cached.
+     */
+    public synchronized int size() {
+        return units.size();
+    }
+
+    /**
+     * The number of times a unit was materialized from this cache instead of
+     * being parsed.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized void clear() {
+        units.clear();
+        metamodel = null;
+    }
+}
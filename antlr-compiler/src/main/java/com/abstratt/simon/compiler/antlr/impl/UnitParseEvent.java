@@ -0,0 +1,45 @@
+package com.abstratt.simon.compiler.antlr.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import com.abstratt.simon.compiler.CompilationStats;
+import com.abstratt.simon.compiler.CompilationStats.Counter;
+
+/**
+ * Records parsing a unit, which includes building its objects but not
+ * resolving its references. Disabled by default.
+ */
+@Name("com.abstratt.simon.UnitParse")
+@Label("Unit Parse")
+@Category({ "Simon", "Compiler" })
+@Description("Parsing a unit and building its objects")
+@Enabled(false)
+class UnitParseEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Characters")
+    long characters;
+
+    @Label("Objects Instantiated")
+    long objectsInstantiated;
+
+    @Label("Resolution Requests")
+    long resolutionRequests;
+
+    void end(String source, CompilationStats stats) {
+        end();
+        if (!shouldCommit())
+            return;
+        this.source = source;
+        this.characters = stats.getCount(Counter.CharactersRead);
+        this.objectsInstantiated = stats.getCount(Counter.ObjectsInstantiated);
+        this.resolutionRequests = stats.getCount(Counter.ResolutionRequests);
+        commit();
+    }
+}
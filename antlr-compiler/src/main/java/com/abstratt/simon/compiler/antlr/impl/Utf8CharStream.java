@@ -0,0 +1,202 @@
+package com.abstratt.simon.compiler.antlr.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * A character stream over UTF-8 encoded bytes (typically, a file mapped into
+ * memory) that decodes characters as they are requested, instead of decoding
+ * the whole contents into a buffer upfront. As with the streams built by
+ * {@link CharStreams}, indexes are code points. Malformed sequences are read as
+ * one replacement character per byte.
+ *
+ * The byte offset of every 1024th code point is recorded as it is first
+ * reached, so seeking back (as the lexer does when it has looked ahead) only
+ * decodes from the closest recorded offset.
+ */
+class Utf8CharStream implements CharStream {
+    private static final int CHECKPOINT_SHIFT = 10;
+    private static final int CHECKPOINT_MASK = (1 << CHECKPOINT_SHIFT) - 1;
+    private static final int REPLACEMENT = 0xFFFD;
+
+    private final ByteBuffer bytes;
+    private final int limit;
+    private final String sourceName;
+    private int[] checkpoints = new int[16];
+    private int checkpointCount = 1;
+    private int index;
+    private int offset;
+    private int lookIndex;
+    private int lookOffset;
+    private int size = -1;
+
+    Utf8CharStream(ByteBuffer bytes, String sourceName) {
+        this.bytes = bytes;
+        this.limit = bytes.limit();
+        this.sourceName = sourceName;
+    }
+
+    @Override
+    public void consume() {
+        if (offset >= limit)
+            throw new IllegalStateException("cannot consume EOF");
+        offset += sequenceLength(offset);
+        index++;
+        checkpoint(index, offset);
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0)
+            return 0;
+        if (i == 1)
+            return offset < limit ? codePointAt(offset) : IntStream.EOF;
+        var target = i > 0 ? index + i - 1 : index + i;
+        if (target < 0)
+            return IntStream.EOF;
+        var targetOffset = offsetOf(target);
+        return targetOffset < 0 || targetOffset >= limit ? IntStream.EOF : codePointAt(targetOffset);
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        var targetOffset = offsetOf(index);
+        if (targetOffset < 0) {
+            this.index = size;
+            this.offset = limit;
+        } else {
+            this.index = index;
+            this.offset = targetOffset;
+        }
+    }
+
+    @Override
+    public int size() {
+        if (size < 0)
+            offsetOf(Integer.MAX_VALUE);
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName == null || sourceName.isEmpty() ? IntStream.UNKNOWN_SOURCE_NAME : sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        var start = offsetOf(Math.max(interval.a, 0));
+        if (start < 0 || interval.b < interval.a)
+            return "";
+        var end = offsetOf(interval.b + 1);
+        if (end < 0)
+            end = limit;
+        var chunk = new byte[end - start];
+        bytes.get(start, chunk);
+        return new String(chunk, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size() - 1));
+    }
+
+    /**
+     * The byte offset the code point with the given index starts at (the limit,
+     * for the index right after the last one).
+     *
+     * @return the offset, or -1 if the index is past the end
+     */
+    private int offsetOf(int target) {
+        int current;
+        int currentOffset;
+        var checkpoint = Math.min(target >> CHECKPOINT_SHIFT, checkpointCount - 1);
+        current = checkpoint << CHECKPOINT_SHIFT;
+        currentOffset = checkpoints[checkpoint];
+        if (index <= target && index > current) {
+            current = index;
+            currentOffset = offset;
+        }
+        if (lookIndex <= target && lookIndex > current) {
+            current = lookIndex;
+            currentOffset = lookOffset;
+        }
+        while (current < target) {
+            if (currentOffset >= limit) {
+                size = current;
+                return -1;
+            }
+            currentOffset += sequenceLength(currentOffset);
+            current++;
+            checkpoint(current, currentOffset);
+        }
+        lookIndex = current;
+        lookOffset = currentOffset;
+        return currentOffset;
+    }
+
+    private void checkpoint(int codePoint, int codePointOffset) {
+        if ((codePoint & CHECKPOINT_MASK) != 0 || (codePoint >> CHECKPOINT_SHIFT) != checkpointCount)
+            return;
+        if (checkpointCount == checkpoints.length)
+            checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+        checkpoints[checkpointCount++] = codePointOffset;
+    }
+
+    private int codePointAt(int at) {
+        var lead = bytes.get(at) & 0xFF;
+        if (lead < 0x80)
+            return lead;
+        var length = sequenceLength(at);
+        if (length == 1)
+            return REPLACEMENT;
+        var codePoint = lead & (0xFF >> (length + 1));
+        for (int i = 1; i < length; i++)
+            codePoint = (codePoint << 6) | (bytes.get(at + i) & 0x3F);
+        return codePoint;
+    }
+
+    /**
+     * The number of bytes in the sequence starting at the given offset, or 1 if
+     * the sequence is malformed.
+     */
+    private int sequenceLength(int at) {
+        var lead = bytes.get(at) & 0xFF;
+        int length;
+        if (lead < 0x80)
+            return 1;
+        else if ((lead & 0xE0) == 0xC0)
+            length = 2;
+        else if ((lead & 0xF0) == 0xE0)
+            length = 3;
+        else if ((lead & 0xF8) == 0xF0)
+            length = 4;
+        else
+            return 1;
+        if (at + length > limit)
+            return 1;
+        for (int i = 1; i < length; i++)
+            if ((bytes.get(at + i) & 0xC0) != 0x80)
+                return 1;
+        return length;
+    }
+}
@@ -0,0 +1,32 @@
+plugins {
+    id("simon.java-conventions")
+}
+
+dependencies {
+    implementation(project(":example-languages"))
+    implementation(project(":antlr-compiler"))
+    implementation(project(":compiler-backend-ecore"))
+    implementation(project(":compiler-source-ecore"))
+    implementation(project(":compiler-source-annotated-java"))
+    implementation(project(":compiler-source-simon"))
+    implementation("org.openjdk.jmh:jmh-core")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess")
+    runtimeOnly("org.slf4j:slf4j-simple")
+}
+
+// Mirrors the Maven shade configuration: a self-contained jar running the JMH launcher
+// (java -jar build/libs/benchmarks.jar).
+val benchmarksJar = tasks.register<Jar>("benchmarksJar") {
+    archiveFileName.set("benchmarks.jar")
+    duplicatesStrategy = DuplicatesStrategy.EXCLUDE
+    manifest {
+        attributes("Main-Class" to "org.openjdk.jmh.Main")
+    }
+    from(sourceSets.main.get().output)
+    from(configurations.runtimeClasspath.map { classpath -> classpath.map { if (it.isDirectory) it else zipTree(it) } })
+    exclude("META-INF/*.SF", "META-INF/*.DSA", "META-INF/*.RSA")
+}
+
+tasks.named("assemble") {
+    dependsOn(benchmarksJar)
+}
@@ -0,0 +1,59 @@
+package com.abstratt.simon.benchmarks;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.ecore.EObject;
+
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.SimonCompiler;
+import com.abstratt.simon.compiler.antlr.SimonCompilerAntlrFactory;
+import com.abstratt.simon.compiler.backend.Backend;
+import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
+import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.compiler.source.MetamodelSourceCache;
+import com.abstratt.simon.compiler.source.annotated.AnnotatedJava2EcoreMapper;
+import com.abstratt.simon.compiler.source.ecore.ResourceMetamodelSource;
+import com.abstratt.simon.examples.UI2;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreObjectType;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreSlotted;
+
+/**
+ * Shared setup for benchmarks.
+ */
+class Benchmarks {
+    private static final MetamodelSourceCache METAMODELS = new MetamodelSourceCache();
+
+    /**
+     * The UI languages (UI2 extends UI, so both end up in the same resource),
+     * built once so compilation benchmarks do not measure building the metamodel.
+     */
+    static final MetamodelSource.Factory<?> UI_LANGUAGES = METAMODELS
+            .cached(new ResourceMetamodelSource.Factory(new AnnotatedJava2EcoreMapper().map(UI2.class).eResource()));
+
+    private static final SimonCompilerAntlrFactory COMPILERS = new SimonCompilerAntlrFactory();
+    private static final EMFModelBackendFactory BACKENDS = new EMFModelBackendFactory();
+
+    static Backend<EcoreObjectType, EcoreSlotted<?>, EObject> newBackend() {
+        return BACKENDS.create();
+    }
+
+    static SimonCompiler<EObject> newCompiler() {
+        return newCompiler(newBackend());
+    }
+
+    static SimonCompiler<EObject> newCompiler(Backend<EcoreObjectType, EcoreSlotted<?>, EObject> backend) {
+        return COMPILERS.create(UI_LANGUAGES, backend);
+    }
+
+    /**
+     * Fails if the given results have problems, so benchmarks do not measure
+     * broken models.
+     */
+    static List<Result<EObject>> ensureSuccess(List<Result<EObject>> results) {
+        var problems = results.stream().flatMap(it -> it.getProblems().stream()).collect(Collectors.toList());
+        if (!problems.isEmpty())
+            throw new IllegalStateException(problems.toString());
+        return results;
+    }
+}
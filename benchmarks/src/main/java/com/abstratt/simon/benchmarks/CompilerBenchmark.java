@@ -0,0 +1,81 @@
+package com.abstratt.simon.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.tree.pattern.RuleTagToken;
+import org.eclipse.emf.ecore.EObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.source.SimpleSourceProvider;
+import com.abstratt.simon.parser.antlr.SimonLexer;
+import com.abstratt.simon.parser.antlr.SimonParser;
+
+/**
+ * Compiles synthetic models end to end, and parses them alone, so the cost of
+ * building and resolving is the difference between the two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompilerBenchmark {
+
+    @Param({ "8" })
+    public int units;
+
+    @Param({ "100", "1000" })
+    public int objectsPerUnit;
+
+    @Param({ "1", "4" })
+    public int depth;
+
+    @Param({ "10", "50" })
+    public int referenceDensity;
+
+    @Param({ "0", "3" })
+    public int importFanOut;
+
+    private SyntheticModel model;
+    private SimpleSourceProvider sources;
+    private List<String> contents;
+
+    @Setup
+    public void setUp() {
+        model = new SyntheticModel(units, objectsPerUnit, depth, referenceDensity, importFanOut);
+        var generated = model.generate();
+        sources = new SimpleSourceProvider(generated);
+        contents = List.copyOf(generated.values());
+        Benchmarks.ensureSuccess(compile());
+    }
+
+    @Benchmark
+    public List<Result<EObject>> compile() {
+        return Benchmarks.newCompiler().compile(model.unitNames(), sources);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String content : contents) {
+            var lexer = new SimonLexer(CharStreams.fromString(content));
+            var parser = new SimonParser(new UnbufferedTokenStream<RuleTagToken>(lexer));
+            blackhole.consume(parser.program());
+        }
+    }
+}
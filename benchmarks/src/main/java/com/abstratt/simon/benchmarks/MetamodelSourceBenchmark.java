@@ -0,0 +1,47 @@
+package com.abstratt.simon.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.abstratt.simon.compiler.source.ClasspathSourceProvider;
+import com.abstratt.simon.compiler.source.annotated.AnnotatedJavaMetamodelSource;
+import com.abstratt.simon.compiler.source.simon.SimonFileMetamodelSource;
+import com.abstratt.simon.examples.Simon;
+import com.abstratt.simon.examples.UI;
+
+/**
+ * Builds metamodel sources from scratch, as every compilation that does not
+ * share them has to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetamodelSourceBenchmark {
+
+    @Benchmark
+    public Object annotatedJava() {
+        try (var source = new AnnotatedJavaMetamodelSource.Factory(UI.class.getPackageName()).build()) {
+            return source.resolveType("Screen", null);
+        }
+    }
+
+    @Benchmark
+    public Object simonFileBootstrap() {
+        var sources = new ClasspathSourceProvider(UI.class.getClassLoader(), "com/abstratt/simon/examples", "simon");
+        var factory = SimonFileMetamodelSource.Factory.withBootstrapClass(Simon.class,
+                Arrays.asList("ui", "ui2", "ui3", "im-metamodel", "daui", "simon", "tagged"), sources);
+        try (var source = factory.build()) {
+            return ((SimonFileMetamodelSource) source).getPackages();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.abstratt.simon.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.abstratt.simon.compiler.backend.Backend;
+import com.abstratt.simon.compiler.source.SimpleSourceProvider;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreObjectType;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreSlotted;
+
+/**
+ * Resolves names against a compiled synthetic model, as in the resolution
+ * phase of a compilation: each operation resolves the qualified name of every
+ * screen from the root of another unit, and the simple name of every screen
+ * from the root of its own unit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolveBenchmark {
+
+    @Param({ "8", "64" })
+    public int units;
+
+    @Param({ "100", "1000" })
+    public int objectsPerUnit;
+
+    @Param({ "1", "4" })
+    public int depth;
+
+    private Backend<EcoreObjectType, EcoreSlotted<?>, EObject> backend;
+    private final List<EObject> scopes = new ArrayList<>();
+    private final List<String[]> paths = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        var model = new SyntheticModel(units, objectsPerUnit, depth, 0, 0);
+        backend = Benchmarks.newBackend();
+        var results = Benchmarks.ensureSuccess(Benchmarks.newCompiler(backend).compile(model.unitNames(),
+                new SimpleSourceProvider(model.generate())));
+        for (int unit = 0; unit < units; unit++) {
+            var root = results.get(unit).getRootObject();
+            var otherRoot = results.get((unit + 1) % units).getRootObject();
+            for (String[] path : model.screenPaths(unit)) {
+                scopes.add(otherRoot);
+                paths.add(path);
+                scopes.add(root);
+                paths.add(new String[] { path[1] });
+            }
+        }
+    }
+
+    @Benchmark
+    public int resolve() {
+        return backend.runOperation(() -> {
+            var nameResolution = backend.nameResolution();
+            int resolved = 0;
+            for (int i = 0; i < paths.size(); i++)
+                if (nameResolution.resolve(scopes.get(i), paths.get(i)) != null)
+                    resolved++;
+            if (resolved != paths.size())
+                throw new IllegalStateException("Resolved " + resolved + " out of " + paths.size());
+            return resolved;
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package com.abstratt.simon.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates UI models of a given shape, one application per unit.
+ *
+ * Each screen nests forms {@code depth} levels deep, with buttons and links in
+ * the innermost form. Links refer to screens in the same unit or in the units
+ * it imports (by qualified name), so {@code referenceDensity} controls how much
+ * resolution work there is, and {@code importFanOut} how far it reaches.
+ * Generation is deterministic, so the same shape always yields the same
+ * sources.
+ */
+public class SyntheticModel {
+    private static final int LEAVES_PER_SCREEN = 10;
+
+    private final int units;
+    private final int objectsPerUnit;
+    private final int depth;
+    private final int referenceDensity;
+    private final int importFanOut;
+
+    /**
+     * @param units            the number of units
+     * @param objectsPerUnit   roughly how many objects each unit declares
+     * @param depth            how many forms deep leaf components are nested
+     * @param referenceDensity the percentage of leaf components that are links
+     * @param importFanOut     how many of the previous units each unit imports
+     */
+    public SyntheticModel(int units, int objectsPerUnit, int depth, int referenceDensity, int importFanOut) {
+        this.units = units;
+        this.objectsPerUnit = objectsPerUnit;
+        this.depth = depth;
+        this.referenceDensity = referenceDensity;
+        this.importFanOut = importFanOut;
+    }
+
+    /**
+     * The names of all units, which can be used as entry points.
+     */
+    public List<String> unitNames() {
+        var names = new ArrayList<String>();
+        for (int unit = 0; unit < units; unit++)
+            names.add(unitName(unit));
+        return names;
+    }
+
+    public int screensPerUnit() {
+        return Math.max(1, objectsPerUnit / (1 + depth + LEAVES_PER_SCREEN));
+    }
+
+    /**
+     * The qualified names of all screens in the given unit.
+     */
+    public List<String[]> screenPaths(int unit) {
+        var paths = new ArrayList<String[]>();
+        for (int screen = 0; screen < screensPerUnit(); screen++)
+            paths.add(new String[] { applicationName(unit), screenName(unit, screen) });
+        return paths;
+    }
+
+    /**
+     * Generates the sources of all units, keyed by unit name.
+     */
+    public Map<String, String> generate() {
+        var sources = new LinkedHashMap<String, String>();
+        for (int unit = 0; unit < units; unit++)
+            sources.put(unitName(unit), generateUnit(unit));
+        return sources;
+    }
+
+    private String generateUnit(int unit) {
+        var random = new Random(unit);
+        var imported = new ArrayList<Integer>();
+        for (int i = 1; i <= importFanOut && unit - i >= 0; i++)
+            imported.add(unit - i);
+        var source = new StringBuilder();
+        source.append("@language UI\n@language UI2\n");
+        for (Integer importedUnit : imported)
+            source.append("@import '").append(unitName(importedUnit)).append("'\n");
+        source.append("application ").append(applicationName(unit)).append(" {\n  screens {\n");
+        for (int screen = 0; screen < screensPerUnit(); screen++) {
+            source.append("    screen ").append(screenName(unit, screen)).append(" {\n");
+            for (int level = 0; level < depth; level++)
+                source.append("      children { form f").append(screen).append('_').append(level).append(" {\n");
+            source.append("      children {\n");
+            for (int leaf = 0; leaf < LEAVES_PER_SCREEN; leaf++) {
+                if (random.nextInt(100) < referenceDensity) {
+                    var targetUnit = imported.isEmpty() || random.nextBoolean() ? unit
+                            : imported.get(random.nextInt(imported.size()));
+                    var targetScreen = random.nextInt(screensPerUnit());
+                    source.append("        link l").append(leaf).append(" (label: 'Go') { targetScreen: ")
+                            .append(applicationName(targetUnit)).append('.')
+                            .append(screenName(targetUnit, targetScreen)).append(" }\n");
+                } else {
+                    source.append("        button b").append(leaf).append(" (label: 'Ok')\n");
+                }
+            }
+            source.append("      }\n");
+            for (int level = 0; level < depth; level++)
+                source.append("      } }\n");
+            source.append("    }\n");
+        }
+        source.append("  }\n}\n");
+        return source.toString();
+    }
+
+    private static String unitName(int unit) {
+        return "unit" + unit;
+    }
+
+    private static String applicationName(int unit) {
+        return "app" + unit;
+    }
+
+    private static String screenName(int unit, int screen) {
+        return "screen" + unit + "_" + screen;
+    }
+}
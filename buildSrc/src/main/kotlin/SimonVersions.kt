@@ -17,6 +17,7 @@ object SimonVersions {
     const val ANTLR = "4.13.2"
     const val GUAVA = "33.6.0-jre"
     const val COMPILE_TESTING = "0.23.0"
+    const val JMH = "1.37"
 
     /** Coordinates pinned for all modules via dependency constraints (Maven <dependencyManagement>). */
     val MANAGED_COORDINATES = listOf(
@@ -38,5 +39,7 @@ object SimonVersions {
         "org.antlr:antlr4-runtime:$ANTLR",
         "com.google.guava:guava:$GUAVA",
         "com.google.testing.compile:compile-testing:$COMPILE_TESTING",
+        "org.openjdk.jmh:jmh-core:$JMH",
+        "org.openjdk.jmh:jmh-generator-annprocess:$JMH",
     )
 }
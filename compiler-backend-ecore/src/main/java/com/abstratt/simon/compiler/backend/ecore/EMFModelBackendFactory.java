@@ -9,9 +9,23 @@ import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreSlotted;
 
 public class EMFModelBackendFactory implements Backend.Factory {
 
+    private final SpillDirectory spillDirectory;
+
+    public EMFModelBackendFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates backends that store units into the given directory as they are
+     * done (see {@link EcoreModelBuilder#EcoreModelBuilder(SpillDirectory)}).
+     */
+    public EMFModelBackendFactory(SpillDirectory spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
     @Override
     public Backend<EcoreObjectType, EcoreSlotted<?>, EObject> create() {
-        return new EcoreModelBuilder();
+        return new EcoreModelBuilder(spillDirectory);
     }
 
 }
@@ -0,0 +1,137 @@
+package com.abstratt.simon.compiler.backend.ecore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+
+import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
+
+/**
+ * Name lookup tables for the objects in a resource, built in a single pass over
+ * its contents:
+ * <ul>
+ * <li>for each container, its children by name</li>
+ * <li>for the objects that can be reached from a root by matching names, the
+ * object by its name path (relative to the root)</li>
+ * </ul>
+ *
+ * Lookups produce the same answers as the equivalent scans: the first child with
+ * a given name, in containment order, and the first root (in resource order)
+ * from which a whole path can be matched.
+ *
+ * An index is a snapshot: it does not track later changes to containment or to
+ * names. It can however be extended with roots appended to the resource later
+ * (see {@link #update(Resource)}).
+ */
+public class EObjectSymbolIndex {
+    private final EAttribute nameAttribute;
+    private final Map<EObject, Map<Object, EObject>> childrenByName = new HashMap<>();
+    private final Map<List<Object>, EObject> byRelativePath = new HashMap<>();
+    private final Set<EObject> indexedRoots = new HashSet<>();
+    private int rootCount;
+
+    private EObjectSymbolIndex(EAttribute nameAttribute) {
+        this.nameAttribute = nameAttribute;
+    }
+
+    /**
+     * Indexes the contents of the given resource.
+     *
+     * @param resource      the resource to index
+     * @param nameAttribute the attribute holding names
+     */
+    public static EObjectSymbolIndex build(Resource resource, EAttribute nameAttribute) {
+        var index = new EObjectSymbolIndex(nameAttribute);
+        index.update(resource);
+        return index;
+    }
+
+    /**
+     * Indexes the roots appended to the given resource since this index was built
+     * or last updated. Roots already indexed must not have changed.
+     *
+     * @return whether the index could be updated; if not, it must be built again
+     */
+    public boolean update(Resource resource) {
+        var roots = resource.getContents();
+        if (roots.size() < rootCount)
+            return false;
+        for (EObject root : roots.subList(rootCount, roots.size()))
+            addRoot(root);
+        rootCount = roots.size();
+        return true;
+    }
+
+    /**
+     * Whether the given root has been indexed.
+     */
+    public boolean covers(EObject root) {
+        return indexedRoots.contains(root);
+    }
+
+    private void addRoot(EObject root) {
+        indexedRoots.add(root);
+        root.eAllContents().forEachRemaining(this::addChild);
+        addPaths(root, new ArrayList<>());
+    }
+
+    private void addChild(EObject element) {
+        var container = element.eContainer();
+        if (container == null)
+            return;
+        var name = getName(element);
+        if (name != null)
+            childrenByName.computeIfAbsent(container, it -> new HashMap<>()).putIfAbsent(name, element);
+    }
+
+    private void addPaths(EObject container, List<Object> containerPath) {
+        var children = childrenByName.get(container);
+        if (children == null)
+            return;
+        children.forEach((name, child) -> {
+            var childPath = new ArrayList<>(containerPath);
+            childPath.add(name);
+            // paths from earlier roots take precedence, but later roots may still
+            // contribute deeper paths the earlier ones lack
+            byRelativePath.putIfAbsent(childPath, child);
+            addPaths(child, childPath);
+        });
+    }
+
+    private Object getName(EObject element) {
+        // elements that cannot be named are never matched
+        if (element.eClass().getFeatureID(nameAttribute) < 0)
+            return null;
+        return EcoreHelper.getUnwrappedValue(element, nameAttribute);
+    }
+
+    public EAttribute getNameAttribute() {
+        return nameAttribute;
+    }
+
+    /**
+     * Returns the first child of the given container with the given name.
+     */
+    public EObject findChild(EObject container, Object name) {
+        var children = childrenByName.get(container);
+        return children == null ? null : children.get(name);
+    }
+
+    /**
+     * Returns the object reached by matching the given path (from the offset on)
+     * against the descendants of each root, in resource order.
+     */
+    public EObject findFromRoots(int offset, Object... path) {
+        if (offset >= path.length)
+            return null;
+        return byRelativePath.get(Arrays.asList(path).subList(offset, path.length));
+    }
+}
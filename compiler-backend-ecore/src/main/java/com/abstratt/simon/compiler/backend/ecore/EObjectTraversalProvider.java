@@ -61,6 +61,28 @@ public interface EObjectTraversalProvider extends Traversal.Provider<EObject, EA
         return EcoreHelper.hierarchy(context);
     }
 
+    @Override
+    default EObject parent(EObject context) {
+        return context.eContainer();
+    }
+
+    @Override
+    default EObject findChild(EObject context, EAttribute attribute, Object value) {
+        return EcoreHelper.findChildByAttributeValue(context, attribute, value);
+    }
+
+    @Override
+    default EObject findFromRoots(EObject context, EAttribute feature, int offset, Object... path) {
+        for (EObject root : context.eResource().getContents()) {
+            var current = root;
+            for (int i = offset; current != null && i < path.length; i++)
+                current = findChild(current, feature, path[i]);
+            if (current != null)
+                return current;
+        }
+        return null;
+    }
+
     @Override
     default Traversal<EObject> childWithAttributeValued(EAttribute attribute, Object value) {
         return context -> Traversal.debug("childWithAttributeValued (" + attribute + ") == " + value,
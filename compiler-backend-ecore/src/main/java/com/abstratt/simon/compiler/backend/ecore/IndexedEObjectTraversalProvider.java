@@ -0,0 +1,47 @@
+package com.abstratt.simon.compiler.backend.ecore;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+
+import com.abstratt.simon.genutils.Traversal;
+
+/**
+ * A traversal provider that answers name-based lookups from a
+ * {@link EObjectSymbolIndex} instead of scanning the model.
+ */
+public class IndexedEObjectTraversalProvider implements EObjectTraversalProvider {
+    private final EObjectSymbolIndex index;
+
+    public IndexedEObjectTraversalProvider(EObjectSymbolIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public Traversal<EObject> childWithAttributeValued(EAttribute attribute, Object value) {
+        if (attribute != index.getNameAttribute())
+            return EObjectTraversalProvider.super.childWithAttributeValued(attribute, value);
+        return context -> Traversal.debug("childWithAttributeValued (" + attribute + ") == " + value,
+                index.findChild(context, value));
+    }
+
+    @Override
+    public EObject findChild(EObject context, EAttribute attribute, Object value) {
+        if (attribute != index.getNameAttribute())
+            return EObjectTraversalProvider.super.findChild(context, attribute, value);
+        return index.findChild(context, value);
+    }
+
+    @Override
+    public EObject findFromRoots(EObject context, EAttribute feature, int offset, Object... path) {
+        if (feature != index.getNameAttribute())
+            return EObjectTraversalProvider.super.findFromRoots(context, feature, offset, path);
+        return index.findFromRoots(offset, path);
+    }
+
+    @Override
+    public Traversal<EObject> searchRoots(EAttribute feature, int offset, Object... path) {
+        if (feature != index.getNameAttribute())
+            return EObjectTraversalProvider.super.searchRoots(feature, offset, path);
+        return context -> Traversal.debug("searchRoots", index.findFromRoots(offset, path));
+    }
+}
@@ -0,0 +1,241 @@
+package com.abstratt.simon.compiler.backend.ecore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+
+/**
+ * A resource that stores Simon models in EMF's binary format.
+ *
+ * Simon keeps primitive values as objects of their own (see
+ * {@link com.abstratt.simon.metamodel.ecore.impl.EcoreHelper#wrappedPrimitiveValue}),
+ * held by attributes typed by classes, which the stock binary format cannot
+ * store. Here, those values are stored as if they were contained by the
+ * attribute's owner, and read back the same way.
+ *
+ * Files are written to a {@link FileChannel} through a direct buffer the bytes
+ * written are copied into, so output is buffered, not zero-copy. Files are read
+ * by mapping them into memory (resources with file URIs are loaded that way
+ * too), which is much cheaper than going through streams. Both are much cheaper
+ * than parsing XMI.
+ */
+public class SimonBinaryResource extends BinaryResourceImpl {
+
+    private static final int CHANNEL_BUFFER_CAPACITY = 64 * 1024;
+
+    public SimonBinaryResource() {
+    }
+
+    public SimonBinaryResource(URI uri) {
+        super(uri);
+    }
+
+    /**
+     * Writes the contents of the given resource (for instance, the one the objects
+     * built by a compilation are in) into the given file, in the format of this
+     * class. Objects stay where they are.
+     *
+     * @param resource the resource to write
+     * @param file     the file to write into, replaced if it exists
+     * @param options  save options, or null
+     */
+    public static void save(Resource resource, Path file, Map<?, ?> options) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var output = new ChannelOutputStream(channel);
+            var writer = resource instanceof SimonBinaryResource ? (SimonBinaryResource) resource
+                    : new SimonBinaryResource(resource.getURI());
+            var objects = writer.createEObjectOutputStream(output, options);
+            objects.saveResource(resource);
+            objects.flush();
+            output.flush();
+        }
+    }
+
+    /**
+     * Writes the contents of this resource into the given file.
+     */
+    public void save(Path file) throws IOException {
+        save(this, file, null);
+        setModified(false);
+    }
+
+    /**
+     * Reads the contents of this resource from the given file, which is mapped
+     * into memory while being read.
+     */
+    public void load(Path file, Map<?, ?> options) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var size = channel.size();
+            var input = size > Integer.MAX_VALUE ? Channels.newInputStream(channel)
+                    : new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            load(input, options);
+        }
+    }
+
+    @Override
+    public void load(Map<?, ?> options) throws IOException {
+        if (isLoaded || uri == null || !uri.isFile()) {
+            super.load(options);
+            return;
+        }
+        load(Path.of(uri.toFileString()), options);
+    }
+
+    /**
+     * Whether the given feature is an attribute holding wrapped primitive values.
+     */
+    static boolean holdsWrappedValues(EStructuralFeature feature) {
+        return feature instanceof EAttribute && feature.getEType() instanceof EClass;
+    }
+
+    /**
+     * Returns the URI to refer to an object in another resource by. By default,
+     * that is the URI of its resource, with the object's fragment.
+     *
+     * @param resourceURI the URI of the resource the object is in
+     * @param fragment    the fragment for the object in that resource
+     */
+    protected URI getReferenceURI(URI resourceURI, String fragment) {
+        return resourceURI.appendFragment(fragment);
+    }
+
+    @Override
+    protected EObjectOutputStream createEObjectOutputStream(OutputStream outputStream, Map<?, ?> options)
+            throws IOException {
+        return new EObjectOutputStream(outputStream, options) {
+            @Override
+            protected EStructuralFeatureData createEStructuralFeatureData(EStructuralFeature.Internal feature) {
+                if (!holdsWrappedValues(feature))
+                    return super.createEStructuralFeatureData(feature);
+                var data = new EStructuralFeatureData() {
+                };
+                // the name is never written, readers recognize these features
+                // by their ids
+                data.name = null;
+                data.isTransient = feature.isTransient();
+                data.kind = feature.isMany() ? FeatureKind.EOBJECT_CONTAINMENT_LIST
+                        : FeatureKind.EOBJECT_CONTAINMENT;
+                return data;
+            }
+
+            @Override
+            public void writeURI(URI uri, String fragment) throws IOException {
+                var target = getReferenceURI(uri, fragment);
+                super.writeURI(target.trimFragment(), target.fragment());
+            }
+        };
+    }
+
+    @Override
+    protected EObjectInputStream createEObjectInputStream(InputStream inputStream, Map<?, ?> options)
+            throws IOException {
+        return new EObjectInputStream(inputStream, options) {
+            @Override
+            protected EStructuralFeatureData getEStructuralFeatureData(EClassData eClassData, int featureID)
+                    throws IOException {
+                if (eClassData.eStructuralFeatureData[featureID] == null) {
+                    var feature = eClassData.eClass.getEStructuralFeature(featureID);
+                    if (holdsWrappedValues(feature)) {
+                        var data = new EStructuralFeatureData() {
+                        };
+                        data.featureID = featureID;
+                        data.eStructuralFeature = feature;
+                        data.kind = feature.isMany() ? FeatureKind.EOBJECT_CONTAINMENT_LIST
+                                : FeatureKind.EOBJECT_CONTAINMENT;
+                        eClassData.eStructuralFeatureData[featureID] = data;
+                    }
+                }
+                return super.getEStructuralFeatureData(eClassData, featureID);
+            }
+        };
+    }
+
+    /**
+     * Collects bytes written in a direct buffer, and writes the buffer to the
+     * channel whenever it fills up or is flushed. Each byte is copied once, into
+     * the buffer; being direct, the buffer is written without the extra copy the
+     * channel makes of heap buffers.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER_CAPACITY);
+
+        ChannelOutputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining())
+                drain();
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining())
+                    drain();
+                var chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            var chunk = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, chunk);
+            return chunk;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
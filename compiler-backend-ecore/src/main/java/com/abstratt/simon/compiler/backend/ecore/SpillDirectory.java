@@ -0,0 +1,93 @@
+package com.abstratt.simon.compiler.backend.ecore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+
+/**
+ * A directory compilation units are stored into as they are done, one file per
+ * unit, in the format of {@link SimonBinaryResource}.
+ *
+ * It also keeps track of the packages of the objects stored, so they can be
+ * loaded back (see {@link #newResourceSet()}).
+ *
+ * This class is thread-safe.
+ */
+public class SpillDirectory {
+
+    public static final String EXTENSION = "simonbin";
+
+    private final Path path;
+    private final AtomicInteger unitCount = new AtomicInteger();
+    private final Set<EClass> knownClasses = ConcurrentHashMap.newKeySet();
+    private final Map<String, EPackage> packages = new ConcurrentHashMap<>();
+
+    public SpillDirectory(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the URI to store the given unit at (creating the directory if
+     * needed). Files are numbered in the order they are asked for, so units never
+     * share a file, whatever their names.
+     */
+    public URI newUnitURI(String unit) {
+        try {
+            Files.createDirectories(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var fileName = String.format("%05d-%s.%s", unitCount.getAndIncrement(),
+                unit.replaceAll("[^A-Za-z0-9._-]", "_"), EXTENSION);
+        return URI.createFileURI(path.resolve(fileName).toAbsolutePath().toString());
+    }
+
+    /**
+     * Notes the package of the given object's class, and those of the primitive
+     * values it can hold, as needed to load it back.
+     */
+    public void recordPackages(EObject stored) {
+        var eClass = stored.eClass();
+        if (!knownClasses.add(eClass))
+            return;
+        recordPackage(eClass.getEPackage());
+        for (EStructuralFeature feature : eClass.getEAllStructuralFeatures())
+            if (SimonBinaryResource.holdsWrappedValues(feature))
+                recordPackage(feature.getEType().getEPackage());
+    }
+
+    private void recordPackage(EPackage ePackage) {
+        if (ePackage != null && ePackage.getNsURI() != null)
+            packages.putIfAbsent(ePackage.getNsURI(), ePackage);
+    }
+
+    /**
+     * Returns a resource set that can load the units stored in this directory,
+     * resolving references across units on demand.
+     */
+    public ResourceSet newResourceSet() {
+        var resourceSet = new ResourceSetImpl();
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(EXTENSION,
+                (Resource.Factory) SimonBinaryResource::new);
+        resourceSet.getPackageRegistry().putAll(packages);
+        return resourceSet;
+    }
+}
@@ -1,16 +1,31 @@
 package com.abstratt.simon.compiler.backend.ecore.impl;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
 
 import com.abstratt.simon.compiler.backend.*;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
+import com.abstratt.simon.compiler.backend.ecore.EObjectSymbolIndex;
 import com.abstratt.simon.compiler.backend.ecore.EObjectTraversalProvider;
+import com.abstratt.simon.compiler.backend.ecore.IndexedEObjectTraversalProvider;
+import com.abstratt.simon.compiler.backend.ecore.SpillDirectory;
+import com.abstratt.simon.genutils.SearchPlan;
+import com.abstratt.simon.genutils.SearchTrace;
 import com.abstratt.simon.genutils.Traversal;
 import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreObjectType;
 import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreRelationship;
@@ -20,23 +35,260 @@ import com.abstratt.simon.metamodel.ecore.EcorePrimitiveValue;
 import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
 import com.abstratt.simon.metamodel.ecore.impl.MetaEcoreHelper;
 
+/**
+ * Builds EMF models.
+ *
+ * Each instance builds into a context of its own (see {@link OperationContext}),
+ * which compilations get a fresh one of through {@link #forCompilation()}. So a
+ * single instance can serve concurrent compilations, and a compilation does not
+ * depend on the thread it runs on.
+ *
+ * Instances used directly, rather than through {@link #forCompilation()}, start
+ * a fresh context on every top-level operation (see
+ * {@link #runOperation(Operation)}), so roots built by an operation never show
+ * up in the next one. Such instances run one top-level operation at a time.
+ */
 public class EcoreModelBuilder implements Backend<EcoreObjectType, EcoreSlotted<?>, EObject> {
 
-    private final ThreadLocal<Resource> currentResource = new ThreadLocal<>();
+    private final SpillDirectory spillDirectory;
+
+    /**
+     * Whether each top-level operation gets a fresh context, as opposed to the
+     * context being the one of a compilation.
+     */
+    private final boolean contextPerOperation;
+
+    private OperationContext context;
+
+    private int runningOperations;
+
+    public EcoreModelBuilder() {
+        this(null);
+    }
+
+    /**
+     * Creates a backend that stores the objects of each unit into the given
+     * directory once the unit is done (see {@link Completion#done(String, List)}),
+     * and hands out proxies for them from then on. Names of objects stored can
+     * still be looked up from other units, but only once the units still being
+     * compiled fail to match them.
+     *
+     * Memory use is bounded by the units being compiled at a time only when
+     * compiling in streaming mode, as otherwise all units are done at the end.
+     * Sessions never store units away.
+     *
+     * @param spillDirectory the directory to store units into, or null to keep
+     *                       all objects in memory
+     */
+    public EcoreModelBuilder(SpillDirectory spillDirectory) {
+        this(spillDirectory, new OperationContext(spillDirectory), true);
+    }
+
+    private EcoreModelBuilder(SpillDirectory spillDirectory, OperationContext context, boolean contextPerOperation) {
+        this.spillDirectory = spillDirectory;
+        this.context = context;
+        this.contextPerOperation = contextPerOperation;
+    }
+
+    /**
+     * The state of a compilation: the resource root objects are added to,
+     * and the symbol index for name resolution, built on demand. Roots added
+     * later are indexed as needed, but the index is discarded whenever the
+     * backend changes containment or names within roots already indexed.
+     */
+    private static class OperationContext {
+        private final UnitSpill spill;
+        private final Resource resource;
+        private EObjectSymbolIndex index;
+
+        OperationContext(SpillDirectory spillDirectory) {
+            this.spill = spillDirectory == null ? null : new UnitSpill(spillDirectory);
+            this.resource = spill == null ? new ResourceImpl() : spill.getWorkingResource();
+        }
+
+        EObject findSpilled(EAttribute nameAttribute, String... path) {
+            return spill == null ? null : spill.findSpilled(nameAttribute, path);
+        }
+
+        EObjectSymbolIndex getIndex(Resource toIndex, EAttribute nameAttribute) {
+            if (toIndex != resource)
+                return null;
+            if (index == null || index.getNameAttribute() != nameAttribute || !index.update(resource))
+                index = EObjectSymbolIndex.build(resource, nameAttribute);
+            return index;
+        }
+
+        void changing(EObject changed) {
+            if (index != null && index.covers(EcoreUtil.getRootContainer(changed)))
+                index = null;
+        }
+
+        void invalidateIndex() {
+            index = null;
+        }
+    }
+
+    @Override
+    public EcoreModelBuilder forCompilation() {
+        return new EcoreModelBuilder(spillDirectory, new OperationContext(spillDirectory), false);
+    }
 
     @Override
     public <R> R runOperation(Operation<R> operation) {
-        currentResource.set(new ResourceImpl());
+        if (!contextPerOperation)
+            return operation.run();
+        if (runningOperations++ == 0)
+            context = new OperationContext(spillDirectory);
         try {
             return operation.run();
         } finally {
-            currentResource.remove();
+            runningOperations--;
+        }
+    }
+
+    @Override
+    public <R> List<R> runOperations(List<IsolatedOperation<EObject, R>> operations, Executor executor) {
+        // each unit of work builds into a resource of its own, so units never
+        // contend for the shared resource, nor affect the order of its contents
+        var units = new ArrayList<CompletableFuture<IsolatedResult<R>>>(operations.size());
+        for (IsolatedOperation<EObject, R> operation : operations)
+            units.add(CompletableFuture.supplyAsync(() -> runIsolated(operation), executor));
+        var results = new ArrayList<R>(operations.size());
+        for (CompletableFuture<IsolatedResult<R>> unit : units) {
+            var isolated = join(unit);
+            context.resource.getContents().addAll(new ArrayList<>(isolated.context.resource.getContents()));
+            results.add(isolated.result);
+        }
+        return results;
+    }
+
+    private static <R> IsolatedResult<R> runIsolated(IsolatedOperation<EObject, R> operation) {
+        var unitContext = new OperationContext(null);
+        return new IsolatedResult<>(operation.run(new EcoreModelBuilder(null, unitContext, false)), unitContext);
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private static class IsolatedResult<R> {
+        private final R result;
+        private final OperationContext context;
+
+        IsolatedResult(R result, OperationContext context) {
+            this.result = result;
+            this.context = context;
         }
     }
 
     @Override
     public NameResolution<EObject> nameResolution() {
-        return this::resolve;
+        return new NameResolution<>() {
+            @Override
+            public EObject resolve(EObject scope, String... path) {
+                return EcoreModelBuilder.this.resolve(scope, null, path);
+            }
+
+            @Override
+            public EObject resolve(EObject scope, SearchTrace trace, String... path) {
+                return EcoreModelBuilder.this.resolve(scope, trace, path);
+            }
+
+            @Override
+            public EObject sharedScope(EObject scope, String... path) {
+                return EcoreModelBuilder.sharedScope(EcoreModelBuilder.this::getTraversalProvider, scope, path);
+            }
+        };
+    }
+
+    /**
+     * Lookups are answered by indexes of this backend's resource, built on first
+     * use and never updated, as the model is not to change meanwhile.
+     */
+    @Override
+    public NameResolution<EObject> concurrentNameResolution() {
+        var indexes = new ConcurrentHashMap<EAttribute, EObjectSymbolIndex>();
+        return new NameResolution<>() {
+            @Override
+            public EObject resolve(EObject scope, String... path) {
+                return resolve(scope, null, path);
+            }
+
+            @Override
+            public EObject resolve(EObject scope, SearchTrace trace, String... path) {
+                EAttribute nameAttribute = findNameAttributeInHierarchy(scope);
+                var found = SearchPlan.forLength(path.length).execute(getTraversalProvider(scope, nameAttribute),
+                        trace, nameAttribute, scope, 0, (Object[]) path);
+                return found != null ? found : context.findSpilled(nameAttribute, path);
+            }
+
+            @Override
+            public EObject sharedScope(EObject scope, String... path) {
+                return EcoreModelBuilder.sharedScope(this::getTraversalProvider, scope, path);
+            }
+
+            private Traversal.Provider<EObject, EAttribute> getTraversalProvider(EObject scope,
+                    EAttribute nameAttribute) {
+                if (scope.eResource() != context.resource)
+                    return EObjectTraversalProvider.INSTANCE;
+                return new IndexedEObjectTraversalProvider(indexes.computeIfAbsent(nameAttribute,
+                        it -> EObjectSymbolIndex.build(context.resource, it)));
+            }
+        };
+    }
+
+    /**
+     * A search starts by matching the first name against the scope itself and its
+     * children. If neither matches, the search goes on from the container exactly
+     * as if it had started there, provided names are held by the same attribute.
+     */
+    private static EObject sharedScope(
+            BiFunction<EObject, EAttribute, Traversal.Provider<EObject, EAttribute>> providers, EObject scope,
+            String... path) {
+        var container = scope.eContainer();
+        if (container == null || path.length == 0)
+            return null;
+        EAttribute nameAttribute = findNameAttributeInHierarchy(scope);
+        if (nameAttribute != getNameAttributeInHierarchy(container))
+            return null;
+        var provider = providers.apply(scope, nameAttribute);
+        if (provider.hasAttributeValued(scope, nameAttribute, path[0])
+                || provider.childWithAttributeValued(nameAttribute, path[0]).hop(scope) != null)
+            return null;
+        return container;
+    }
+
+    /**
+     * Units are only stored away if this backend was given a directory to store
+     * them into.
+     */
+    @Override
+    public Completion<EObject> completion() {
+        return new Completion<>() {
+            @Override
+            public void built(String unit, List<EObject> roots) {
+                if (context.spill != null)
+                    context.spill.built(unit, roots);
+            }
+
+            @Override
+            public List<EObject> done(String unit, List<EObject> roots) {
+                if (context.spill == null)
+                    return roots;
+                var standIns = context.spill.done(unit, roots);
+                // roots are gone
+                context.invalidateIndex();
+                return standIns;
+            }
+        };
     }
 
     @Override
@@ -51,7 +303,17 @@ public class EcoreModelBuilder implements Backend<EcoreObjectType, EcoreSlotted<
 
     @Override
     public Linking<EObject, EcoreRelationship> linking() {
-        return this::link;
+        return new Linking<>() {
+            @Override
+            public void link(EcoreRelationship reference, EObject referrer, EObject referred) {
+                EcoreModelBuilder.this.link(reference, referrer, referred);
+            }
+
+            @Override
+            public void relink(EcoreRelationship reference, EObject referrer, EObject previous, EObject referred) {
+                EcoreModelBuilder.this.relink(reference, referrer, previous, referred);
+            }
+        };
     }
 
     @Override
@@ -79,6 +341,30 @@ public class EcoreModelBuilder implements Backend<EcoreObjectType, EcoreSlotted<
         return this::addChild;
     }
 
+    @Override
+    public Adoption<EObject> adoption() {
+        return new Adoption<>() {
+            @Override
+            public void adopt(EObject root) {
+                addToResource(root);
+            }
+
+            @Override
+            public void discard(EObject root) {
+                unlinkOpposites(root);
+                root.eAllContents().forEachRemaining(EcoreModelBuilder.this::unlinkOpposites);
+            }
+
+            @Override
+            public Map<EObject, EObject> copy(List<EObject> roots) {
+                var copier = new EcoreUtil.Copier();
+                copier.copyAll(roots);
+                copier.copyReferences();
+                return copier;
+            }
+        };
+    }
+
     private <E extends EObject> E declarePrimitive(EcorePrimitiveValue primitiveType) {
         var newPrimitive = (E) primitiveType.newModelElement();
         setName(newPrimitive, primitiveType.name());
@@ -94,26 +380,46 @@ public class EcoreModelBuilder implements Backend<EcoreObjectType, EcoreSlotted<
     }
 
     private <E extends EObject> void addToResource(E newElement) {
-        var resource = currentResource.get();
-        var contents = resource.getContents();
+        var contents = context.resource.getContents();
+        if (newElement.eResource() == context.resource)
+            // moving a root invalidates the order of roots
+            context.invalidateIndex();
         contents.add(newElement);
         assert newElement.eResource() != null;
     }
 
-    private EObject resolve(EObject scope, String... path) {
+    private EObject resolve(EObject scope, SearchTrace trace, String... path) {
         EAttribute nameAttribute = findNameAttributeInHierarchy(scope);
-        Traversal<EObject> search = EObjectTraversalProvider.INSTANCE.search(nameAttribute, path);
-        var resolved = search.hop(scope);
-        return resolved;
+        var found = SearchPlan.forLength(path.length).execute(getTraversalProvider(scope, nameAttribute), trace,
+                nameAttribute, scope, 0, (Object[]) path);
+        return found != null ? found : context.findSpilled(nameAttribute, path);
+    }
+
+    /**
+     * Name lookups within objects this backend built are answered by its symbol
+     * index, other lookups scan the model.
+     */
+    private Traversal.Provider<EObject, EAttribute> getTraversalProvider(EObject scope, EAttribute nameAttribute) {
+        var index = context.getIndex(scope.eResource(), nameAttribute);
+        return index == null ? EObjectTraversalProvider.INSTANCE : new IndexedEObjectTraversalProvider(index);
+    }
+
+    private void changing(EObject changed) {
+        context.changing(changed);
     }
 
     private static EAttribute findNameAttributeInHierarchy(EObject scope) {
-        return EcoreHelper.hierarchy(scope).map(e -> MetaEcoreHelper.getNameAttribute(e.eClass()))
-                .filter(Objects::nonNull).findFirst()
+        return Optional.ofNullable(getNameAttributeInHierarchy(scope))
                 .orElseThrow(() -> new IllegalArgumentException("No name attribute found in composition structure"));
     }
 
+    private static EAttribute getNameAttributeInHierarchy(EObject scope) {
+        return EcoreHelper.hierarchy(scope).map(e -> MetaEcoreHelper.getNameAttribute(e.eClass()))
+                .filter(Objects::nonNull).findFirst().orElse(null);
+    }
+
     private void setName(EObject unnamed, String newName) {
+        changing(unnamed);
         EcoreHelper.setName(unnamed, newName);
     }
 
@@ -132,9 +438,54 @@ public class EcoreModelBuilder implements Backend<EcoreObjectType, EcoreSlotted<
             throw new MetamodelException(nameQuerying().getName(referred) + " cannot be referred to via "
                     + nameQuerying().getName(referrer) + "'s " + reference.name(), e);
         }
+        if (context.spill != null)
+            context.spill.linked(referrer, reference.wrapped(), referred);
+    }
+
+    private void relink(EcoreRelationship reference, EObject referrer, EObject previous, EObject referred) {
+        var eReference = reference.wrapped();
+        if (!eReference.isMany()) {
+            if (referred != null)
+                link(reference, referrer, referred);
+            else if (referrer.eGet(eReference) == previous)
+                referrer.eUnset(eReference);
+            return;
+        }
+        var existing = (List<EObject>) referrer.eGet(eReference);
+        var position = existing.indexOf(previous);
+        if (position < 0) {
+            if (referred != null)
+                link(reference, referrer, referred);
+            return;
+        }
+        if (referred == null) {
+            existing.remove(position);
+            return;
+        }
+        try {
+            existing.set(position, referred);
+        } catch (ClassCastException e) {
+            throw new MetamodelException(nameQuerying().getName(referred) + " cannot be referred to via "
+                    + nameQuerying().getName(referrer) + "'s " + reference.name(), e);
+        }
+        if (context.spill != null)
+            context.spill.linked(referrer, eReference, referred);
+    }
+
+    /**
+     * Removes the links the given object has to other objects through
+     * bidirectional references, so the other ends no longer refer to it.
+     */
+    private void unlinkOpposites(EObject discarded) {
+        for (EReference eReference : discarded.eClass().getEAllReferences())
+            if (!eReference.isContainment() && !eReference.isContainer() && eReference.getEOpposite() != null
+                    && eReference.isChangeable())
+                discarded.eUnset(eReference);
     }
 
     private void addChild(EcoreRelationship composition, EObject parent, EObject child) {
+        changing(parent);
+        changing(child);
         try {
             setOrAddReference(parent, child, composition);
         } catch (ClassCastException e) {
@@ -148,6 +499,7 @@ public class EcoreModelBuilder implements Backend<EcoreObjectType, EcoreSlotted<
     }
 
     private void setValue(EcoreSlot slot, EObject target, Object value) {
+        changing(target);
         var eAttribute = slot.wrapped();
         if (eAttribute.isMany()) {
             @SuppressWarnings("unchecked")
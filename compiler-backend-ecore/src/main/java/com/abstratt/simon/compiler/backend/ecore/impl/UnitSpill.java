@@ -0,0 +1,282 @@
+package com.abstratt.simon.compiler.backend.ecore.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.abstratt.simon.compiler.backend.Completion;
+import com.abstratt.simon.compiler.backend.ecore.SimonBinaryResource;
+import com.abstratt.simon.compiler.backend.ecore.SpillDirectory;
+import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
+import com.abstratt.simon.metamodel.ecore.impl.MetaEcoreHelper;
+
+/**
+ * Stores the objects of each unit of an operation into a file of its own as
+ * soon as the unit is done, so only units still being compiled are kept in
+ * memory.
+ *
+ * Objects left behind that refer to objects stored are made to refer to proxies
+ * instead (as they are linked, references across units are recorded, so they
+ * can be found without going through the objects left behind), and objects
+ * stored that refer to objects left behind refer to them
+ * by the files they are going to be stored in. Links made to objects stored
+ * afterwards are only recorded on the referring side, so the inverse ends of
+ * bidirectional references do not include them.
+ *
+ * Named objects stored can still be looked up, by their names relative to the
+ * roots of their units (see {@link #findSpilled(EAttribute, String...)}). All
+ * that is kept in memory for them is where they were stored (and their
+ * classes); proxies are only created as they are looked up.
+ * Objects of units without roots (for instance, units with fatal errors) are
+ * never stored, and cannot be referred to.
+ */
+class UnitSpill implements Completion<EObject> {
+
+    private static final URI WORKING_URI = URI.createURI("simon:working");
+
+    private final SpillDirectory directory;
+    private final Resource working = new WorkingResource();
+    private final List<Unit> units = new ArrayList<>();
+    private final Map<EObject, Unit> unitsByRoot = new IdentityHashMap<>();
+    /** Named objects stored, by name attribute and path (see {@link #pathKey(String, Object)}). */
+    private final Map<EAttribute, Map<String, Spilled>> spilledPaths = new ConcurrentHashMap<>();
+
+    private static class Unit {
+        private final int index;
+        private final URI uri;
+        private List<EObject> roots;
+        /** The links made to objects of this unit from objects of other units. */
+        private List<Link> incoming = new ArrayList<>();
+
+        Unit(int index, URI uri, List<EObject> roots) {
+            this.index = index;
+            this.uri = uri;
+            this.roots = roots;
+        }
+    }
+
+    /**
+     * Where a named object was stored: the unit it was stored with, and its
+     * fragment in the unit's file. Its class is kept as well, so proxies for it
+     * can be referred to wherever the object could be.
+     */
+    private record Spilled(EClass eClass, int unit, String fragment) {
+    }
+
+    /**
+     * An object referring to another through a reference.
+     */
+    private record Link(EObject referrer, EReference reference, EObject referred) {
+    }
+
+    UnitSpill(SpillDirectory directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The resource the objects of units still being compiled are kept in.
+     */
+    Resource getWorkingResource() {
+        return working;
+    }
+
+    @Override
+    public void built(String unitName, List<EObject> roots) {
+        if (roots.isEmpty())
+            return;
+        var unit = new Unit(units.size(), directory.newUnitURI(unitName), roots);
+        units.add(unit);
+        roots.forEach(it -> unitsByRoot.put(it, unit));
+    }
+
+    /**
+     * An object was linked to another, which is recorded if the objects belong to
+     * different units (and so might be stored at different times). Links through
+     * bidirectional references are recorded both ways.
+     */
+    void linked(EObject referrer, EReference reference, EObject referred) {
+        var referrerUnit = unitOf(referrer);
+        var referredUnit = unitOf(referred);
+        if (referrerUnit == referredUnit)
+            return;
+        if (referredUnit != null)
+            referredUnit.incoming.add(new Link(referrer, reference, referred));
+        if (referrerUnit != null && reference.getEOpposite() != null)
+            referrerUnit.incoming.add(new Link(referred, reference.getEOpposite(), referrer));
+    }
+
+    private Unit unitOf(EObject object) {
+        return unitsByRoot.get(EcoreUtil.getRootContainer(object));
+    }
+
+    @Override
+    public List<EObject> done(String unitName, List<EObject> roots) {
+        var unit = roots.isEmpty() ? null : unitsByRoot.get(roots.get(0));
+        if (unit == null)
+            return roots;
+        var spilled = new SimonBinaryResource(unit.uri) {
+            @Override
+            protected URI getReferenceURI(URI resourceURI, String fragment) {
+                return toUnitURI(resourceURI, fragment);
+            }
+        };
+        var proxies = new IdentityHashMap<EObject, EObject>();
+        spilled.getContents().addAll(new ArrayList<>(roots));
+        spilled.getAllContents().forEachRemaining(directory::recordPackages);
+        for (EObject root : roots)
+            indexNames(spilled, unit, root, null, "");
+        try {
+            spilled.save(Path.of(unit.uri.toFileString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Link link : unit.incoming)
+            // referrers stored already are no longer part of the model
+            if (link.referrer().eResource() == working)
+                replace(link, proxyFor(spilled, link.referred(), proxies));
+        unit.incoming = null;
+        var standIns = new ArrayList<EObject>(roots.size());
+        for (EObject root : roots)
+            standIns.add(proxyFor(spilled, root, proxies));
+        spilled.getContents().clear();
+        roots.forEach(unitsByRoot::remove);
+        unit.roots = null;
+        return standIns;
+    }
+
+    /**
+     * Looks up an object stored by its path, ignoring the first name, as when
+     * searching from roots.
+     *
+     * @return a proxy for the object, or null if none was stored with that path
+     */
+    EObject findSpilled(EAttribute nameAttribute, String... path) {
+        var paths = spilledPaths.get(nameAttribute);
+        if (paths == null || path.length < 2)
+            return null;
+        var key = path[1];
+        for (int i = 2; i < path.length; i++)
+            key = pathKey(key, path[i]);
+        var spilled = paths.get(key);
+        return spilled == null ? null
+                : newProxy(spilled.eClass(), units.get(spilled.unit()).uri.appendFragment(spilled.fragment()));
+    }
+
+    /**
+     * Indexes the named descendants of an object stored, by their names relative
+     * to the root, as long as names are held by the same attribute.
+     */
+    private void indexNames(Resource spilled, Unit unit, EObject parent, EAttribute nameAttribute,
+            String parentPath) {
+        for (EObject child : parent.eContents()) {
+            var childNameAttribute = MetaEcoreHelper.getNameAttribute(child.eClass());
+            if (childNameAttribute == null || (nameAttribute != null && childNameAttribute != nameAttribute))
+                continue;
+            var name = EcoreHelper.getUnwrappedValue(child, childNameAttribute);
+            if (name == null)
+                continue;
+            var path = parentPath.isEmpty() ? name.toString() : pathKey(parentPath, name);
+            spilledPaths.computeIfAbsent(childNameAttribute, it -> new ConcurrentHashMap<>()).putIfAbsent(path,
+                    new Spilled(child.eClass(), unit.index, spilled.getURIFragment(child)));
+            indexNames(spilled, unit, child, childNameAttribute, path);
+        }
+    }
+
+    /**
+     * Paths are keyed by their names, separated by a character names do not
+     * have.
+     */
+    private static String pathKey(String parentPath, Object name) {
+        return parentPath + '\0' + name;
+    }
+
+    private static EObject proxyFor(Resource spilled, EObject target, Map<EObject, EObject> proxies) {
+        return proxies.computeIfAbsent(target,
+                it -> newProxy(it.eClass(), spilled.getURI().appendFragment(spilled.getURIFragment(it))));
+    }
+
+    private static EObject newProxy(EClass eClass, URI uri) {
+        var proxy = (InternalEObject) EcoreUtil.create(eClass);
+        proxy.eSetProxyURI(uri);
+        return proxy;
+    }
+
+    /**
+     * Makes the referrer of a link refer to a proxy instead, unless the link is
+     * gone since (for instance, because the referrer was linked again).
+     */
+    private static void replace(Link link, EObject proxy) {
+        if (!link.reference().isChangeable())
+            return;
+        var value = link.referrer().eGet(link.reference(), false);
+        if (value instanceof List<?>) {
+            var values = (List<Object>) value;
+            var position = values.indexOf(link.referred());
+            if (position >= 0)
+                values.set(position, proxy);
+        } else if (value == link.referred()) {
+            link.referrer().eSet(link.reference(), proxy);
+        }
+    }
+
+    /**
+     * Maps references to objects in the working resource to the files their units
+     * are going to be stored in.
+     */
+    private URI toUnitURI(URI resourceURI, String fragment) {
+        var separator = fragment.indexOf(':');
+        if (!WORKING_URI.equals(resourceURI) || separator <= 0 || !Character.isDigit(fragment.charAt(0)))
+            return resourceURI.appendFragment(fragment);
+        var unit = units.get(Integer.parseInt(fragment.substring(0, separator)));
+        return unit.uri.appendFragment(fragment.substring(separator + 1));
+    }
+
+    /**
+     * Identifies objects of units by the index of the unit and their fragment
+     * within the unit, as it will be once the unit is stored.
+     */
+    private class WorkingResource extends ResourceImpl {
+        WorkingResource() {
+            super(WORKING_URI);
+        }
+
+        @Override
+        public String getURIFragment(EObject eObject) {
+            var root = EcoreUtil.getRootContainer(eObject);
+            var unit = unitsByRoot.get(root);
+            if (unit == null)
+                return super.getURIFragment(eObject);
+            return unit.index + ":" + getUnitFragment(unit.roots, root, eObject);
+        }
+
+        private String getUnitFragment(List<EObject> roots, EObject root, EObject eObject) {
+            var id = EcoreUtil.getID(eObject);
+            if (id != null)
+                return id;
+            var segments = new ArrayList<String>();
+            for (var current = (InternalEObject) eObject; current != root; current = current.eInternalContainer())
+                segments.add(current.eInternalContainer().eURIFragmentSegment(current.eContainingFeature(), current));
+            var fragment = new StringBuilder("/");
+            if (roots.size() > 1)
+                fragment.append(roots.indexOf(root));
+            for (int i = segments.size() - 1; i >= 0; i--)
+                fragment.append('/').append(segments.get(i));
+            return fragment.toString();
+        }
+    }
+}
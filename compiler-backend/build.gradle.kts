@@ -4,4 +4,5 @@ plugins {
 
 dependencies {
     api(project(":metamodel"))
+    api(project(":gen-utils"))
 }
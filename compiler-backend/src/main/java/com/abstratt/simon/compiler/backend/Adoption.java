@@ -0,0 +1,35 @@
+package com.abstratt.simon.compiler.backend;
+
+import java.util.List;
+import java.util.Map;
+
+public interface Adoption<M> {
+    /**
+     * A root object built by an earlier operation becomes part of the model built
+     * by the operation currently running, just as if it had been created by it.
+     *
+     * @param root the root object to adopt
+     */
+    void adopt(M root);
+
+    /**
+     * A root object built by an earlier operation will not be part of the model
+     * any longer, and must no longer show up in the objects that remain.
+     *
+     * @param root the root object to discard
+     */
+    void discard(M root);
+
+    /**
+     * Copies the given root objects, along with everything they contain. References
+     * between copied objects are redirected to the copies; references to other
+     * objects are kept. The copies do not belong to any model until adopted.
+     *
+     * @param roots the root objects to copy
+     * @return each copied object (not only the roots) mapped to its copy, or null
+     *         if this backend cannot copy objects
+     */
+    default Map<M, M> copy(List<M> roots) {
+        return null;
+    }
+}
@@ -1,5 +1,9 @@
 package com.abstratt.simon.compiler.backend;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import com.abstratt.simon.metamodel.Metamodel;
 
 /**
@@ -11,6 +15,12 @@ import com.abstratt.simon.metamodel.Metamodel;
  * references, and so on). Implementing this interface is how Simon targets a
  * new kind of model output.
  *
+ * Handlers build into the execution context of the backend they come from.
+ * Backends keeping state for the model being built (such as where root objects
+ * go) should hold it in the backends handed out by {@link #forCompilation()},
+ * rather than in the thread compiling, so compilations can run concurrently off
+ * a single backend and hop between threads as they go.
+ *
  * @param <O> the kind of object type this backend can instantiate
  * @param <S> the kind of slotted type (object or record) this backend handles
  * @param <M> the type of model object produced
@@ -34,6 +44,18 @@ public interface Backend<O extends Metamodel.ObjectType, S extends Metamodel.Slo
      */
     NameResolution<M> nameResolution();
 
+    /**
+     * Returns a name resolution that can be used from multiple threads at once,
+     * for as long as the model does not change, or null if this backend does not
+     * support concurrent lookups. Names are resolved the same way as within the
+     * operation this is called from.
+     *
+     * The default implementation returns null.
+     */
+    default NameResolution<M> concurrentNameResolution() {
+        return null;
+    }
+
     /**
      * Creates a model object for a declared element. The {@code root} flag marks
      * top-level elements.
@@ -58,12 +80,68 @@ public interface Backend<O extends Metamodel.ObjectType, S extends Metamodel.Slo
     /** Attaches an owned child to its parent via a composition. */
     <C extends Metamodel.Composition> Parenting<M, C> parenting();
 
+    /**
+     * Carries root objects built by an earlier operation over into the current
+     * one, so the results of a previous compilation can be reused. Returns null if
+     * this backend cannot carry objects over, in which case nothing is reused, and
+     * units are always parsed again.
+     *
+     * The default implementation returns null.
+     */
+    default Adoption<M> adoption() {
+        return null;
+    }
+
+    /**
+     * Keeps the backend posted on the compilation units whose objects it builds.
+     *
+     * The default implementation keeps all objects as they are.
+     */
+    default Completion<M> completion() {
+        return (unit, roots) -> roots;
+    }
+
+    /**
+     * Returns a backend that builds the model of a single compilation, in an
+     * execution context of its own. Backends returned can be used from any thread
+     * (though, unless stated otherwise, by one thread at a time), and are
+     * independent from each other, so multiple compilations can run at once.
+     *
+     * The default implementation returns this backend, which is only appropriate
+     * for backends that keep no state for the model being built.
+     */
+    default Backend<O, S, M> forCompilation() {
+        return this;
+    }
+
     /**
      * Runs a unit of work in the backend's execution context (for example, within
      * a transaction).
      */
     <R> R runOperation(Operation<R> operation);
 
+    /**
+     * Runs independent units of work as part of the operation currently running
+     * (see {@link #runOperation(Operation)}), possibly concurrently on the given
+     * executor.
+     *
+     * Each unit of work runs in an execution context of its own, and is given the
+     * backend to build into it with. Once all of them have completed, their
+     * contributions are brought into the context of this backend in the order
+     * given, so the outcome does not depend on how the units were scheduled.
+     *
+     * The default implementation runs the units one after the other on the calling
+     * thread, all building with this backend.
+     *
+     * @return the results of the units of work, in the order given
+     */
+    default <R> List<R> runOperations(List<IsolatedOperation<M, R>> operations, Executor executor) {
+        var results = new ArrayList<R>(operations.size());
+        for (IsolatedOperation<M, R> operation : operations)
+            results.add(operation.run(this));
+        return results;
+    }
+
     interface Factory {
         /** Creates a new backend instance. */
         <O extends Metamodel.ObjectType, S extends Metamodel.Slotted, M> Backend<O, S, M> create();
@@ -0,0 +1,33 @@
+package com.abstratt.simon.compiler.backend;
+
+import java.util.List;
+
+/**
+ * Lets a backend know how far along the compilation of each unit is.
+ *
+ * @param <M> the type of model objects
+ */
+public interface Completion<M> {
+    /**
+     * The root objects of a compilation unit have been built. References from
+     * (or to) them may not have been linked yet.
+     *
+     * The default implementation does nothing.
+     *
+     * @param unit  the name of the unit
+     * @param roots the unit's root objects, in the order they were built
+     */
+    default void built(String unit, List<M> roots) {
+    }
+
+    /**
+     * A compilation unit is done: its root objects are built and linked, and
+     * whoever was waiting for them has been handed them. The backend may then let
+     * go of the unit's objects (for instance, by storing them elsewhere).
+     *
+     * @param unit  the name of the unit
+     * @param roots the unit's root objects
+     * @return the objects that stand for the unit's root objects from now on
+     */
+    List<M> done(String unit, List<M> roots);
+}
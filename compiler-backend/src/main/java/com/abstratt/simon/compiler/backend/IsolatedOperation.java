@@ -0,0 +1,11 @@
+package com.abstratt.simon.compiler.backend;
+
+/**
+ * A unit of work that runs in an execution context of its own (see
+ * {@link Backend#runOperations(java.util.List, java.util.concurrent.Executor)}),
+ * building through the backend it is given rather than the one it was created
+ * for.
+ */
+public interface IsolatedOperation<M, R> {
+    R run(Backend<?, ?, M> backend);
+}
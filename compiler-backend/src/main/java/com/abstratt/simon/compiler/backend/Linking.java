@@ -11,4 +11,23 @@ public interface Linking<M, R extends Metamodel.Reference> {
      * @param referred
      */
     void link(R reference, M referrer, M referred) throws MetamodelException;
+
+    /**
+     * An object needs to reference another object instead of the one it was
+     * previously linked to. For multivalued references, the new object takes the
+     * place of the previous one.
+     *
+     * The default implementation just links the new object, which is only correct
+     * for single-valued references.
+     *
+     * @param reference
+     * @param referrer
+     * @param previous  the object previously referred to
+     * @param referred  the object to refer to now, or null to just remove the
+     *                  previous link
+     */
+    default void relink(R reference, M referrer, M previous, M referred) throws MetamodelException {
+        if (referred != null)
+            link(reference, referrer, referred);
+    }
 }
@@ -1,5 +1,7 @@
 package com.abstratt.simon.compiler.backend;
 
+import com.abstratt.simon.genutils.SearchTrace;
+
 public interface NameResolution<M> {
     /**
      * Starting from the given scope object, resolves the given name to an object.
@@ -9,4 +11,26 @@ public interface NameResolution<M> {
      * @return the resolved object
      */
     M resolve(M scope, String... path);
+
+    /**
+     * Same as {@link #resolve(Object, String...)}, but keeping track of how the
+     * search went in the given trace. Backends that cannot tell leave the trace
+     * untouched.
+     */
+    default M resolve(M scope, SearchTrace trace, String... path) {
+        return resolve(scope, path);
+    }
+
+    /**
+     * Returns an object such that resolving the given path from the given scope
+     * yields the same as from any other scope the same object is returned for
+     * (given the same path), for as long as the model does not change. Callers
+     * may then resolve the path once for all those scopes.
+     *
+     * The default implementation returns null, meaning lookups from the given
+     * scope cannot be shared.
+     */
+    default M sharedScope(M scope, String... path) {
+        return null;
+    }
 }
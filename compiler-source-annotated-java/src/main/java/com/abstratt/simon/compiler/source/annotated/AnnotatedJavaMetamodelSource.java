@@ -15,6 +15,7 @@ import org.eclipse.emf.ecore.EPackage;
 import com.abstratt.simon.compiler.source.MetamodelSource;
 import com.abstratt.simon.compiler.source.SimpleSourceProvider;
 import com.abstratt.simon.compiler.source.SourceProvider;
+import com.abstratt.simon.compiler.source.TypeIndex;
 import com.abstratt.simon.metamodel.dsl.Meta;
 import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;
 import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
@@ -26,6 +27,7 @@ public class AnnotatedJavaMetamodelSource implements MetamodelSource<EcoreType<E
 
     private final Map<String, EPackage> packages;
     private final ScanResult scanResult;
+    private final TypeIndex<EcoreType<EClassifier>> typeIndex;
 
     private AnnotatedJavaMetamodelSource(String javaPackage) {
         scanResult = new ClassGraph().enableAnnotationInfo().acceptPackages(javaPackage).scan();
@@ -33,6 +35,8 @@ public class AnnotatedJavaMetamodelSource implements MetamodelSource<EcoreType<E
         var mapper = new AnnotatedJava2EcoreMapper();
         this.packages = packageImplementations.loadClasses().stream()
                 .collect(Collectors.toMap(Class::getName, mapper::map));
+        this.typeIndex = TypeIndex.build(packages.values().stream().map(ePackage -> new TypeIndex.Language<>(
+                ePackage.getName(), enumerate(ePackage).collect(Collectors.toList()))));
     }
 
     @Override
@@ -52,11 +56,7 @@ public class AnnotatedJavaMetamodelSource implements MetamodelSource<EcoreType<E
 
     @Override
     public EcoreType<EClassifier> resolveType(String typeName, Set<String> languages) {
-        return enabledPackages(languages) //
-                .map(ePackage -> EcoreHelper.findClassifierByName(ePackage, typeName)) //
-                .filter(Objects::nonNull) //
-                .map(eClass -> (EcoreType<EClassifier>) EcoreType.fromClassifier(eClass)) //
-                .findAny().orElse(null);
+        return typeIndex.resolveType(typeName, languages);
     }
 
     private Stream<EPackage> enabledPackages(Set<String> languages) {
@@ -66,7 +66,11 @@ public class AnnotatedJavaMetamodelSource implements MetamodelSource<EcoreType<E
 
     @Override
     public Stream<EcoreType<EClassifier>> enumerate(Set<String> languages) {
-        return enabledPackages(languages).flatMap(EcoreHelper::findAllClassifiers) //
+        return enabledPackages(languages).flatMap(AnnotatedJavaMetamodelSource::enumerate);
+    }
+
+    private static Stream<EcoreType<EClassifier>> enumerate(EPackage ePackage) {
+        return EcoreHelper.findAllClassifiers(ePackage)
                 .map(eClass -> (EcoreType<EClassifier>) EcoreType.fromClassifier(eClass));
     }
 
@@ -82,5 +86,15 @@ public class AnnotatedJavaMetamodelSource implements MetamodelSource<EcoreType<E
             return new AnnotatedJavaMetamodelSource(packageName);
         }
 
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Factory && packageName.equals(((Factory) other).packageName);
+        }
+
+        @Override
+        public int hashCode() {
+            return packageName.hashCode();
+        }
+
     }
 }
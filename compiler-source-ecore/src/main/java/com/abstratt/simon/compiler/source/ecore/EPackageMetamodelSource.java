@@ -1,6 +1,7 @@
 package com.abstratt.simon.compiler.source.ecore;
 
 import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.emf.ecore.EClassifier;
@@ -9,14 +10,19 @@ import org.eclipse.emf.ecore.EPackage;
 import com.abstratt.simon.compiler.source.MetamodelSource;
 import com.abstratt.simon.compiler.source.SimpleSourceProvider;
 import com.abstratt.simon.compiler.source.SourceProvider;
+import com.abstratt.simon.compiler.source.TypeIndex;
 import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;
 import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
 
 public class EPackageMetamodelSource implements MetamodelSource<EcoreType<? extends EClassifier>> {
     private final EPackage ePackage;
+    private final TypeIndex<EcoreType<? extends EClassifier>> typeIndex;
 
     protected EPackageMetamodelSource(EPackage ePackage) {
         this.ePackage = ePackage;
+        this.typeIndex = TypeIndex.build(Stream.of(new TypeIndex.Language<>(ePackage.getName(),
+                EcoreHelper.findAllClassifiers(ePackage).<EcoreType<? extends EClassifier>>map(EcoreType::fromClassifier)
+                        .collect(Collectors.toList()))));
     }
 
     @Override
@@ -29,10 +35,7 @@ public class EPackageMetamodelSource implements MetamodelSource<EcoreType<? exte
 
     @Override
     public EcoreType<? extends EClassifier> resolveType(String typeName, Set<String> languages) {
-        if (languages != null && !languages.contains(ePackage.getName()))
-            return null;
-        var classifier = EcoreHelper.findClassifierByName(ePackage, typeName);
-        return classifier == null ? null : EcoreType.fromClassifier(classifier);
+        return typeIndex.resolveType(typeName, languages);
     }
 
     @Override
@@ -57,5 +60,15 @@ public class EPackageMetamodelSource implements MetamodelSource<EcoreType<? exte
         public MetamodelSource<EcoreType<? extends EClassifier>> build() {
             return new EPackageMetamodelSource(ePackage);
         }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Factory && ePackage == ((Factory) other).ePackage;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(ePackage);
+        }
     }
 }
@@ -28,5 +28,15 @@ public class ResourceMetamodelSource extends EPackageMetamodelSource {
             var childSources = packages.map(ResourceMetamodelSource::new).collect(Collectors.toList());
             return new MetamodelSourceChain(childSources);
         }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Factory && resource == ((Factory) other).resource;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(resource);
+        }
     }
 }
@@ -0,0 +1,147 @@
+package com.abstratt.simon.compiler.source.ecore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;
+
+/**
+ * Snapshots of metamodels: the packages a metamodel source provides, in EMF's
+ * binary format, so they can be loaded without going through whatever built
+ * them in the first place (scanning annotated classes, compiling Simon
+ * sources...).
+ *
+ * Snapshots are meant to be written at build time (see
+ * {@link #main(String[])}), and loaded at runtime by a {@link Factory}: a
+ * service bundles the snapshot as a resource, and compiles with
+ * {@code new SnapshotMetamodelSource.Factory(getClass().getResource("/metamodel.bin"))}
+ * instead of the factory the snapshot was taken from. Snapshots must be taken
+ * again whenever the metamodel changes. Each package in a snapshot is a
+ * language, as with
+ * {@link ResourceMetamodelSource}. Packages referred to by the packages in a
+ * snapshot must be in the snapshot as well, or registered globally (as Ecore
+ * is).
+ */
+public final class SnapshotMetamodelSource {
+
+    private SnapshotMetamodelSource() {
+    }
+
+    /**
+     * Writes a snapshot of the metamodel built by a factory, so snapshots can be
+     * taken as part of a build (for instance, from the Maven exec plugin or a
+     * Gradle {@code JavaExec} task, once the classes the metamodel comes from are
+     * compiled).
+     *
+     * Arguments are the name of the factory class, which must have a public
+     * constructor taking no arguments (as the {@code Factory} classes generated
+     * along with metamodel builders do), and the file to write the snapshot into.
+     * For instance:
+     *
+     * <pre>
+     * java -cp ... com.abstratt.simon.compiler.source.ecore.SnapshotMetamodelSource \
+     *         com.abstratt.simon.examples.UIMetamodel$Factory target/classes/metamodel.bin
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException, ReflectiveOperationException {
+        if (args.length != 2)
+            throw new IllegalArgumentException(
+                    "Usage: " + SnapshotMetamodelSource.class.getName() + " <factory class> <snapshot file>");
+        var factoryClass = Class.forName(args[0], true, Thread.currentThread().getContextClassLoader());
+        var factory = (MetamodelSource.Factory<?>) factoryClass.getConstructor().newInstance();
+        var snapshot = Path.of(args[1]);
+        if (snapshot.toAbsolutePath().getParent() != null)
+            Files.createDirectories(snapshot.toAbsolutePath().getParent());
+        try (var source = MetamodelSource.build(factory)) {
+            write(source, snapshot);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the packages the given source provides types from.
+     * The packages themselves are left untouched.
+     *
+     * @param source   the source to take a snapshot of
+     * @param snapshot the file to write the snapshot into
+     */
+    public static void write(MetamodelSource<?> source, Path snapshot) throws IOException {
+        var packages = new LinkedHashSet<EPackage>();
+        source.enumerate(null).filter(EcoreType.class::isInstance)
+                .map(it -> ((EcoreType<?>) it).wrapped().getEPackage()).forEach(it -> packages.add(rootOf(it)));
+        var resource = new BinaryResourceImpl(URI.createFileURI(snapshot.toAbsolutePath().toString()));
+        resource.getContents().addAll(EcoreUtil.copyAll(packages));
+        try (var output = new BufferedOutputStream(Files.newOutputStream(snapshot))) {
+            resource.save(output, null);
+        }
+    }
+
+    /**
+     * Loads the packages in the given snapshot, with all references among them
+     * resolved, so they can be read by multiple threads at once.
+     *
+     * @return a resource with the packages as its contents
+     */
+    public static Resource load(URL snapshot) throws IOException {
+        var resourceSet = new ResourceSetImpl();
+        var resource = new BinaryResourceImpl(URI.createURI(snapshot.toExternalForm()));
+        resourceSet.getResources().add(resource);
+        try (var input = new BufferedInputStream(snapshot.openStream())) {
+            resource.load(input, null);
+        }
+        EcoreUtil.resolveAll(resource);
+        return resource;
+    }
+
+    private static EPackage rootOf(EPackage ePackage) {
+        var root = ePackage;
+        while (root.getESuperPackage() != null)
+            root = root.getESuperPackage();
+        return root;
+    }
+
+    /**
+     * Builds sources out of a snapshot, loaded on every build.
+     */
+    public static class Factory implements MetamodelSource.Factory<EcoreType<? extends EClassifier>> {
+        private final URL snapshot;
+
+        public Factory(URL snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public MetamodelSource<EcoreType<? extends EClassifier>> build() {
+            try {
+                return new ResourceMetamodelSource.Factory(load(snapshot)).build();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load metamodel snapshot " + snapshot, e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Factory
+                    && snapshot.toExternalForm().equals(((Factory) other).snapshot.toExternalForm());
+        }
+
+        @Override
+        public int hashCode() {
+            return snapshot.toExternalForm().hashCode();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
 import com.abstratt.simon.compiler.source.MetamodelSource;
 import com.abstratt.simon.compiler.source.SimpleSourceProvider;
 import com.abstratt.simon.compiler.source.SourceProvider;
+import com.abstratt.simon.compiler.source.TypeIndex;
 import com.abstratt.simon.compiler.source.annotated.AnnotatedJavaMetamodelSource;
 import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;
 import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
@@ -38,10 +39,13 @@ import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
 public class SimonFileMetamodelSource implements MetamodelSource<EcoreType<EClassifier>> {
 
     private final Map<String, EPackage> packages;
+    private final TypeIndex<EcoreType<EClassifier>> typeIndex;
 
     private SimonFileMetamodelSource(MetamodelSource.Factory<?> bootstrapSourceFactory,
             List<String> entryPoints, SourceProvider sources) {
         this.packages = buildPackages(bootstrapSourceFactory, entryPoints, sources);
+        this.typeIndex = TypeIndex.build(packages.values().stream().map(
+                p -> new TypeIndex.Language<>(p.getName(), enumerate(p).collect(Collectors.toList()))));
     }
 
     private static Map<String, EPackage> buildPackages(MetamodelSource.Factory<?> bootstrapSourceFactory,
@@ -82,17 +86,16 @@ public class SimonFileMetamodelSource implements MetamodelSource<EcoreType<EClas
 
     @Override
     public EcoreType<EClassifier> resolveType(String typeName, Set<String> languages) {
-        return enabledPackages(languages)
-                .map(p -> EcoreHelper.findClassifierByName(p, typeName))
-                .filter(Objects::nonNull)
-                .map(c -> (EcoreType<EClassifier>) EcoreType.fromClassifier(c))
-                .findAny().orElse(null);
+        return typeIndex.resolveType(typeName, languages);
     }
 
     @Override
     public Stream<EcoreType<EClassifier>> enumerate(Set<String> languages) {
-        return enabledPackages(languages)
-                .flatMap(EcoreHelper::findAllClassifiers)
+        return enabledPackages(languages).flatMap(SimonFileMetamodelSource::enumerate);
+    }
+
+    private static Stream<EcoreType<EClassifier>> enumerate(EPackage ePackage) {
+        return EcoreHelper.findAllClassifiers(ePackage)
                 .map(c -> (EcoreType<EClassifier>) EcoreType.fromClassifier(c));
     }
 
@@ -138,5 +141,19 @@ public class SimonFileMetamodelSource implements MetamodelSource<EcoreType<EClas
         public MetamodelSource<EcoreType<EClassifier>> build() {
             return new SimonFileMetamodelSource(bootstrapSourceFactory, entryPoints, sources);
         }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Factory))
+                return false;
+            var otherFactory = (Factory) other;
+            return bootstrapSourceFactory.equals(otherFactory.bootstrapSourceFactory)
+                    && entryPoints.equals(otherFactory.entryPoints) && sources.equals(otherFactory.sources);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bootstrapSourceFactory, entryPoints, sources);
+        }
     }
 }
@@ -0,0 +1,49 @@
+package com.abstratt.simon.compiler.source;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Provides the contents of a UTF-8 encoded file, either through a reader, or
+ * mapped into memory (see {@link #map()}), so consumers able to decode bytes
+ * themselves can read large files without copying them onto the heap.
+ */
+public class FileContentProvider implements ContentProvider {
+    private final Path path;
+
+    public FileContentProvider(Path path) {
+        this.path = path;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public Reader getContents() throws IOException {
+        return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps the contents of the file into memory, read-only. The mapping remains
+     * valid until the buffer is garbage collected.
+     *
+     * @return the mapped contents, or null if the file is too large to be mapped
+     *         into a single buffer (consumers should then fall back to
+     *         {@link #getContents()})
+     */
+    public ByteBuffer map() throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                return null;
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.abstratt.simon.compiler.source;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import com.abstratt.simon.metamodel.Metamodel.ObjectType;
+import com.abstratt.simon.metamodel.Metamodel.Slotted;
 import com.abstratt.simon.metamodel.Metamodel.Type;
 
 /**
@@ -36,8 +38,43 @@ public interface MetamodelSource<T extends Type> extends AutoCloseable {
     default void close() {
     }
 
+    /**
+     * Identifies the metamodel this source provides: sources with equal
+     * identities resolve type names to the very same types, so models built
+     * against one can be used with the other.
+     */
+    default Object identity() {
+        return this;
+    }
+
+    /**
+     * Ensures the metamodel has computed any state it derives lazily, so it can
+     * then be read by multiple threads at once.
+     */
+    default void prepareForConcurrentUse() {
+        enumerate(null).forEach(MetamodelSource::prepareForConcurrentUse);
+    }
+
+    private static void prepareForConcurrentUse(Type type) {
+        if (type instanceof Slotted)
+            ((Slotted) type).slots();
+        if (type instanceof ObjectType) {
+            ((ObjectType) type).compositions();
+            ((ObjectType) type).references();
+            ((ObjectType) type).features();
+        }
+    }
+
     interface Factory<T extends Type> {
         MetamodelSource<T> build();
     }
 
+    /**
+     * Builds a source with the given factory, which Java Flight Recorder can
+     * record (see {@link MetamodelSourceBuildEvent}).
+     */
+    static <T extends Type> MetamodelSource<T> build(Factory<T> factory) {
+        return MetamodelSourceBuildEvent.build(factory);
+    }
+
 }
@@ -0,0 +1,35 @@
+package com.abstratt.simon.compiler.source;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import com.abstratt.simon.metamodel.Metamodel.Type;
+
+/**
+ * Records building a metamodel source. Disabled by default.
+ */
+@Name("com.abstratt.simon.MetamodelSourceBuild")
+@Label("Metamodel Source Build")
+@Category({ "Simon", "Compiler" })
+@Description("Building a metamodel source")
+@Enabled(false)
+class MetamodelSourceBuildEvent extends Event {
+    @Label("Factory")
+    String factory;
+
+    static <T extends Type> MetamodelSource<T> build(MetamodelSource.Factory<T> factory) {
+        var event = new MetamodelSourceBuildEvent();
+        event.begin();
+        var built = factory.build();
+        event.end();
+        if (event.shouldCommit()) {
+            event.factory = factory.getClass().getName();
+            event.commit();
+        }
+        return built;
+    }
+}
@@ -0,0 +1,194 @@
+package com.abstratt.simon.compiler.source;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+import com.abstratt.simon.metamodel.Metamodel.Type;
+
+/**
+ * Shares metamodel sources across compilations, so a metamodel is only built
+ * once no matter how many compilations use it.
+ *
+ * Sources are keyed by their factories, so factories that build the same
+ * metamodel should be equal (factories shipped with Simon are equal when they
+ * are of the same kind and have equal inputs). A source is built by the first
+ * compilation that needs it, and prepared for concurrent use before it is
+ * shared. It stays cached until it is invalidated; compilations that need it
+ * afterwards get a freshly built one.
+ *
+ * Cached sources are handed out through views, so compilers (and sessions) can
+ * keep closing the sources they use once done. An invalidated source is only
+ * closed once all views of it are closed, so compilations still using it are
+ * not affected.
+ *
+ * This class is thread-safe.
+ */
+public class MetamodelSourceCache {
+
+    private final ConcurrentMap<MetamodelSource.Factory<?>, CompletableFuture<CachedSource>> sources = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a factory that provides the source cached for the given factory.
+     */
+    public <T extends Type> MetamodelSource.Factory<T> cached(MetamodelSource.Factory<T> factory) {
+        return new CachedFactory<>(factory);
+    }
+
+    /**
+     * Returns the source cached for the given factory, building it if needed.
+     */
+    public <T extends Type> MetamodelSource<T> get(MetamodelSource.Factory<T> factory) {
+        while (true) {
+            var view = join(getCached(factory)).<T> open();
+            // null if invalidated meanwhile, in which case it is no longer cached
+            if (view != null)
+                return view;
+        }
+    }
+
+    private CompletableFuture<CachedSource> getCached(MetamodelSource.Factory<?> factory) {
+        var building = new CompletableFuture<CachedSource>();
+        var existing = sources.putIfAbsent(factory, building);
+        if (existing != null)
+            return existing;
+        try {
+            var built = MetamodelSource.build(factory);
+            built.prepareForConcurrentUse();
+            building.complete(new CachedSource(built));
+        } catch (RuntimeException | Error e) {
+            // let the next request try again
+            sources.remove(factory, building);
+            building.completeExceptionally(e);
+            throw e;
+        }
+        return building;
+    }
+
+    /**
+     * Drops the source cached for the given factory, if any. The source is closed
+     * as soon as no views of it are open.
+     */
+    public void invalidate(MetamodelSource.Factory<?> factory) {
+        var removed = sources.remove(factory);
+        if (removed != null)
+            // a source still being built is invalidated once done
+            removed.thenAccept(CachedSource::invalidate);
+    }
+
+    /**
+     * Drops all cached sources (see {@link #invalidate(MetamodelSource.Factory)}).
+     */
+    public void invalidateAll() {
+        for (MetamodelSource.Factory<?> factory : new ArrayList<>(sources.keySet()))
+            invalidate(factory);
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private class CachedFactory<T extends Type> implements MetamodelSource.Factory<T> {
+        private final MetamodelSource.Factory<T> factory;
+
+        CachedFactory(MetamodelSource.Factory<T> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public MetamodelSource<T> build() {
+            return get(factory);
+        }
+    }
+
+    /**
+     * A source built, and the number of views of it still open.
+     */
+    private static class CachedSource {
+        private final MetamodelSource<?> source;
+        private int views;
+        private boolean invalidated;
+
+        CachedSource(MetamodelSource<?> source) {
+            this.source = source;
+        }
+
+        /**
+         * @return a new view of the source, or null if the source was invalidated
+         */
+        synchronized <T extends Type> MetamodelSource<T> open() {
+            if (invalidated)
+                return null;
+            views++;
+            return new SharedMetamodelSource<>(this, (MetamodelSource<T>) source);
+        }
+
+        synchronized void release() {
+            if (--views == 0 && invalidated)
+                source.close();
+        }
+
+        synchronized void invalidate() {
+            invalidated = true;
+            if (views == 0)
+                source.close();
+        }
+    }
+
+    private static class SharedMetamodelSource<T extends Type> implements MetamodelSource<T> {
+        private final CachedSource cached;
+        private final MetamodelSource<T> shared;
+        private boolean closed;
+
+        SharedMetamodelSource(CachedSource cached, MetamodelSource<T> shared) {
+            this.cached = cached;
+            this.shared = shared;
+        }
+
+        @Override
+        public T resolveType(String typeName, Set<String> languages) {
+            return shared.resolveType(typeName, languages);
+        }
+
+        @Override
+        public Stream<T> enumerate(Set<String> languages) {
+            return shared.enumerate(languages);
+        }
+
+        @Override
+        public SourceProvider builtInSources() {
+            return shared.builtInSources();
+        }
+
+        @Override
+        public Object identity() {
+            return shared.identity();
+        }
+
+        @Override
+        public void prepareForConcurrentUse() {
+            // done before sharing
+        }
+
+        @Override
+        public synchronized void close() {
+            // the cache closes the shared source once invalidated and no longer in use
+            if (closed)
+                return;
+            closed = true;
+            cached.release();
+        }
+    }
+}
@@ -41,6 +41,11 @@ public class MetamodelSourceChain<T extends Type> implements MetamodelSource<T>
                 .collect(Collectors.collectingAndThen(Collectors.toList(), SourceProviderChain::new));
     }
 
+    @Override
+    public Object identity() {
+        return sources.stream().map(MetamodelSource::identity).collect(Collectors.toList());
+    }
+
     public static class Factory<T extends Type> implements MetamodelSource.Factory<T> {
         public Factory(List<MetamodelSource.Factory<T>> sourceFactories) {
             this.factories = sourceFactories;
@@ -53,6 +58,16 @@ public class MetamodelSourceChain<T extends Type> implements MetamodelSource<T>
             var sources = factories.stream().map(MetamodelSource.Factory::build).collect(Collectors.toList());
             return new MetamodelSourceChain<T>(sources);
         }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Factory && factories.equals(((Factory<?>) other).factories);
+        }
+
+        @Override
+        public int hashCode() {
+            return factories.hashCode();
+        }
     }
 
 }
@@ -0,0 +1,105 @@
+package com.abstratt.simon.compiler.source;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Fetches sources ahead of time, so they are ready by the time they are
+ * accessed.
+ *
+ * Sources asked to be prefetched (see {@link #prefetch(String)}) are accessed
+ * and read in full on the given executor. Compilers ask for the sources a unit
+ * imports to be prefetched as soon as they find the imports, while the rest of
+ * the unit is still being parsed, so the latency of slow sources (read over
+ * the network, for instance) is hidden behind parsing. Files are not read, but
+ * loaded into memory, as they are mapped into memory when parsed (see
+ * {@link FileContentProvider#map()}).
+ *
+ * Accessing a source that was prefetched waits for it to be fetched, if
+ * needed. Other sources are accessed as usual. A source is only fetched once,
+ * and its contents are let go of once it is accessed, so a provider is meant to
+ * be used for a single compilation.
+ *
+ * This class is thread-safe.
+ */
+public class PrefetchingSourceProvider implements SourceProvider {
+    private final SourceProvider sources;
+    private final Executor executor;
+    /** Stands for sources accessed already, whether prefetched or not. */
+    private static final CompletableFuture<ContentProvider> ACCESSED = CompletableFuture.completedFuture(null);
+    /**
+     * The sources prefetched or accessed so far: the fetch of each source
+     * prefetched but not yet accessed, or {@link #ACCESSED}.
+     */
+    private final ConcurrentMap<String, CompletableFuture<ContentProvider>> prefetched = new ConcurrentHashMap<>();
+
+    public PrefetchingSourceProvider(SourceProvider sources, Executor executor) {
+        this.sources = sources;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts fetching the given source, unless it was already prefetched or
+     * accessed.
+     */
+    public void prefetch(String sourceName) {
+        prefetched.computeIfAbsent(sourceName,
+                it -> CompletableFuture.supplyAsync(() -> fetch(sources.access(it)), executor));
+    }
+
+    /**
+     * Takes over the fetch of the given source, if it was prefetched, or else
+     * accesses it as usual. Either way, the source is not prefetched from then
+     * on.
+     */
+    @Override
+    public ContentProvider access(String sourceName) {
+        var fetching = prefetched.put(sourceName, ACCESSED);
+        if (fetching == null || fetching == ACCESSED)
+            return sources.access(sourceName);
+        try {
+            return fetching.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private static ContentProvider fetch(ContentProvider contents) {
+        if (contents == null)
+            return null;
+        if (contents instanceof FileContentProvider)
+            return load((FileContentProvider) contents);
+        var read = new StringWriter();
+        try (var reader = contents.getContents()) {
+            reader.transferTo(read);
+        } catch (IOException e) {
+            return () -> {
+                throw e;
+            };
+        }
+        var text = read.toString();
+        return () -> new StringReader(text);
+    }
+
+    private static ContentProvider load(FileContentProvider file) {
+        try {
+            var mapped = file.map();
+            if (mapped instanceof MappedByteBuffer)
+                ((MappedByteBuffer) mapped).load();
+        } catch (IOException e) {
+            // reported once the file is actually read
+        }
+        return file;
+    }
+}
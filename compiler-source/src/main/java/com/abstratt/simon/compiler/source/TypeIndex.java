@@ -0,0 +1,78 @@
+package com.abstratt.simon.compiler.source;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.abstratt.simon.metamodel.Metamodel.Type;
+
+/**
+ * Indexes the types of a metamodel by name, so {@link MetamodelSource}s can
+ * resolve types without going through all the types available.
+ *
+ * Types are resolved against the languages enabled in a source, the same way as
+ * when searching each language in order: if multiple enabled languages have a
+ * type with the same name, the first language wins. The index for each
+ * combination of languages is built the first time it is asked for, and kept as
+ * long as only a few distinct combinations show up (compilations usually enable
+ * the same few).
+ *
+ * This class is thread-safe.
+ *
+ * @param <T> the type of type
+ */
+public class TypeIndex<T extends Type> {
+
+    private static final int MAX_MEMOIZED_LANGUAGE_SETS = 32;
+
+    /**
+     * The types a language provides.
+     */
+    public record Language<T extends Type>(String name, List<T> types) {
+    }
+
+    private final List<Language<T>> languages;
+    private final Map<String, T> allTypes;
+    private final ConcurrentMap<Set<String>, Map<String, T>> typesByLanguages = new ConcurrentHashMap<>();
+
+    private TypeIndex(List<Language<T>> languages) {
+        this.languages = languages;
+        this.allTypes = index(languages.stream());
+    }
+
+    public static <T extends Type> TypeIndex<T> build(Stream<Language<T>> languages) {
+        return new TypeIndex<>(languages.collect(Collectors.toList()));
+    }
+
+    /**
+     * Resolves the given type name into a type.
+     *
+     * @param typeName  the name of the type
+     * @param languages the languages to look the type up in, or null for all
+     * @return the type, or null if none of the languages has a type by that name
+     */
+    public T resolveType(String typeName, Set<String> languages) {
+        if (languages == null)
+            return allTypes.get(typeName);
+        var types = typesByLanguages.get(languages);
+        if (types == null) {
+            if (typesByLanguages.size() >= MAX_MEMOIZED_LANGUAGE_SETS)
+                typesByLanguages.clear();
+            var key = Set.copyOf(languages);
+            types = index(this.languages.stream().filter(it -> key.contains(it.name())));
+            typesByLanguages.putIfAbsent(key, types);
+        }
+        return types.get(typeName);
+    }
+
+    private static <T extends Type> Map<String, T> index(Stream<Language<T>> languages) {
+        var index = new HashMap<String, T>();
+        languages.forEach(language -> language.types().forEach(type -> index.putIfAbsent(type.name(), type)));
+        return index;
+    }
+}
@@ -2,6 +2,7 @@ package com.abstratt.simon.compiler.source;
 
 import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.Optional;
 
 public class URISourceProvider implements SourceProvider {
@@ -16,6 +17,8 @@ public class URISourceProvider implements SourceProvider {
     @Override
     public ContentProvider access(String sourceName) {
         var sourceURI = baseURI.resolve(sourceName + Optional.ofNullable(extension).map(it -> "." + it).orElse(""));
+        if ("file".equals(sourceURI.getScheme()))
+            return new FileContentProvider(Path.of(sourceURI));
         return () -> new InputStreamReader(sourceURI.toURL().openStream());
     }
 }
@@ -0,0 +1,110 @@
+package com.abstratt.simon.compiler;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Where the time went when compiling a unit, and how much work it took.
+ *
+ * The compiler collects stats for each unit as it compiles it, and they are
+ * complete by the time the unit's result is handed over. A unit's stats are
+ * only updated by one thread at a time, so this class is not thread-safe.
+ */
+public class CompilationStats {
+
+    public enum Phase {
+        /** Accessing and reading the source. */
+        SourceAccess,
+        /** Lexing and parsing, not counting the time spent building. */
+        Parsing,
+        /** Building objects as elements are parsed. */
+        Building,
+        /** Collecting imports to compile next. */
+        ImportDiscovery,
+        /** Resolving references by name, and linking them. */
+        Resolution
+    }
+
+    public enum Counter {
+        ObjectsInstantiated, SlotsSet, ResolutionRequests, NameLookups, CharactersRead
+    }
+
+    private final long[] nanos = new long[Phase.values().length];
+    private final long[] counts = new long[Counter.values().length];
+
+    public void addTime(Phase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += elapsedNanos;
+    }
+
+    public void increment(Counter counter) {
+        counts[counter.ordinal()]++;
+    }
+
+    public void add(Counter counter, long count) {
+        counts[counter.ordinal()] += count;
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public Duration getTime(Phase phase) {
+        return Duration.ofNanos(getNanos(phase));
+    }
+
+    /**
+     * The time spent in all phases.
+     */
+    public Duration getTotalTime() {
+        long total = 0;
+        for (long phaseNanos : nanos)
+            total += phaseNanos;
+        return Duration.ofNanos(total);
+    }
+
+    public long getCount(Counter counter) {
+        return counts[counter.ordinal()];
+    }
+
+    /**
+     * Adds the given stats to these.
+     *
+     * @return these stats
+     */
+    public CompilationStats add(CompilationStats other) {
+        for (int i = 0; i < nanos.length; i++)
+            nanos[i] += other.nanos[i];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+        return this;
+    }
+
+    /**
+     * Publishes these stats to Java Flight Recorder, if the recording asks for
+     * them (see {@link CompilationStatsEvent}).
+     */
+    public void publish(String source) {
+        CompilationStatsEvent.emit(source, this);
+    }
+
+    /**
+     * Sums up the stats of the given results, to tell how a whole compilation
+     * went.
+     */
+    public static CompilationStats total(Collection<? extends Result<?>> results) {
+        var total = new CompilationStats();
+        results.forEach(it -> total.add(it.getStats()));
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        var description = new StringBuilder();
+        for (Phase phase : Phase.values())
+            description.append(phase).append(": ").append(getTime(phase).toMillis()).append("ms, ");
+        for (Counter counter : Counter.values())
+            description.append(counter).append(": ").append(getCount(counter)).append(", ");
+        description.setLength(description.length() - 2);
+        return description.toString();
+    }
+}
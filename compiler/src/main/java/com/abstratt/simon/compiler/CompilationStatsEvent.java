@@ -0,0 +1,77 @@
+package com.abstratt.simon.compiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Publishes the stats of each compiled unit to Java Flight Recorder, so they
+ * can be watched in production. Disabled by default: enable
+ * {@code com.abstratt.simon.CompilationStats} in the recording settings.
+ */
+@Name("com.abstratt.simon.CompilationStats")
+@Label("Unit Compilation Stats")
+@Category({ "Simon", "Compiler" })
+@Description("Where the time went when compiling a unit, and how much work it took")
+@Enabled(false)
+class CompilationStatsEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Source Access")
+    @Timespan
+    long sourceAccess;
+
+    @Label("Parsing")
+    @Timespan
+    long parsing;
+
+    @Label("Building")
+    @Timespan
+    long building;
+
+    @Label("Import Discovery")
+    @Timespan
+    long importDiscovery;
+
+    @Label("Resolution")
+    @Timespan
+    long resolution;
+
+    @Label("Objects Instantiated")
+    long objectsInstantiated;
+
+    @Label("Slots Set")
+    long slotsSet;
+
+    @Label("Resolution Requests")
+    long resolutionRequests;
+
+    @Label("Name Lookups")
+    long nameLookups;
+
+    @Label("Characters Read")
+    long charactersRead;
+
+    static void emit(String source, CompilationStats stats) {
+        var event = new CompilationStatsEvent();
+        if (!event.isEnabled())
+            return;
+        event.source = source;
+        event.sourceAccess = stats.getNanos(CompilationStats.Phase.SourceAccess);
+        event.parsing = stats.getNanos(CompilationStats.Phase.Parsing);
+        event.building = stats.getNanos(CompilationStats.Phase.Building);
+        event.importDiscovery = stats.getNanos(CompilationStats.Phase.ImportDiscovery);
+        event.resolution = stats.getNanos(CompilationStats.Phase.Resolution);
+        event.objectsInstantiated = stats.getCount(CompilationStats.Counter.ObjectsInstantiated);
+        event.slotsSet = stats.getCount(CompilationStats.Counter.SlotsSet);
+        event.resolutionRequests = stats.getCount(CompilationStats.Counter.ResolutionRequests);
+        event.nameLookups = stats.getCount(CompilationStats.Counter.NameLookups);
+        event.charactersRead = stats.getCount(CompilationStats.Counter.CharactersRead);
+        event.commit();
+    }
+}
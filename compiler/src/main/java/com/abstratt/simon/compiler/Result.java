@@ -12,11 +12,17 @@ public class Result<T> {
     private final String source;
     private final List<T> rootObjects;
     private final List<Problem> problems;
+    private final CompilationStats stats;
 
     public Result(String source, List<T> rootObjects, List<Problem> problems) {
+        this(source, rootObjects, problems, new CompilationStats());
+    }
+
+    public Result(String source, List<T> rootObjects, List<Problem> problems, CompilationStats stats) {
         this.source = source;
         this.rootObjects = new ArrayList<>(rootObjects);
         this.problems = new ArrayList<>(problems);
+        this.stats = stats;
     }
 
     public static <T> Result<T> failure(String source, Problem problem) {
@@ -42,4 +48,11 @@ public class Result<T> {
     public String getSource() {
         return source;
     }
+
+    /**
+     * How compiling this unit went.
+     */
+    public CompilationStats getStats() {
+        return stats;
+    }
 }
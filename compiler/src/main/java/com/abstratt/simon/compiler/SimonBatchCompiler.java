@@ -0,0 +1,201 @@
+package com.abstratt.simon.compiler;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.abstratt.simon.compiler.Problem.Category;
+import com.abstratt.simon.compiler.Problem.Severity;
+import com.abstratt.simon.compiler.backend.Backend;
+import com.abstratt.simon.compiler.source.ContentProvider;
+import com.abstratt.simon.compiler.source.FileContentProvider;
+import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.compiler.source.MetamodelSourceCache;
+import com.abstratt.simon.compiler.source.SourceProvider;
+import com.abstratt.simon.metamodel.Metamodel.ObjectType;
+import com.abstratt.simon.metamodel.Metamodel.Slotted;
+
+/**
+ * Compiles many independent projects at once, with a single compiler and a
+ * single metamodel shared by all of them.
+ *
+ * Each project is compiled on a thread of its own: a virtual thread if the
+ * runtime supports them, or else one out of a fixed pool. Compiling is mostly
+ * CPU-bound work, so only as many projects as there are parsing permits are
+ * compiled at a time. Projects give their permit up while waiting on source
+ * access, though, so slow sources (read from the class path, or over the network)
+ * do not keep other projects from compiling meanwhile. Sources are then read
+ * upfront, except files, which are mapped into memory as they are parsed (see
+ * {@link FileContentProvider#map()}).
+ *
+ * Compilers should compile each project on the thread it is compiled from (as
+ * they do unless told to parse units on an executor of their own), as that is
+ * the thread holding the permit.
+ *
+ * This class is thread-safe.
+ */
+public class SimonBatchCompiler<T> implements AutoCloseable {
+
+    private final MetamodelSourceCache metamodelCache = new MetamodelSourceCache();
+
+    private final SimonCompiler<T> compiler;
+
+    private final int parsingPermits;
+
+    /**
+     * A project: the units to compile, and where to find them (and whatever they
+     * import).
+     */
+    public record Project(String name, List<String> entryPoints, SourceProvider sources) {
+    }
+
+    /**
+     * @param parsingPermits how many projects can be compiled at a time (for
+     *                       instance, the number of available processors)
+     */
+    public SimonBatchCompiler(SimonCompiler.Factory compilerFactory, MetamodelSource.Factory<?> typeSourceFactory,
+            Backend<? extends ObjectType, ? extends Slotted, T> backend, int parsingPermits) {
+        if (parsingPermits < 1)
+            throw new IllegalArgumentException("At least one parsing permit is required");
+        this.compiler = compilerFactory.create(metamodelCache.cached(typeSourceFactory), backend);
+        this.parsingPermits = parsingPermits;
+    }
+
+    /**
+     * Compiles the given projects, and waits for all of them to complete.
+     *
+     * Projects are compiled independently: a project whose compilation fails
+     * unexpectedly (for instance, because its sources cannot be accessed) is
+     * reported with a fatal problem for each of its entry points, and does not
+     * keep other projects from compiling.
+     *
+     * @return the results for each project, by project name, in the order given
+     * @throws IllegalArgumentException if projects do not have unique names
+     */
+    public Map<String, List<Result<T>>> compile(List<Project> projects) {
+        var byName = new LinkedHashMap<String, Project>();
+        for (Project project : projects)
+            if (byName.put(project.name(), project) != null)
+                throw new IllegalArgumentException("Duplicate project name: " + project.name());
+        var permits = new Semaphore(parsingPermits, true);
+        var executor = newExecutor(parsingPermits);
+        try {
+            var running = new ArrayList<CompletableFuture<List<Result<T>>>>(projects.size());
+            for (Project project : projects)
+                running.add(CompletableFuture.supplyAsync(() -> compile(project, permits), executor));
+            var results = new LinkedHashMap<String, List<Result<T>>>();
+            for (int i = 0; i < projects.size(); i++)
+                results.put(projects.get(i).name(), join(running.get(i)));
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Result<T>> compile(Project project, Semaphore permits) {
+        permits.acquireUninterruptibly();
+        try {
+            var sources = new PermitReleasingSourceProvider(project.sources(), permits, Thread.currentThread());
+            return compiler.compile(project.entryPoints(), sources);
+        } catch (RuntimeException e) {
+            return failed(project, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static <T> List<Result<T>> failed(Project project, RuntimeException failure) {
+        var results = new ArrayList<Result<T>>(project.entryPoints().size());
+        for (String entryPoint : project.entryPoints())
+            results.add(Result.failure(entryPoint, new Problem(entryPoint, -1, -1,
+                    "Compilation failed: " + failure, Severity.Fatal, Category.Internal)));
+        return results;
+    }
+
+    /**
+     * Drops the metamodel shared by the projects compiled so far.
+     */
+    @Override
+    public void close() {
+        metamodelCache.invalidateAll();
+    }
+
+    /**
+     * A virtual thread per project if virtual threads are available (looked up
+     * reflectively, as they are not available in all supported runtimes), or
+     * else a pool with a few threads per permit, as threads waiting on sources
+     * do not hold permits.
+     */
+    private static ExecutorService newExecutor(int parsingPermits) {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(parsingPermits * 4);
+        }
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives the permit of the compiling thread up while a source is accessed
+     * and read.
+     */
+    private static class PermitReleasingSourceProvider implements SourceProvider {
+        private final SourceProvider sources;
+        private final Semaphore permits;
+        private final Thread holder;
+
+        PermitReleasingSourceProvider(SourceProvider sources, Semaphore permits, Thread holder) {
+            this.sources = sources;
+            this.permits = permits;
+            this.holder = holder;
+        }
+
+        @Override
+        public ContentProvider access(String sourceName) {
+            if (Thread.currentThread() != holder)
+                return sources.access(sourceName);
+            permits.release();
+            try {
+                return read(sources.access(sourceName));
+            } finally {
+                permits.acquireUninterruptibly();
+            }
+        }
+
+        private static ContentProvider read(ContentProvider contents) {
+            if (contents == null || contents instanceof FileContentProvider)
+                return contents;
+            var read = new StringWriter();
+            try (var reader = contents.getContents()) {
+                reader.transferTo(read);
+            } catch (IOException e) {
+                return () -> {
+                    throw e;
+                };
+            }
+            var text = read.toString();
+            return () -> new StringReader(text);
+        }
+    }
+}
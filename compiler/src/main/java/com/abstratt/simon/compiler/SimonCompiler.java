@@ -8,15 +8,16 @@ import java.io.StringReader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.abstratt.simon.compiler.backend.Backend;
 import com.abstratt.simon.compiler.source.ContentProvider;
 import com.abstratt.simon.compiler.source.ContentProviderSourceProvider;
+import com.abstratt.simon.compiler.source.FileContentProvider;
 import com.abstratt.simon.compiler.source.MetamodelSource;
 import com.abstratt.simon.compiler.source.SourceProvider;
 import com.abstratt.simon.metamodel.Metamodel.ObjectType;
@@ -32,12 +33,42 @@ import com.abstratt.simon.metamodel.Metamodel.Slotted;
  * 
  * Compiling a single input is a special case, where the set of inputs size 1.
  * 
+ * Compilers are thread-safe: a single compiler can run any number of
+ * compilations at once, each building a model of its own (see
+ * {@link Backend#forCompilation()}). Sessions are the exception (see
+ * {@link Session}).
+ * 
  * @param <T> the type of model being built
  */
 public interface SimonCompiler<T> {
 
     List<Result<T>> compile(List<String> entryPoints, SourceProvider sources);
 
+    /**
+     * Compiles the given entry points (and whatever they import), handing the
+     * result for each unit to the given consumer as soon as the unit is done: its
+     * roots are built, its references are linked, and no further problems will be
+     * reported for it. This lets consumers start working on some units while others
+     * are still being compiled.
+     *
+     * Results are handed over on the compiling thread, in the order units are done
+     * (not necessarily the order they are compiled in). Objects of a unit that is
+     * done are not changed afterwards, except for the inverse ends of
+     * bidirectional references to them from units still being compiled.
+     *
+     * The default implementation hands over all results once compilation is
+     * complete.
+     *
+     * @param resultConsumer receives each unit's result once it is done
+     * @return all results, as {@link #compile(List, SourceProvider)} does
+     */
+    default List<Result<T>> compile(List<String> entryPoints, SourceProvider sources,
+            Consumer<Result<T>> resultConsumer) {
+        var results = compile(entryPoints, sources);
+        results.forEach(resultConsumer);
+        return results;
+    }
+
     default Result<T> compile(Reader contents) {
         return compile(ContentProvider.provideContents(contents));
     }
@@ -74,13 +105,45 @@ public interface SimonCompiler<T> {
     }
 
     default Result<T> compile(Path toParse) {
-        return compile(() -> Files.newBufferedReader(toParse));
+        return compile(new FileContentProvider(toParse));
     }
 
     default Result<T> compile(String toParse) {
         return compile(ContentProvider.provideContents(new StringReader(toParse)));
     }
 
+    /**
+     * Opens a session for compiling the same set of sources repeatedly as they
+     * change (for instance, as they are edited).
+     *
+     * The default implementation compiles from scratch every time.
+     */
+    default Session<T> openSession() {
+        return new Session<>() {
+            @Override
+            public List<Result<T>> compile(List<String> entryPoints, SourceProvider sources) {
+                return SimonCompiler.this.compile(entryPoints, sources);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * A compiler that keeps state between compilations, so later compilations can
+     * reuse the work done by earlier ones.
+     *
+     * The models produced by a session are owned by it: a compilation may reuse
+     * (and update) objects returned by earlier compilations in the same session.
+     * Sessions are not meant to be used by multiple threads at once.
+     */
+    interface Session<T> extends SimonCompiler<T>, AutoCloseable {
+        @Override
+        void close();
+    }
+
     interface Factory {
         /**
          * Wires a metamodel source and a backend into a ready-to-use compiler: the
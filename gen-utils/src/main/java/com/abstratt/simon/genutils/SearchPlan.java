@@ -0,0 +1,119 @@
+package com.abstratt.simon.genutils;
+
+/**
+ * A compiled {@link Traversal.Provider#search(SearchTrace, Object, int, Object...)
+ * search}: the steps needed to match a path of a given length, worked out once
+ * and then executed with plain loops, for any provider, feature and path
+ * values.
+ *
+ * Plans are immutable, and cached by path length, so all searches for paths of
+ * the same length share a plan.
+ */
+public final class SearchPlan {
+
+    private static final int MAX_CACHED_LENGTH = 16;
+
+    private static final SearchPlan[] CACHED = new SearchPlan[MAX_CACHED_LENGTH + 1];
+
+    static {
+        for (int length = 0; length <= MAX_CACHED_LENGTH; length++)
+            CACHED[length] = new SearchPlan(length);
+    }
+
+    private enum Step {
+        /**
+         * Matches the next value against each scope in the hierarchy (or one of its
+         * children).
+         */
+        BUBBLE_UP,
+        /**
+         * Matches the next value against a child of the current object.
+         */
+        CHILD,
+        /**
+         * If nothing was found so far, matches the values after the first one from
+         * the roots.
+         */
+        FALL_BACK
+    }
+
+    private final Step[] steps;
+
+    private SearchPlan(int length) {
+        if (length == 0) {
+            this.steps = new Step[0];
+            return;
+        }
+        this.steps = new Step[length == 1 ? 1 : length + 1];
+        steps[0] = Step.BUBBLE_UP;
+        for (int i = 1; i < length; i++)
+            steps[i] = Step.CHILD;
+        if (length > 1)
+            steps[length] = Step.FALL_BACK;
+    }
+
+    /**
+     * Returns the plan for searching paths with the given number of values.
+     */
+    public static SearchPlan forLength(int length) {
+        if (length <= 0)
+            return CACHED[0];
+        return length <= MAX_CACHED_LENGTH ? CACHED[length] : new SearchPlan(length);
+    }
+
+    /**
+     * Runs this plan from the given context, matching the path values from the
+     * given offset on.
+     *
+     * @param provider the provider to navigate objects with
+     * @param trace    the trace to keep track of the search in, or null
+     * @param feature  the feature to match
+     * @param context  the object to search from
+     * @param offset   values to skip
+     * @param path     the path of values to match, with as many values after the
+     *                 offset as this plan was built for
+     * @return the object found, or null
+     */
+    public <T, F> T execute(Traversal.Provider<T, F> provider, SearchTrace trace, F feature, T context, int offset,
+            Object... path) {
+        T current = context;
+        int segment = offset;
+        for (Step step : steps) {
+            switch (step) {
+            case BUBBLE_UP:
+                current = bubbleUp(provider, trace, feature, context, path[segment++]);
+                break;
+            case CHILD:
+                if (current != null) {
+                    if (trace != null)
+                        trace.hop();
+                    current = provider.findChild(current, feature, path[segment]);
+                }
+                segment++;
+                break;
+            case FALL_BACK:
+                if (current == null) {
+                    if (trace != null)
+                        trace.fallBack();
+                    current = provider.findFromRoots(context, feature, offset + 1, path);
+                }
+                break;
+            }
+        }
+        return current;
+    }
+
+    private static <T, F> T bubbleUp(Traversal.Provider<T, F> provider, SearchTrace trace, F feature, T context,
+            Object value) {
+        for (T scope = context; scope != null; scope = provider.parent(scope)) {
+            if (trace != null)
+                trace.hop();
+            if (provider.hasAttributeValued(scope, feature, value))
+                return scope;
+            T child = provider.findChild(scope, feature, value);
+            if (child != null)
+                return child;
+        }
+        return null;
+    }
+}
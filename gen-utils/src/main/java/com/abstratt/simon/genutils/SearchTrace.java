@@ -0,0 +1,36 @@
+package com.abstratt.simon.genutils;
+
+/**
+ * Keeps track of how a search went (see
+ * {@link Traversal.Provider#search(SearchTrace, Object, Object...)}): how many
+ * hops it took, and whether it had to fall back to searching from the roots.
+ */
+public class SearchTrace {
+    private int hops;
+    private boolean fellBack;
+
+    void hop() {
+        hops++;
+    }
+
+    void fallBack() {
+        fellBack = true;
+        hops++;
+    }
+
+    /**
+     * The number of hops taken: one for each scope the first value was looked up
+     * in, one for each further value matched, and one for falling back to the
+     * roots.
+     */
+    public int getHops() {
+        return hops;
+    }
+
+    /**
+     * Whether the search fell back to searching from the roots.
+     */
+    public boolean fellBack() {
+        return fellBack;
+    }
+}
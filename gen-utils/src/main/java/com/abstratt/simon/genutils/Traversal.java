@@ -67,8 +67,14 @@ public interface Traversal<T> {
          * @return a traversal that bubbles up the scope hierarchy
          */
         default Traversal<T> bubbleUp(Traversal<T> base) {
-            return scope -> hierarchy(scope).map(t -> debug("bubbling up " + t, base.hop(t))).filter(Objects::nonNull)
-                    .findFirst().orElse(null);
+            return scope -> {
+                for (T t = scope; t != null; t = parent(t)) {
+                    var result = debug("bubbling up " + t, base.hop(t));
+                    if (result != null)
+                        return result;
+                }
+                return null;
+            };
         }
 
         default Traversal<T> attributeValued(F attribute, Object value) {
@@ -83,6 +89,33 @@ public interface Traversal<T> {
          */
         Stream<T> hierarchy(T context);
 
+        /**
+         * Returns the context that follows the given one in its
+         * {@link #hierarchy(Object) hierarchy}.
+         *
+         * @param context a context
+         * @return the parent context, or null if none
+         */
+        default T parent(T context) {
+            return container().hop(context);
+        }
+
+        /**
+         * Same as {@link #childWithAttributeValued(Object, Object)}, hopping from the
+         * given context right away.
+         */
+        default T findChild(T context, F attribute, Object value) {
+            return childWithAttributeValued(attribute, value).hop(context);
+        }
+
+        /**
+         * Same as {@link #searchRoots(Object, int, Object...)}, hopping from the given
+         * context right away.
+         */
+        default T findFromRoots(T context, F feature, int offset, Object... path) {
+            return searchRoots(feature, offset, path).hop(context);
+        }
+
         <O> O getValue(T eObject, String featureName);
 
         /**
@@ -107,8 +140,14 @@ public interface Traversal<T> {
          * @return
          */
         default Traversal<T> any(Traversal<T>... alternatives) {
-            return (T context) -> debug("any",
-                    stream(alternatives).map(it -> it.hop(context)).filter(Objects::nonNull).findFirst().orElse(null));
+            return (T context) -> {
+                for (Traversal<T> alternative : alternatives) {
+                    var result = alternative.hop(context);
+                    if (result != null)
+                        return debug("any", result);
+                }
+                return null;
+            };
         }
 
         default Traversal<T> search(F feature, Object... path) {
@@ -135,6 +174,22 @@ public interface Traversal<T> {
          * @return the search traversal
          */
         default Traversal<T> search(F feature, int offset, Object... path) {
+            return search(null, feature, offset, path);
+        }
+
+        /**
+         * Same as {@link #search(Object, Object...)}, but keeping track of how the
+         * search goes in the given trace.
+         */
+        default Traversal<T> search(SearchTrace trace, F feature, Object... path) {
+            return search(trace, feature, 0, path);
+        }
+
+        /**
+         * Same as {@link #search(Object, int, Object...)}, but keeping track of how
+         * the search goes in the given trace (if any).
+         */
+        default Traversal<T> search(SearchTrace trace, F feature, int offset, Object... path) {
             if (offset >= path.length)
                 return self();
             // the first value matches either:
@@ -142,18 +197,27 @@ public interface Traversal<T> {
             // 2. an ancestor
             // 3. the direct child of an ancestor
             // 4. any root
-            var findParentOrRelative = any(attributeValued(feature, path[offset]),
-                    childWithAttributeValued(feature, path[offset]));
-            var resolveFirst = bubbleUp(findParentOrRelative);
-            if (path.length == offset + 1)
-                // if no more values to match, we stop here
-                return resolveFirst;
-            var traverseRest = compose(stream(path, offset + 1, path.length - offset)
-                    .map(segment -> childWithAttributeValued(feature, segment)));
-            var localLookup = resolveFirst.then(traverseRest);
+            // the steps for each path length are worked out once, see SearchPlan
+            var plan = SearchPlan.forLength(path.length - offset);
+            return context -> plan.execute(this, trace, feature, context, offset, path);
+        }
+
+        /**
+         * Builds a traversal that matches the given path values against the
+         * descendants of each of the roots, in turn. The result is the object reached
+         * from the first root for which all values could be matched.
+         *
+         * @param feature feature to match
+         * @param offset  values to skip
+         * @param path    the path of values to match, starting from the children of a
+         *                root
+         * @return the search traversal
+         */
+        default Traversal<T> searchRoots(F feature, int offset, Object... path) {
+            var traverseRest = compose(
+                    stream(path, offset, path.length).map(segment -> childWithAttributeValued(feature, segment)));
             // TODO-RC this will search again the current tree unnecessarily
-            var globalSearch = roots().then(traverseRest);
-            return any(localLookup, globalSearch);
+            return roots().then(traverseRest);
         }
 
         default Traversal<T> feature(String name) {
@@ -182,11 +246,20 @@ public interface Traversal<T> {
          * Returns a hop that is equivalent to performing a sequence of hops.
          */
         default Traversal<T> compose(Stream<Traversal<T>> hops) {
-            return hops.reduce(e -> e, Traversal::then);
+            return compose(hops.toArray(Traversal[]::new));
         }
 
         default Traversal<T> compose(Traversal<T>... hops) {
-            return compose(stream(hops));
+            var sequence = hops.clone();
+            return context -> {
+                var current = context;
+                for (Traversal<T> hop : sequence) {
+                    if (current == null)
+                        return null;
+                    current = hop.hop(current);
+                }
+                return current;
+            };
         }
     }
 
@@ -234,8 +307,12 @@ public interface Traversal<T> {
      * @return
      */
     default Traversal<T> then(Traversal<T> another) {
-        return (T first) -> Optional.ofNullable(first).map(this::hop).map(it -> debug("then", it)).map(another::hop)
-                .orElse(null);
+        return (T first) -> {
+            if (first == null)
+                return null;
+            var intermediate = hop(first);
+            return intermediate == null ? null : another.hop(debug("then", intermediate));
+        };
     }
 
     default Traversal<T> debugged(String description) {
@@ -0,0 +1,138 @@
+package com.abstratt.simon.metamodel.ecore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import com.abstratt.simon.metamodel.Metamodel.Composition;
+import com.abstratt.simon.metamodel.Metamodel.Feature;
+import com.abstratt.simon.metamodel.Metamodel.Named;
+import com.abstratt.simon.metamodel.Metamodel.Reference;
+import com.abstratt.simon.metamodel.Metamodel.Slot;
+
+/**
+ * The features of an EClass, as seen by the metamodel, listed and indexed by
+ * name.
+ *
+ * A table is built once per EClass and attached to it as an adapter, so all
+ * wrappers for the same EClass share it. A table no longer reflects its EClass
+ * once the EClass (or any of its super types) changes its features, in which
+ * case a new one is built.
+ *
+ * Tables are immutable, and can be read by multiple threads at once.
+ */
+class EcoreFeatureTable extends AdapterImpl {
+    /**
+     * The list of all features of the EClass this table was built from. EClasses
+     * discard that list whenever their features change, so this is used to
+     * detect a stale table.
+     */
+    private final List<EStructuralFeature> source;
+    private final EClass eClass;
+    private final Table<Slot> slots;
+    private final Table<Composition> compositions;
+    private final Table<Reference> references;
+    private final Table<Feature> features;
+
+    private static class Table<F extends Named> {
+        private final List<F> list;
+        private final Map<String, F> byName;
+
+        Table(List<F> list) {
+            this.list = Collections.unmodifiableList(list);
+            this.byName = new HashMap<>();
+            list.forEach(it -> byName.putIfAbsent(it.name(), it));
+        }
+    }
+
+    private EcoreFeatureTable(EClass eClass) {
+        this.eClass = eClass;
+        this.source = eClass.getEAllStructuralFeatures();
+        var slots = new ArrayList<Slot>();
+        for (EAttribute eAttribute : eClass.getEAllAttributes())
+            slots.add(new EcoreMetamodel.EcoreSlot(eAttribute));
+        var compositions = new ArrayList<Composition>();
+        var references = new ArrayList<Reference>();
+        for (EReference eReference : eClass.getEAllReferences()) {
+            if (eReference.isContainment())
+                compositions.add(new EcoreMetamodel.EcoreRelationship(eReference));
+            else if (!eReference.isContainer())
+                references.add(new EcoreMetamodel.EcoreRelationship(eReference));
+        }
+        var features = new ArrayList<Feature>();
+        for (EStructuralFeature eFeature : source)
+            features.add(EcoreMetamodel.EcoreFeature.create(eFeature));
+        this.slots = new Table<>(slots);
+        this.compositions = new Table<>(compositions);
+        this.references = new Table<>(references);
+        this.features = new Table<>(features);
+    }
+
+    /**
+     * Returns the feature table for the given EClass, building it if it does not
+     * exist yet or is stale.
+     */
+    static EcoreFeatureTable of(EClass eClass) {
+        synchronized (eClass) {
+            var existing = (EcoreFeatureTable) eClass.eAdapters().stream()
+                    .filter(EcoreFeatureTable.class::isInstance).findFirst().orElse(null);
+            if (existing != null) {
+                if (existing.isCurrent())
+                    return existing;
+                eClass.eAdapters().remove(existing);
+            }
+            var built = new EcoreFeatureTable(eClass);
+            eClass.eAdapters().add(built);
+            return built;
+        }
+    }
+
+    boolean isCurrent() {
+        return eClass.getEAllStructuralFeatures() == source;
+    }
+
+    @Override
+    public boolean isAdapterForType(Object type) {
+        return type == EcoreFeatureTable.class;
+    }
+
+    List<Slot> slots() {
+        return slots.list;
+    }
+
+    Slot slotByName(String name) {
+        return slots.byName.get(name);
+    }
+
+    List<Composition> compositions() {
+        return compositions.list;
+    }
+
+    Composition compositionByName(String name) {
+        return compositions.byName.get(name);
+    }
+
+    List<Reference> references() {
+        return references.list;
+    }
+
+    Reference referenceByName(String name) {
+        return references.byName.get(name);
+    }
+
+    List<Feature> features() {
+        return features.list;
+    }
+
+    Feature featureByName(String name) {
+        return features.byName.get(name);
+    }
+}
@@ -1,10 +1,8 @@
 package com.abstratt.simon.metamodel.ecore;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
 
 import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EClassifier;
@@ -24,19 +22,37 @@ public interface EcoreMetamodel extends Metamodel {
     }
 
     abstract class EcoreSlotted<T extends EClass> extends EcoreType<T> implements Slotted {
+        private final boolean instantiable;
+        private EcoreFeatureTable featureTable;
+
         public EcoreSlotted(T wrapped) {
             super(wrapped);
+            this.instantiable = !wrapped.isAbstract();
+        }
+
+        /**
+         * The features of the wrapped EClass, listed and indexed by name.
+         */
+        EcoreFeatureTable featureTable() {
+            var table = featureTable;
+            if (table == null || !table.isCurrent())
+                featureTable = table = EcoreFeatureTable.of(wrapped);
+            return table;
         }
 
         @Override
         public boolean isInstantiable() {
-            return !wrapped.isAbstract();
+            return instantiable;
         }
 
         @Override
         public Collection<Slot> slots() {
-            EList<EAttribute> allAttributes = wrapped().getEAllAttributes();
-            return allAttributes.stream().map(EcoreSlot::new).collect(Collectors.toList());
+            return featureTable().slots();
+        }
+
+        @Override
+        public Slot slotByName(String name) {
+            return featureTable().slotByName(name);
         }
 
         @Override
@@ -69,12 +85,22 @@ public interface EcoreMetamodel extends Metamodel {
     }
 
     abstract class EcoreType<EC extends EClassifier> extends EcoreNamed<EC> implements Metamodel.Type {
+        private final boolean root;
 
         public EcoreType(EC wrapped) {
             super(wrapped);
+            this.root = isRootEClass(wrapped);
         }
 
+        /**
+         * Returns the wrapper for the given classifier. There is only one wrapper per
+         * classifier, so wrappers can be compared (and used as keys) by identity.
+         */
         public static EcoreType<?> fromClassifier(EClassifier classifier) {
+            return EcoreTypeRegistry.canonical(classifier);
+        }
+
+        static EcoreType<?> create(EClassifier classifier) {
             if (classifier instanceof EClass) {
                 boolean isRecord = MetaEcoreHelper.isRecord(classifier);
                 if (isRecord)
@@ -92,7 +118,7 @@ public interface EcoreMetamodel extends Metamodel {
 
         @Override
         public boolean isRoot() {
-            return isRootEClass(wrapped());
+            return root;
         }
 
         public abstract EObject newModelElement();
@@ -159,19 +185,32 @@ public interface EcoreMetamodel extends Metamodel {
 
         @Override
         public Collection<Composition> compositions() {
-            return wrapped().getEAllContainments().stream().map(EcoreRelationship::new).collect(Collectors.toList());
+            return featureTable().compositions();
         }
 
         @Override
         public Collection<Reference> references() {
-            return wrapped().getEAllReferences().stream().filter(ref -> !ref.isContainment() && !ref.isContainer())
-                    .map(EcoreRelationship::new).collect(Collectors.toList());
+            return featureTable().references();
         }
 
         @Override
         public Collection<Feature> features() {
-            return wrapped().getEAllStructuralFeatures().stream().map(EcoreFeature::create)
-                    .collect(Collectors.toList());
+            return featureTable().features();
+        }
+
+        @Override
+        public Composition compositionByName(String name) {
+            return featureTable().compositionByName(name);
+        }
+
+        @Override
+        public Reference referenceByName(String name) {
+            return featureTable().referenceByName(name);
+        }
+
+        @Override
+        public Feature featureByName(String name) {
+            return featureTable().featureByName(name);
         }
 
         @Override
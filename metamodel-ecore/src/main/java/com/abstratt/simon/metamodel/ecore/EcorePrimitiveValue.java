@@ -12,6 +12,8 @@ import com.abstratt.simon.metamodel.ecore.impl.MetaEcoreHelper;
 
 public class EcorePrimitiveValue extends EcoreValue<EClass> implements Metamodel.Primitive {
 
+    private PrimitiveKind kind;
+
     public EcorePrimitiveValue(EClass classifier) {
         super(classifier);
     }
@@ -30,6 +32,12 @@ public class EcorePrimitiveValue extends EcoreValue<EClass> implements Metamodel
     }
 
     public PrimitiveKind kind() {
+        if (kind == null)
+            kind = computeKind();
+        return kind;
+    }
+
+    private PrimitiveKind computeKind() {
         EDataType eClass = (EDataType) wrapped().getEStructuralFeature(MetaEcoreHelper.PRIMITIVE_VALUE_FEATURE)
                 .getEType();
         if (EcorePackage.Literals.EBOOLEAN == eClass || EcorePackage.Literals.EBOOLEAN_OBJECT == eClass)
@@ -0,0 +1,51 @@
+package com.abstratt.simon.metamodel.ecore;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EClassifier;
+
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;
+
+/**
+ * Keeps the canonical wrapper for an EClassifier, attached to it as an adapter,
+ * so there is one wrapper per classifier no matter how many times it is looked
+ * up.
+ *
+ * Wrappers capture what kind of type a classifier is when they are created, so
+ * they are meant for metamodels that are fully built. Still, if a classifier is
+ * changed afterwards, its wrapper is dropped, and the next lookup creates a new
+ * one.
+ */
+class EcoreTypeRegistry extends AdapterImpl {
+    private final EcoreType<?> type;
+
+    private EcoreTypeRegistry(EcoreType<?> type) {
+        this.type = type;
+    }
+
+    static EcoreType<?> canonical(EClassifier classifier) {
+        synchronized (classifier) {
+            for (Object adapter : classifier.eAdapters())
+                if (adapter instanceof EcoreTypeRegistry)
+                    return ((EcoreTypeRegistry) adapter).type;
+            var created = EcoreType.create(classifier);
+            classifier.eAdapters().add(new EcoreTypeRegistry(created));
+            return created;
+        }
+    }
+
+    @Override
+    public void notifyChanged(Notification notification) {
+        if (notification.isTouch() || notification.getEventType() == Notification.REMOVING_ADAPTER)
+            return;
+        var classifier = (EClassifier) notification.getNotifier();
+        synchronized (classifier) {
+            classifier.eAdapters().remove(this);
+        }
+    }
+
+    @Override
+    public boolean isAdapterForType(Object type) {
+        return type == EcoreTypeRegistry.class;
+    }
+}
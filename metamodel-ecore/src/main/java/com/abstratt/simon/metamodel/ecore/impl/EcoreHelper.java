@@ -176,8 +176,10 @@ public interface EcoreHelper {
     }
 
     public static EObject findChildByAttributeValue(EObject toCheck, EAttribute feature, Object value) {
-        var eContents = toCheck.eContents();
-        return eContents.stream().filter(e -> hasAttributeValue(e, feature, value)).findFirst().orElse(null);
+        for (EObject child : toCheck.eContents())
+            if (hasAttributeValue(child, feature, value))
+                return child;
+        return null;
     }
 
     public static EObject findChildByAttributeValue(EObject toCheck, String featureName, Object value) {
@@ -29,4 +29,5 @@ include(
     "example-languages-kotlin",
     "test-fixtures",
     "tests",
+    "benchmarks",
 )
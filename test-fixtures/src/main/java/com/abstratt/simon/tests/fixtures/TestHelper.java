@@ -2,6 +2,7 @@ package com.abstratt.simon.tests.fixtures;
 
 import com.abstratt.simon.compiler.Problem;
 import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.SimonCompiler;
 import com.abstratt.simon.compiler.antlr.SimonCompilerAntlrFactory;
 import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
 import com.abstratt.simon.compiler.source.*;
@@ -29,6 +30,8 @@ import org.eclipse.emf.ecore.resource.Resource;
 
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -111,6 +114,126 @@ public class TestHelper {
         return compiler.compile(entryPoints, sourceProvider);
     }
 
+    public static List<Result<EObject>> compileProjectConcurrently(List<String> entryPoints,
+            MetamodelSource.Factory<?> typeSourceFactory, SourceProvider sourceProvider, Executor unitExecutor) {
+        var modelBuilder = backendFactory.create();
+        var compiler = new SimonCompilerAntlrFactory(unitExecutor).create(typeSourceFactory, modelBuilder);
+        return compiler.compile(entryPoints, sourceProvider);
+    }
+
+    /**
+     * Compiles handing over results as they complete, optionally parsing units
+     * concurrently (if an executor is given).
+     */
+    public static List<Result<EObject>> compileProjectStreaming(List<String> entryPoints,
+            MetamodelSource.Factory<?> typeSourceFactory, SourceProvider sourceProvider, Executor unitExecutor,
+            Consumer<Result<EObject>> resultConsumer) {
+        var modelBuilder = backendFactory.create();
+        var factory = unitExecutor == null ? compilerFactory : new SimonCompilerAntlrFactory(unitExecutor);
+        var compiler = factory.create(typeSourceFactory, modelBuilder);
+        return compiler.compile(entryPoints, sourceProvider, resultConsumer);
+    }
+
+    public static SimonCompiler.Session<EObject> openSession(MetamodelSource.Factory<?> typeSourceFactory) {
+        var modelBuilder = backendFactory.create();
+        return compilerFactory.create(typeSourceFactory, modelBuilder).openSession();
+    }
+
+    public static MetamodelSource.Factory<?> buildIMSourceFactory() {
+        return buildMetamodelSourceFactory(Arrays.asList(IM_PACKAGE));
+    }
+
+    /**
+     * Builds units {@code unit0} to {@code unit<units - 1>}, each declaring an
+     * entity {@code Entity<i>} in namespace {@code ns<i>}, optionally referring to
+     * the entities in the previous and next units (through relationships of the
+     * same names), and optionally importing the previous unit.
+     */
+    public static Map<String, String> buildEntityUnits(int units, boolean withImports, boolean previous,
+            boolean next) {
+        var sources = new LinkedHashMap<String, String>();
+        for (int i = 0; i < units; i++) {
+            var relationships = new ArrayList<String>();
+            if (previous && i > 0)
+                relationships.add("relationship previous { type: ns%d.Entity%d }".formatted(i - 1, i - 1));
+            if (next && i < units - 1)
+                relationships.add("relationship next { type: ns%d.Entity%d }".formatted(i + 1, i + 1));
+            sources.put("unit" + i, buildEntityUnit(i, "Entity" + i, withImports && i > 0, relationships));
+        }
+        return sources;
+    }
+
+    /**
+     * Builds a unit declaring an entity in namespace {@code ns<index>}, optionally
+     * referring to another entity through a relationship named
+     * {@code previous}, and optionally importing the previous unit.
+     */
+    public static String buildEntityUnit(int index, String entityName, String previous, boolean importPrevious) {
+        var relationships = previous == null ? List.<String> of()
+                : List.of("relationship previous { type: %s }".formatted(previous));
+        return buildEntityUnit(index, entityName, importPrevious && index > 0, relationships);
+    }
+
+    private static String buildEntityUnit(int index, String entityName, boolean importPrevious,
+            List<String> relationships) {
+        var imports = importPrevious ? "@import 'unit%d'\n".formatted(index - 1) : "";
+        var features = relationships.isEmpty() ? ""
+                : "relationships { %s }".formatted(String.join(" ", relationships));
+        return imports + """
+                @language IM
+                namespace ns%d {
+                    entities {
+                        entity %s { %s }
+                    }
+                }
+                """.formatted(index, entityName, features);
+    }
+
+    /**
+     * Finds an entity by name among the roots built from the given unit.
+     */
+    public static EObject findEntity(List<Result<EObject>> results, String unitName, String entityName) {
+        var unit = results.stream().filter(it -> unitName.equals(it.getSource())).findFirst().orElseThrow();
+        return EcoreHelper.findChildByAttributeValue(unit.getRootObject(), "name", entityName);
+    }
+
+    /**
+     * Describes the elements built by a compilation, and what they refer to, by
+     * name, so results of separate compilations can be compared.
+     */
+    public static List<String> describeModel(List<Result<EObject>> results) {
+        var description = new ArrayList<String>();
+        for (Result<EObject> result : results) {
+            for (EObject root : result.getRootObjects()) {
+                description.add(result.getSource() + ":" + getPrimitiveValue(root, "name"));
+                root.eAllContents().forEachRemaining(element -> description.add(describeElement(element)));
+            }
+        }
+        return description;
+    }
+
+    private static String describeElement(EObject element) {
+        var referenced = element.eClass().getEAllReferences().stream()
+                .filter(it -> !it.isContainment() && !it.isContainer()).map(element::eGet)
+                .map(TestHelper::describeReferenced).collect(Collectors.joining(","));
+        return element.eClass().getName() + " " + EcoreHelper.getName(element) + "[" + referenced + "]";
+    }
+
+    private static String describeReferenced(Object referenced) {
+        if (referenced instanceof List<?>)
+            return ((List<?>) referenced).stream().map(TestHelper::describeReferenced)
+                    .collect(Collectors.joining(",", "[", "]"));
+        if (referenced instanceof EObject)
+            return EcoreHelper.hierarchy((EObject) referenced).map(EcoreHelper::getName)
+                    .collect(Collectors.joining("<"));
+        return String.valueOf(referenced);
+    }
+
+    public static List<String> describeProblems(List<Result<EObject>> results) {
+        return results.stream().flatMap(it -> it.getProblems().stream()).map(Problem::toString)
+                .collect(Collectors.toList());
+    }
+
     public static EObject root(List<Result<EObject>> results) {
         return results.get(0).getRootObject();
     }
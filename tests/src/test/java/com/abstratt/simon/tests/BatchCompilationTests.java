@@ -0,0 +1,140 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildMetamodelSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.Problem.Severity;
+import com.abstratt.simon.compiler.SimonBatchCompiler;
+import com.abstratt.simon.compiler.SimonBatchCompiler.Project;
+import com.abstratt.simon.compiler.antlr.SimonCompilerAntlrFactory;
+import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
+import com.abstratt.simon.compiler.source.SourceProvider;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+/**
+ * Checks that compiling projects in a batch yields the same results as
+ * compiling them one by one.
+ */
+public class BatchCompilationTests {
+
+    private static final int PROJECTS = 16;
+
+    private SimonBatchCompiler<EObject> batchCompiler;
+
+    @AfterEach
+    void closeCompiler() {
+        if (batchCompiler != null)
+            batchCompiler.close();
+    }
+
+    @Test
+    void sameResultsAsOneByOne() {
+        batchCompiler = newBatchCompiler(2);
+        var projects = new ArrayList<Project>();
+        for (int i = 0; i < PROJECTS; i++)
+            projects.add(new Project("project" + i, List.of("unit1"), buildSourceProvider(buildSources(i))));
+        var results = batchCompiler.compile(projects);
+        assertEquals(projects.stream().map(Project::name).toList(), List.copyOf(results.keySet()));
+        for (int i = 0; i < PROJECTS; i++) {
+            var expected = compileProject(List.of("unit1"),
+                    buildMetamodelSourceFactory(Arrays.asList(TestHelper.IM_PACKAGE)),
+                    buildSourceProvider(buildSources(i)));
+            assertEquals(describeModel(expected), describeModel(ensureSuccess(results.get("project" + i))));
+        }
+    }
+
+    @Test
+    void permitsAreReleasedWhileAccessingSources() {
+        batchCompiler = newBatchCompiler(1);
+        // each project can only access its sources once the other one does
+        var accessing = new CountDownLatch(2);
+        var projects = new ArrayList<Project>();
+        for (int i = 0; i < 2; i++) {
+            var sources = buildSourceProvider(buildSources(i));
+            projects.add(new Project("project" + i, List.of("unit1"), waitingFor(accessing, sources)));
+        }
+        var results = batchCompiler.compile(projects);
+        for (int i = 0; i < 2; i++)
+            ensureSuccess(results.get("project" + i));
+    }
+
+    @Test
+    void failingProjectsDoNotAffectOthers() {
+        batchCompiler = newBatchCompiler(2);
+        SourceProvider failing = name -> {
+            throw new IllegalStateException("Unreachable: " + name);
+        };
+        var projects = List.of(new Project("project0", List.of("unit1"), buildSourceProvider(buildSources(0))),
+                new Project("failing", List.of("unit1"), failing),
+                new Project("project2", List.of("unit1"), buildSourceProvider(buildSources(2))));
+        var results = batchCompiler.compile(projects);
+        ensureSuccess(results.get("project0"));
+        ensureSuccess(results.get("project2"));
+        var failed = results.get("failing");
+        assertEquals(1, failed.size());
+        var problem = failed.get(0).getProblems().get(0);
+        assertEquals(Severity.Fatal, problem.severity());
+        assertTrue(problem.message().contains("Unreachable: unit1"), problem.message());
+    }
+
+    @Test
+    void duplicateProjectNames() {
+        batchCompiler = newBatchCompiler(1);
+        var project = new Project("project", List.of("unit1"), buildSourceProvider(buildSources(0)));
+        assertThrows(IllegalArgumentException.class, () -> batchCompiler.compile(List.of(project, project)));
+    }
+
+    private static SimonBatchCompiler<EObject> newBatchCompiler(int parsingPermits) {
+        return new SimonBatchCompiler<>(new SimonCompilerAntlrFactory(),
+                buildMetamodelSourceFactory(Arrays.asList(TestHelper.IM_PACKAGE)),
+                new EMFModelBackendFactory().create(), parsingPermits);
+    }
+
+    private static SourceProvider waitingFor(CountDownLatch accessing, SourceProvider sources) {
+        return name -> {
+            accessing.countDown();
+            try {
+                if (!accessing.await(10, TimeUnit.SECONDS))
+                    return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return sources.access(name);
+        };
+    }
+
+    private static Map<String, String> buildSources(int project) {
+        return Map.of("unit0", """
+                @language IM
+                namespace base {
+                    entities { entity Base%d { } }
+                }
+                """.formatted(project), "unit1", """
+                @import 'unit0'
+                @language IM
+                namespace app {
+                    entities {
+                        entity App%d { relationships { relationship base { type: base.Base%d } } }
+                    }
+                }
+                """.formatted(project, project));
+    }
+}
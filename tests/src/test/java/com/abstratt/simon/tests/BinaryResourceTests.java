@@ -0,0 +1,91 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildMetamodelSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.backend.ecore.SimonBinaryResource;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+/**
+ * Checks that compiled models written in the binary format are read back as
+ * they were.
+ */
+public class BinaryResourceTests {
+
+    private static final Map<String, String> SOURCES = Map.of("unit0", """
+            @language IM
+            namespace ns0 {
+                entities {
+                    entity Entity0 { relationships { relationship other { type: ns1.Entity1 } } }
+                }
+            }
+            """, "unit1", """
+            @language IM
+            namespace ns1 {
+                entities {
+                    entity Entity1 { relationships { relationship other { type: ns0.Entity0 } } }
+                }
+            }
+            """);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void savedAndLoaded() throws IOException {
+        var compiled = compile();
+        var file = directory.resolve("model.bin");
+        SimonBinaryResource.save(compiled.eResource(), file, null);
+        var loaded = new SimonBinaryResource(URI.createFileURI(file.toString()));
+        newResourceSet().getResources().add(loaded);
+        loaded.load(file, null);
+        assertEquals(describe(compiled.eResource()), describe(loaded));
+    }
+
+    @Test
+    void loadedByResourceSet() throws IOException {
+        var compiled = compile();
+        var file = directory.resolve("model.bin");
+        SimonBinaryResource.save(compiled.eResource(), file, null);
+        var loaded = newResourceSet().getResource(URI.createFileURI(file.toString()), true);
+        assertEquals(describe(compiled.eResource()), describe(loaded));
+    }
+
+    private static EObject compile() {
+        var results = ensureSuccess(compileProject(new ArrayList<>(List.of("unit0", "unit1")),
+                buildMetamodelSourceFactory(Arrays.asList(TestHelper.IM_PACKAGE)), buildSourceProvider(SOURCES)));
+        return results.get(0).getRootObject();
+    }
+
+    private static ResourceSet newResourceSet() {
+        var resourceSet = new ResourceSetImpl();
+        resourceSet.getPackageRegistry().put(TestHelper.IM_PACKAGE.getNsURI(), TestHelper.IM_PACKAGE);
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put("bin",
+                (Resource.Factory) SimonBinaryResource::new);
+        return resourceSet;
+    }
+
+    private static List<String> describe(Resource resource) {
+        return describeModel(List.of(new Result<>("model", resource.getContents(), List.of())));
+    }
+}
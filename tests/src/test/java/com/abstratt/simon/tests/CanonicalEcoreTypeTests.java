@@ -0,0 +1,42 @@
+package com.abstratt.simon.tests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.source.ecore.EPackageMetamodelSource;
+import com.abstratt.simon.examples.IM;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreObjectType;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+public class CanonicalEcoreTypeTests {
+
+    @Test
+    void oneWrapperPerClassifier() {
+        var eClass = TestHelper.imClassFor(IM.Entity.class);
+        assertSame(EcoreType.fromClassifier(eClass), EcoreType.fromClassifier(eClass));
+        var source = new EPackageMetamodelSource.Factory(TestHelper.IM_PACKAGE).build();
+        assertSame(source.resolveType("Entity", null), source.resolveType("Entity", null));
+        assertSame(EcoreType.fromClassifier(eClass), source.resolveType("Entity", null));
+    }
+
+    @Test
+    void changesCreateNewWrapper() {
+        var eClass = EcoreFactory.eINSTANCE.createEClass();
+        eClass.setName("Dynamic");
+        var before = EcoreType.fromClassifier(eClass);
+        assertInstanceOf(EcoreObjectType.class, before);
+        assertTrue(before.isInstantiable());
+        eClass.setAbstract(true);
+        var after = EcoreType.fromClassifier(eClass);
+        assertNotSame(before, after);
+        assertFalse(after.isInstantiable());
+        assertSame(after, EcoreType.fromClassifier(eClass));
+    }
+}
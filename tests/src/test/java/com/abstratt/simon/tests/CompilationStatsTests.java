@@ -0,0 +1,114 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.CompilationStats;
+import com.abstratt.simon.compiler.CompilationStats.Counter;
+import com.abstratt.simon.compiler.CompilationStats.Phase;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class CompilationStatsTests {
+
+    private static final String SOURCE = """
+            @language UI
+            application myApplication {
+              screens {
+                screen screen1 {
+                  children {
+                    button btn1 (label : 'Ok')
+                    link(label: 'Next') {
+                      targetScreen: screen2
+                    }
+                  }
+                }
+                screen screen2
+              }
+            }
+            """;
+
+    @Test
+    void counters() {
+        var results = ensureSuccess(compileProject(Arrays.asList(TestHelper.UI_PACKAGE), SOURCE));
+        var stats = results.get(0).getStats();
+        assertEquals(5, stats.getCount(Counter.ObjectsInstantiated));
+        assertEquals(2, stats.getCount(Counter.SlotsSet));
+        assertEquals(1, stats.getCount(Counter.ResolutionRequests));
+        assertEquals(1, stats.getCount(Counter.NameLookups));
+        assertEquals(SOURCE.length(), stats.getCount(Counter.CharactersRead));
+    }
+
+    @Test
+    void phases() {
+        var results = ensureSuccess(compileProject(Arrays.asList(TestHelper.UI_PACKAGE), SOURCE));
+        var stats = results.get(0).getStats();
+        for (Phase phase : Arrays.asList(Phase.SourceAccess, Phase.Parsing, Phase.Building, Phase.Resolution))
+            assertTrue(stats.getNanos(phase) > 0, phase::toString);
+        assertEquals(0, stats.getNanos(Phase.ImportDiscovery));
+        assertTrue(stats.getTotalTime().toNanos() >= stats.getNanos(Phase.Parsing));
+    }
+
+    @Test
+    void resolutionChargedToRequester() {
+        var results = ensureSuccess(compileProject(Arrays.asList(TestHelper.IM_PACKAGE), Map.of("first", """
+                @language IM
+                @import 'second'
+                namespace first {
+                    entities {
+                        entity Customer { relationships { relationship orders { type: second.Order } } }
+                    }
+                }
+                """, "second", """
+                @language IM
+                namespace second {
+                    entities {
+                        entity Order
+                    }
+                }
+                """)));
+        var first = results.stream().filter(it -> it.getSource().equals("first")).findAny().get().getStats();
+        var second = results.stream().filter(it -> it.getSource().equals("second")).findAny().get().getStats();
+        assertEquals(1, first.getCount(Counter.ResolutionRequests));
+        assertEquals(0, second.getCount(Counter.ResolutionRequests));
+        assertTrue(first.getNanos(Phase.ImportDiscovery) > 0);
+        assertTrue(first.getNanos(Phase.Resolution) > 0);
+        assertEquals(0, second.getNanos(Phase.Resolution));
+        var total = CompilationStats.total(results);
+        assertEquals(first.getCount(Counter.ObjectsInstantiated) + second.getCount(Counter.ObjectsInstantiated),
+                total.getCount(Counter.ObjectsInstantiated));
+    }
+
+    @Test
+    void flightRecorderEvents() throws Exception {
+        var recordingFile = Files.createTempFile("compilation-stats", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable("com.abstratt.simon.CompilationStats");
+            recording.start();
+            ensureSuccess(compileProject(Arrays.asList(TestHelper.UI_PACKAGE), SOURCE));
+            recording.stop();
+            recording.dump(recordingFile);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+            var event = events.stream()
+                    .filter(it -> it.getEventType().getName().equals("com.abstratt.simon.CompilationStats"))
+                    .findAny().orElseThrow();
+            assertEquals("source0", event.getString("source"));
+            assertEquals(5, event.getLong("objectsInstantiated"));
+            assertTrue(event.getDuration("parsing").toNanos() > 0);
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class CompilerEventsTests {
+
+    private static final List<String> EVENTS = Arrays.asList("com.abstratt.simon.NameResolution",
+            "com.abstratt.simon.ObjectInstantiation", "com.abstratt.simon.UnitParse",
+            "com.abstratt.simon.MetamodelSourceBuild");
+
+    @Test
+    void events() throws Exception {
+        var events = record(() -> ensureSuccess(compileProject(Arrays.asList(TestHelper.IM_PACKAGE), Map.of("first", """
+                @language IM
+                @import 'second'
+                namespace first {
+                    entities {
+                        entity Customer { relationships { relationship orders { type: second.Order } } }
+                        entity Account { relationships { relationship owner { type: Customer } } }
+                    }
+                }
+                """, "second", """
+                @language IM
+                namespace second {
+                    entities {
+                        entity Order
+                    }
+                }
+                """))));
+        // the metamodel itself may be compiled from sources too
+        var lookups = events.get("com.abstratt.simon.NameResolution").stream()
+                .filter(it -> it.getString("source").equals("first"))
+                .collect(Collectors.toMap(it -> it.getString("name"), it -> it));
+        assertEquals(2, lookups.size());
+        var local = lookups.get("Customer");
+        assertTrue(local.getBoolean("resolved"));
+        assertFalse(local.getBoolean("globalFallback"));
+        assertTrue(local.getInt("hops") > 0);
+        assertEquals("first", local.getString("source"));
+        assertEquals(6, local.getInt("line"));
+        var imported = lookups.get("second.Order");
+        assertTrue(imported.getBoolean("resolved"));
+        assertTrue(imported.getBoolean("globalFallback"));
+        assertTrue(imported.getInt("hops") > local.getInt("hops"));
+
+        var instantiations = events.get("com.abstratt.simon.ObjectInstantiation").stream()
+                .filter(it -> List.of("first", "second").contains(it.getString("source")))
+                .collect(Collectors.toList());
+        assertEquals(7, instantiations.size());
+        assertEquals(3, instantiations.stream().filter(it -> it.getString("type").equals("Entity")).count());
+
+        var parses = events.get("com.abstratt.simon.UnitParse").stream()
+                .filter(it -> List.of("first", "second").contains(it.getString("source")))
+                .collect(Collectors.toMap(it -> it.getString("source"), it -> it));
+        assertEquals(2, parses.get("first").getLong("resolutionRequests"));
+        assertEquals(0, parses.get("second").getLong("resolutionRequests"));
+        assertTrue(parses.get("second").getLong("characters") > 0);
+
+        assertFalse(events.get("com.abstratt.simon.MetamodelSourceBuild").isEmpty());
+    }
+
+    @Test
+    void disabledByDefault() throws Exception {
+        var recordingFile = Files.createTempFile("compiler-events", ".jfr");
+        try (var recording = new Recording()) {
+            recording.start();
+            ensureSuccess(compileProject(Arrays.asList(TestHelper.IM_PACKAGE), """
+                    @language IM
+                    namespace first {
+                        entities {
+                            entity Customer
+                        }
+                    }
+                    """));
+            recording.stop();
+            recording.dump(recordingFile);
+            assertTrue(RecordingFile.readAllEvents(recordingFile).stream()
+                    .noneMatch(it -> EVENTS.contains(it.getEventType().getName())));
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
+    private static Map<String, List<RecordedEvent>> record(Runnable compilation) throws Exception {
+        var recordingFile = Files.createTempFile("compiler-events", ".jfr");
+        try (var recording = new Recording()) {
+            EVENTS.forEach(recording::enable);
+            recording.start();
+            compilation.run();
+            recording.stop();
+            recording.dump(recordingFile);
+            var events = RecordingFile.readAllEvents(recordingFile).stream()
+                    .filter(it -> EVENTS.contains(it.getEventType().getName()))
+                    .collect(Collectors.groupingBy(it -> it.getEventType().getName()));
+            EVENTS.forEach(it -> events.putIfAbsent(it, List.of()));
+            return events;
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+}
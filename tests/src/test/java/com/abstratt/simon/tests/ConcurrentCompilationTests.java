@@ -0,0 +1,203 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.findChildByAttributeValue;
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.getValue;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildEntityUnits;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildIMSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProjectConcurrently;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeProblems;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.CompilationStats;
+import com.abstratt.simon.compiler.CompilationStats.Counter;
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.antlr.SimonCompilerAntlrFactory;
+import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
+
+/**
+ * Checks that parsing units (and looking up names) concurrently, or running
+ * compilations concurrently, yields the same results as doing so sequentially.
+ */
+public class ConcurrentCompilationTests {
+
+    private static final int UNITS = 24;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sameResultsAsSequential() {
+        var sources = buildEntityUnits(UNITS, false, true, false);
+        var entryPoints = new ArrayList<>(sources.keySet());
+        var sequential = ensureSuccess(compile(entryPoints, sources, false));
+        var concurrent = ensureSuccess(compile(entryPoints, sources, true));
+        assertEquals(describeModel(sequential), describeModel(concurrent));
+        var resource = concurrent.get(0).getRootObject().eResource();
+        var expectedRoots = concurrent.stream().map(Result::getRootObject).collect(Collectors.toList());
+        assertEquals(expectedRoots, resource.getContents());
+    }
+
+    @Test
+    void crossUnitReferences() {
+        var sources = buildEntityUnits(UNITS, false, true, false);
+        var results = ensureSuccess(compile(new ArrayList<>(sources.keySet()), sources, true));
+        for (int i = 1; i < UNITS; i++) {
+            var namespace = results.get(i).getRootObject();
+            var entity = findChildByAttributeValue(namespace, "name", "Entity" + i);
+            var relationship = findChildByAttributeValue(entity, "name", "previous");
+            var previousNamespace = results.get(i - 1).getRootObject();
+            var previousEntity = findChildByAttributeValue(previousNamespace, "name", "Entity" + (i - 1));
+            assertSame(previousEntity, getValue(relationship, "type"));
+        }
+    }
+
+    @Test
+    void importWaves() {
+        var sources = buildEntityUnits(UNITS, true, true, false);
+        var entryPoints = Arrays.asList("unit" + (UNITS - 1));
+        var sequential = ensureSuccess(compile(entryPoints, sources, false));
+        var concurrent = ensureSuccess(compile(entryPoints, sources, true));
+        assertEquals(UNITS, concurrent.size());
+        assertEquals(describeModel(sequential), describeModel(concurrent));
+    }
+
+    @Test
+    void sameProblemsAsSequential() {
+        var sources = new LinkedHashMap<String, String>();
+        for (int i = 0; i < UNITS; i++)
+            sources.put("unit" + i, """
+                    @language IM
+                    namespace ns%d {
+                        entities {
+                            entity Entity%d {
+                                relationships {
+                                    relationship missing { type: Unknown%d }
+                                }
+                            }
+                        }
+                    }
+                    """.formatted(i, i, i));
+        var entryPoints = new ArrayList<>(sources.keySet());
+        var sequential = compile(entryPoints, sources, false);
+        var concurrent = compile(entryPoints, sources, true);
+        assertEquals(describeProblems(sequential), describeProblems(concurrent));
+        assertEquals(UNITS, describeProblems(concurrent).size());
+    }
+
+    @Test
+    void manyReferences() {
+        var sources = new LinkedHashMap<String, String>();
+        for (int i = 0; i < UNITS; i++) {
+            var entities = new StringBuilder();
+            for (int j = 0; j < 40; j++) {
+                // local, cross-unit and unresolved names
+                var target = switch (j % 3) {
+                case 0 -> "Entity%d_%d".formatted(i, (j + 1) % 40);
+                case 1 -> "ns%d.Entity%d_%d".formatted((i + 1) % UNITS, (i + 1) % UNITS, j);
+                default -> "Missing" + j;
+                };
+                entities.append("entity Entity%d_%d { relationships { relationship other { type: %s } } }\n"
+                        .formatted(i, j, target));
+            }
+            sources.put("unit" + i, """
+                    @language IM
+                    namespace ns%d {
+                        entities {
+                            %s
+                        }
+                    }
+                    """.formatted(i, entities));
+        }
+        var entryPoints = new ArrayList<>(sources.keySet());
+        var sequential = compile(entryPoints, sources, false);
+        var concurrent = compile(entryPoints, sources, true);
+        assertEquals(describeModel(sequential), describeModel(concurrent));
+        assertEquals(describeProblems(sequential), describeProblems(concurrent));
+        assertEquals(UNITS * 13, describeProblems(concurrent).size());
+        assertEquals(CompilationStats.total(sequential).getCount(Counter.NameLookups),
+                CompilationStats.total(concurrent).getCount(Counter.NameLookups));
+    }
+
+    @Test
+    void compilationsShareCompiler() {
+        var sources = buildEntityUnits(UNITS, true, true, false);
+        var compilations = 8;
+        var expected = new ArrayList<List<String>>();
+        for (int i = 0; i < compilations; i++)
+            expected.add(describeModel(ensureSuccess(compile(List.of("unit" + (UNITS - 1 - i)), sources, false))));
+        // one compiler and one backend, with compilations also parsing units concurrently
+        var compiler = new SimonCompilerAntlrFactory(executor).create(buildIMSourceFactory(),
+                new EMFModelBackendFactory().create());
+        var compilers = Executors.newFixedThreadPool(compilations);
+        try {
+            var running = new ArrayList<CompletableFuture<List<Result<EObject>>>>();
+            for (int i = 0; i < compilations; i++) {
+                var entryPoints = List.of("unit" + (UNITS - 1 - i));
+                running.add(CompletableFuture.supplyAsync(
+                        () -> compiler.compile(entryPoints, buildSourceProvider(sources)), compilers));
+            }
+            for (int i = 0; i < compilations; i++)
+                assertEquals(expected.get(i), describeModel(ensureSuccess(running.get(i).join())));
+        } finally {
+            compilers.shutdownNow();
+        }
+    }
+
+    @Test
+    void directBackendOperationsDoNotShareRoots() {
+        var sources = buildEntityUnits(UNITS, false, true, false);
+        var results = ensureSuccess(compile(List.of("unit0", "unit1"), sources, false));
+        var first = results.get(0).getRootObject();
+        var second = results.get(1).getRootObject();
+        var backend = new EMFModelBackendFactory().create();
+        assertSame(findChildByAttributeValue(first, "name", "Entity0"), backend.runOperation(() -> {
+            backend.adoption().adopt(first);
+            backend.adoption().adopt(second);
+            return backend.nameResolution().resolve(second, "ns0", "Entity0");
+        }));
+        // roots of the previous operation are gone
+        assertNull(backend.runOperation(() -> {
+            backend.adoption().adopt(second);
+            return backend.nameResolution().resolve(second, "ns0", "Entity0");
+        }));
+    }
+
+    private List<Result<EObject>> compile(List<String> entryPoints, Map<String, String> sources,
+            boolean concurrently) {
+        var typeSourceFactory = buildIMSourceFactory();
+        var sourceProvider = buildSourceProvider(sources);
+        return concurrently
+                ? compileProjectConcurrently(entryPoints, typeSourceFactory, sourceProvider, executor)
+                : compileProject(entryPoints, typeSourceFactory, sourceProvider);
+    }
+}
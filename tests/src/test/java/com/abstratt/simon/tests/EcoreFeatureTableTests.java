@@ -0,0 +1,78 @@
+package com.abstratt.simon.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.examples.IM;
+import com.abstratt.simon.metamodel.Metamodel.Named;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreObjectType;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+public class EcoreFeatureTableTests {
+
+    @Test
+    void lookupsByName() {
+        var entity = new EcoreObjectType(TestHelper.imClassFor(IM.Entity.class));
+        for (var slot : entity.slots())
+            assertSame(slot, entity.slotByName(slot.name()));
+        for (var composition : entity.compositions())
+            assertSame(composition, entity.compositionByName(composition.name()));
+        for (var reference : entity.references())
+            assertSame(reference, entity.referenceByName(reference.name()));
+        for (var feature : entity.features())
+            assertSame(feature, entity.featureByName(feature.name()));
+        assertEquals("relationships", entity.compositionByName("relationships").name());
+        assertEquals("superTypes", entity.referenceByName("superTypes").name());
+        assertNull(entity.compositionByName("superTypes"));
+        assertNull(entity.slotByName("missing"));
+    }
+
+    @Test
+    void sharedAcrossWrappers() {
+        var eClass = TestHelper.imClassFor(IM.Entity.class);
+        assertSame(new EcoreObjectType(eClass).slots(), new EcoreObjectType(eClass).slots());
+        assertSame(new EcoreObjectType(eClass).slotByName("name"), new EcoreObjectType(eClass).slotByName("name"));
+    }
+
+    @Test
+    void reflectsChanges() {
+        var superClass = newClass("Super", "a");
+        var subClass = newClass("Sub", "b");
+        subClass.getESuperTypes().add(superClass);
+        var type = new EcoreObjectType(subClass);
+        assertEquals(List.of("a", "b"), names(type.slots()));
+        superClass.getEStructuralFeatures().add(newAttribute("c"));
+        assertEquals(List.of("a", "c", "b"), names(type.slots()));
+        assertNotNull(type.slotByName("c"));
+    }
+
+    private static EClass newClass(String name, String attributeName) {
+        var eClass = EcoreFactory.eINSTANCE.createEClass();
+        eClass.setName(name);
+        eClass.getEStructuralFeatures().add(newAttribute(attributeName));
+        return eClass;
+    }
+
+    private static EAttribute newAttribute(String name) {
+        var attribute = EcoreFactory.eINSTANCE.createEAttribute();
+        attribute.setName(name);
+        attribute.setEType(EcorePackage.Literals.ESTRING);
+        return attribute;
+    }
+
+    private static List<String> names(Collection<? extends Named> named) {
+        return named.stream().map(Named::name).collect(Collectors.toList());
+    }
+}
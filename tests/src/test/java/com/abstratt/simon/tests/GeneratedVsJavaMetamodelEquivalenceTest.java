@@ -0,0 +1,142 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.compiler.source.annotated.AnnotatedJava2EcoreMapper;
+import com.abstratt.simon.compiler.source.annotated.AnnotatedJavaMetamodelSource;
+import com.abstratt.simon.examples.JavaExampleLanguages;
+import com.abstratt.simon.tooling.SimonDSLProcessor;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+
+/**
+ * Checks that the metamodels built by the classes the annotation processor
+ * generates are the same as those mapped from the compiled example classes.
+ */
+class GeneratedVsJavaMetamodelEquivalenceTest extends AbstractMetamodelEquivalenceTest {
+
+    private static final Path EXAMPLE_SOURCES = Path.of("../example-languages/src/main/java",
+            JavaExampleLanguages.class.getPackageName().replace('.', '/'));
+
+    private ClassLoader generated;
+
+    @BeforeAll
+    void generate() throws IOException {
+        List<JavaFileObject> sources;
+        try (var files = Files.list(EXAMPLE_SOURCES)) {
+            sources = files.map(it -> {
+                try {
+                    return JavaFileObjects.forResource(it.toUri().toURL());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toList();
+        }
+        var compilation = Compiler.javac().withProcessors(new SimonDSLProcessor())
+                .withOptions("-A" + SimonDSLProcessor.GENERATE_METAMODELS + "=true").compile(sources);
+        assertEquals(Compilation.Status.SUCCESS, compilation.status(), () -> compilation.diagnostics().toString());
+        generated = new GeneratedClassLoader(compilation);
+    }
+
+    @Override
+    protected Stream<String> packageNames() {
+        return Stream.concat(super.packageNames(), Stream.of("Simon"));
+    }
+
+    @Override
+    protected EPackage expected(String packageName) {
+        try {
+            return new AnnotatedJava2EcoreMapper().map(Class.forName(qualify(packageName)));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected EPackage actual(String packageName) {
+        try {
+            return (EPackage) generated.loadClass(qualify(packageName) + "Metamodel").getMethod("build")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void sameModelAsOriginal() throws ReflectiveOperationException {
+        var sources = Map.of("app", """
+                @language UI
+                application myApplication {
+                    screens {
+                      screen screen1 {
+                        children {
+                          link {
+                              targetScreen: myApplication.screen2
+                          }
+                        }
+                      }
+                      screen screen2 {}
+                    }
+                }
+                """);
+        var generatedFactory = (MetamodelSource.Factory<?>) generated.loadClass(qualify("UI") + "Metamodel$Factory")
+                .getConstructor().newInstance();
+        var expected = ensureSuccess(compileProject(List.of("app"),
+                new AnnotatedJavaMetamodelSource.Factory(JavaExampleLanguages.class.getPackageName()),
+                buildSourceProvider(sources)));
+        var actual = ensureSuccess(compileProject(List.of("app"), generatedFactory, buildSourceProvider(sources)));
+        assertEquals(describeModel(expected), describeModel(actual));
+    }
+
+    private static String qualify(String packageName) {
+        return JavaExampleLanguages.class.getPackageName() + "." + packageName;
+    }
+
+    /**
+     * Loads the generated classes out of the compilation, and everything else
+     * from the test class path.
+     */
+    private static class GeneratedClassLoader extends ClassLoader {
+        private final Compilation compilation;
+
+        GeneratedClassLoader(Compilation compilation) {
+            super(GeneratedVsJavaMetamodelEquivalenceTest.class.getClassLoader());
+            this.compilation = compilation;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            var classFile = compilation.generatedFile(StandardLocation.CLASS_OUTPUT,
+                    name.replace('.', '/') + ".class");
+            if (classFile.isEmpty())
+                throw new ClassNotFoundException(name);
+            try (var contents = classFile.get().openInputStream()) {
+                var bytes = contents.readAllBytes();
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.findChildByAttributeValue;
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.getValue;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildEntityUnit;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildIMSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeProblems;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static com.abstratt.simon.tests.fixtures.TestHelper.findEntity;
+import static com.abstratt.simon.tests.fixtures.TestHelper.openSession;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.SimonCompiler;
+import com.abstratt.simon.compiler.antlr.SimonCompilerAntlrFactory;
+import com.abstratt.simon.compiler.backend.Backend;
+import com.abstratt.simon.compiler.backend.Completion;
+import com.abstratt.simon.compiler.backend.Declaration;
+import com.abstratt.simon.compiler.backend.Documenting;
+import com.abstratt.simon.compiler.backend.Instantiation;
+import com.abstratt.simon.compiler.backend.Linking;
+import com.abstratt.simon.compiler.backend.NameQuerying;
+import com.abstratt.simon.compiler.backend.NameResolution;
+import com.abstratt.simon.compiler.backend.NameSetting;
+import com.abstratt.simon.compiler.backend.Operation;
+import com.abstratt.simon.compiler.backend.Parenting;
+import com.abstratt.simon.compiler.backend.ValueSetting;
+import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
+import com.abstratt.simon.metamodel.Metamodel;
+
+/**
+ * Checks that compiling again in a session reuses unchanged units, and yields
+ * the same results as compiling from scratch.
+ */
+public class IncrementalSessionTests {
+
+    private static final int UNITS = 4;
+
+    private SimonCompiler.Session<EObject> session;
+
+    private Map<String, String> sources;
+
+    @BeforeEach
+    void openNewSession() {
+        session = openSession(buildIMSourceFactory());
+        sources = new LinkedHashMap<>();
+        for (int i = 0; i < UNITS; i++)
+            sources.put("unit" + i,
+                    buildEntityUnit(i, "Entity" + i, i > 0 ? "ns%d.Entity%d".formatted(i - 1, i - 1) : null, false));
+    }
+
+    @AfterEach
+    void closeSession() {
+        session.close();
+    }
+
+    @Test
+    void unchangedUnitsAreReused() {
+        var first = ensureSuccess(compile());
+        var second = ensureSuccess(compile());
+        for (int i = 0; i < UNITS; i++)
+            assertSame(first.get(i).getRootObject(), second.get(i).getRootObject());
+        assertEquals(describeModel(first), describeModel(second));
+        assertEquals(second.stream().map(Result::getRootObject).toList(),
+                second.get(0).getRootObject().eResource().getContents());
+    }
+
+    @Test
+    void onlyChangedUnitsAreParsed() {
+        var first = ensureSuccess(compile());
+        sources.put("unit1", buildEntityUnit(1, "Entity1", "ns0.Entity0", false) + "\n");
+        var second = ensureSuccess(compile());
+        assertSame(first.get(0).getRootObject(), second.get(0).getRootObject());
+        assertNotSame(first.get(1).getRootObject(), second.get(1).getRootObject());
+        assertSame(first.get(2).getRootObject(), second.get(2).getRootObject());
+        assertEquals(describeModel(compileFromScratch()), describeModel(second));
+    }
+
+    @Test
+    void referencesToChangedUnitsAreResolvedAgain() {
+        compile();
+        sources.put("unit1", buildEntityUnit(1, "Entity1", "ns0.Entity0", false) + "\n");
+        var results = ensureSuccess(compile());
+        var relationship = findChildByAttributeValue(findEntity(results, "unit2", "Entity2"), "name", "previous");
+        assertSame(findEntity(results, "unit1", "Entity1"), getValue(relationship, "type"));
+        assertEquals(describeModel(compileFromScratch()), describeModel(results));
+    }
+
+    @Test
+    void brokenReferencesAreReported() {
+        ensureSuccess(compile());
+        sources.put("unit1", buildEntityUnit(1, "Renamed", "ns0.Entity0", false));
+        var broken = compile();
+        assertEquals(describeProblems(compileFromScratch()), describeProblems(broken));
+        assertEquals(1, describeProblems(broken).size());
+        sources.put("unit1", buildEntityUnit(1, "Entity1", "ns0.Entity0", false));
+        var fixed = ensureSuccess(compile());
+        assertEquals(describeModel(compileFromScratch()), describeModel(fixed));
+    }
+
+    @Test
+    void importsOfUnchangedUnitsAreFollowed() {
+        for (int i = 1; i < UNITS; i++)
+            sources.put("unit" + i, "@import 'unit%d'\n".formatted(i - 1) + sources.get("unit" + i));
+        var entryPoints = List.of("unit" + (UNITS - 1));
+        var first = ensureSuccess(session.compile(entryPoints, buildSourceProvider(sources)));
+        var second = ensureSuccess(session.compile(entryPoints, buildSourceProvider(sources)));
+        assertEquals(UNITS, second.size());
+        assertEquals(describeModel(first), describeModel(second));
+    }
+
+    @Test
+    void removedUnitsAreDropped() {
+        compile();
+        sources.remove("unit0");
+        var results = compile();
+        assertEquals(describeProblems(compileFromScratch()), describeProblems(results));
+        assertEquals(UNITS - 1, results.size());
+    }
+
+    @Test
+    void unitsAreParsedAgainWithoutAdoption() {
+        session.close();
+        session = new SimonCompilerAntlrFactory()
+                .create(buildIMSourceFactory(),
+                        new NonAdoptingBackend<>(new EMFModelBackendFactory().create()))
+                .openSession();
+        var first = ensureSuccess(compile());
+        var second = ensureSuccess(compile());
+        for (int i = 0; i < UNITS; i++)
+            assertNotSame(first.get(i).getRootObject(), second.get(i).getRootObject());
+        assertEquals(describeModel(compileFromScratch()), describeModel(second));
+    }
+
+    @Test
+    void closedSession() {
+        session.close();
+        assertThrows(IllegalStateException.class, this::compile);
+    }
+
+    private List<Result<EObject>> compile() {
+        return session.compile(List.copyOf(sources.keySet()), buildSourceProvider(Map.copyOf(sources)));
+    }
+
+    private List<Result<EObject>> compileFromScratch() {
+        return compileProject(List.copyOf(sources.keySet()),
+                buildIMSourceFactory(), buildSourceProvider(sources));
+    }
+
+    /**
+     * A backend that cannot carry objects over from one compilation to the next.
+     */
+    private static class NonAdoptingBackend<O extends Metamodel.ObjectType, S extends Metamodel.Slotted, M>
+            implements Backend<O, S, M> {
+        private final Backend<O, S, M> backend;
+
+        NonAdoptingBackend(Backend<O, S, M> backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public NameSetting<M> nameSetting() {
+            return backend.nameSetting();
+        }
+
+        @Override
+        public Documenting<M> documenting() {
+            return backend.documenting();
+        }
+
+        @Override
+        public NameQuerying<M> nameQuerying() {
+            return backend.nameQuerying();
+        }
+
+        @Override
+        public NameResolution<M> nameResolution() {
+            return backend.nameResolution();
+        }
+
+        @Override
+        public <S1 extends S> Instantiation<S1> instantiation() {
+            return backend.instantiation();
+        }
+
+        @Override
+        public <P extends Metamodel.Primitive> Declaration<P> declaration() {
+            return backend.declaration();
+        }
+
+        @Override
+        public <L extends Metamodel.Slot> ValueSetting<M, L> valueSetting() {
+            return backend.valueSetting();
+        }
+
+        @Override
+        public <F extends Metamodel.Reference> Linking<M, F> linking() {
+            return backend.linking();
+        }
+
+        @Override
+        public <C extends Metamodel.Composition> Parenting<M, C> parenting() {
+            return backend.parenting();
+        }
+
+        @Override
+        public Completion<M> completion() {
+            return backend.completion();
+        }
+
+        @Override
+        public Backend<O, S, M> forCompilation() {
+            return new NonAdoptingBackend<>(backend.forCompilation());
+        }
+
+        @Override
+        public <R> R runOperation(Operation<R> operation) {
+            return backend.runOperation(operation);
+        }
+    }
+}
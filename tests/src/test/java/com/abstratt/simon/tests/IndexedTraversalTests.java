@@ -0,0 +1,70 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.findChildByAttributeValue;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.backend.ecore.EObjectSymbolIndex;
+import com.abstratt.simon.compiler.backend.ecore.EObjectTraversalProvider;
+import com.abstratt.simon.compiler.backend.ecore.IndexedEObjectTraversalProvider;
+import com.abstratt.simon.genutils.Traversal;
+import com.abstratt.simon.metamodel.ecore.impl.MetaEcoreHelper;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+/**
+ * Runs {@link TraversalTests} against a provider backed by an
+ * {@link EObjectSymbolIndex}, which must answer exactly as the scanning one.
+ */
+public class IndexedTraversalTests extends TraversalTests {
+
+    @Override
+    protected Traversal.Provider<EObject, EAttribute> provider() {
+        return new IndexedEObjectTraversalProvider(EObjectSymbolIndex.build(application.eResource(), nameAttribute));
+    }
+
+    @Test
+    void searchingRootsSkipsPartialMatches() {
+        String[] toParse = { """
+                @language IM
+                namespace first {
+                    entities {
+                        entity Shared
+                    }
+                }
+                namespace second {
+                    entities {
+                        entity Shared {
+                            relationships {
+                                relationship target
+                            }
+                        }
+                    }
+                }
+                namespace third
+                """ };
+        var roots = ensureSuccess(compileProject(Arrays.asList(TestHelper.IM_PACKAGE), toParse)).get(0)
+                .getRootObjects();
+        var second = roots.get(1);
+        var third = roots.get(2);
+        var attribute = MetaEcoreHelper.getNameAttribute(third);
+        var expected = findChildByAttributeValue(findChildByAttributeValue(second, "name", "Shared"), "name",
+                "target");
+        assertNotNull(expected);
+        var index = EObjectSymbolIndex.build(third.eResource(), attribute);
+        Object[] path = { "elsewhere", "Shared", "target" };
+        var indexed = new IndexedEObjectTraversalProvider(index).search(attribute, path).hop(third);
+        var scanned = EObjectTraversalProvider.INSTANCE.search(attribute, path).hop(third);
+        assertSame(expected, scanned);
+        assertSame(expected, indexed);
+        assertNull(new IndexedEObjectTraversalProvider(index).search(attribute, "elsewhere", "missing").hop(third));
+    }
+}
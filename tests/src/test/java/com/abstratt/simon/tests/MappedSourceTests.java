@@ -0,0 +1,147 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildMetamodelSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static com.abstratt.simon.tests.fixtures.TestHelper.openSession;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.abstratt.simon.compiler.CompilationStats.Counter;
+import com.abstratt.simon.compiler.Problem;
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.antlr.SimonCompilerAntlrFactory;
+import com.abstratt.simon.compiler.antlr.impl.UnitCache;
+import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
+import com.abstratt.simon.compiler.source.ContentProviderSourceProvider;
+import com.abstratt.simon.compiler.source.FileContentProvider;
+import com.abstratt.simon.compiler.source.MetamodelSourceCache;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+/**
+ * Checks that sources read from files mapped into memory compile as the same
+ * sources read through a reader.
+ */
+public class MappedSourceTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sameModelAsRead() throws IOException {
+        var source = buildSource(500, "");
+        var mapped = compileMapped(source);
+        var read = ensureSuccess(compileRead(source));
+        assertEquals(describeModel(read), describeModel(ensureSuccess(mapped)));
+        assertEquals(source.codePointCount(0, source.length()),
+                mapped.get(0).getStats().getCount(Counter.CharactersRead));
+    }
+
+    @Test
+    void sameProblemsAsRead() throws IOException {
+        var source = buildSource(50, "screen broken { children { button b (label: 'Ü ✓ 😀') ) } }");
+        var mapped = compileMapped(source).get(0).getProblems();
+        assertFalse(mapped.isEmpty());
+        assertEquals(describeProblems(compileRead(source).get(0).getProblems()), describeProblems(mapped));
+    }
+
+    /**
+     * Files are fingerprinted, and parsed, as mapped, whether units are cached or
+     * compiled in a session.
+     */
+    @Test
+    void fingerprintedAsMapped() throws IOException {
+        Files.writeString(directory.resolve("unit0.simon"), """
+                @language IM
+                namespace ns0 { entities { entity Entity0 { } } }
+                """);
+        Files.writeString(directory.resolve("app.simon"), """
+                @import 'unit0'
+                @language IM
+                namespace app {
+                    entities {
+                        entity App { relationships { relationship used { type: ns0.Entity0 } } }
+                    }
+                }
+                """);
+        var sources = new ContentProviderSourceProvider(
+                Map.of("unit0", new UnreadableFile(directory.resolve("unit0.simon")), "app",
+                        new UnreadableFile(directory.resolve("app.simon"))));
+        var unitCache = new UnitCache<EObject>();
+        var metamodelCache = new MetamodelSourceCache();
+        try {
+            for (int i = 0; i < 2; i++) {
+                var compiler = new SimonCompilerAntlrFactory(null, unitCache).create(
+                        metamodelCache.cached(buildMetamodelSourceFactory(List.of(TestHelper.IM_PACKAGE))),
+                        new EMFModelBackendFactory().create());
+                ensureSuccess(compiler.compile(List.of("app"), sources));
+            }
+            assertEquals(1, unitCache.getHits());
+        } finally {
+            metamodelCache.invalidateAll();
+        }
+        try (var session = openSession(buildMetamodelSourceFactory(List.of(TestHelper.IM_PACKAGE)))) {
+            ensureSuccess(session.compile(List.of("app"), sources));
+            ensureSuccess(session.compile(List.of("app"), sources));
+        }
+    }
+
+    /**
+     * A file that can only be mapped.
+     */
+    private static class UnreadableFile extends FileContentProvider {
+        UnreadableFile(Path path) {
+            super(path);
+        }
+
+        @Override
+        public Reader getContents() throws IOException {
+            throw new IOException("Read instead of mapped: " + getPath());
+        }
+    }
+
+    private List<Result<EObject>> compileMapped(String source) throws IOException {
+        var file = directory.resolve("app.simon");
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+        var sources = new ContentProviderSourceProvider(Map.of("app", new FileContentProvider(file)));
+        return compileProject(List.of("app"), buildMetamodelSourceFactory(List.of(TestHelper.UI_PACKAGE)), sources);
+    }
+
+    private static List<Result<EObject>> compileRead(String source) {
+        return compileProject(List.of("app"), buildMetamodelSourceFactory(List.of(TestHelper.UI_PACKAGE)),
+                buildSourceProvider(Map.of("app", source)));
+    }
+
+    private static List<String> describeProblems(List<Problem> problems) {
+        return problems.stream().map(it -> it.line() + ":" + it.column() + " " + it.message())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * An application with the given number of screens, labelled with characters
+     * encoded in one to four bytes.
+     */
+    private static String buildSource(int screens, String trailer) {
+        var source = new StringBuilder("@language UI\napplication myApplication {\n  screens {\n");
+        for (int i = 0; i < screens; i++)
+            source.append("    screen screen%d { children { button button%d (label: 'Olá ✓ 😀 %d') } }\n"
+                    .formatted(i, i, i));
+        source.append("    ").append(trailer).append("\n  }\n}\n");
+        return source.toString();
+    }
+}
@@ -0,0 +1,212 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static com.abstratt.simon.tests.fixtures.TestHelper.openSession;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.eclipse.emf.ecore.EClassifier;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.compiler.source.MetamodelSourceCache;
+import com.abstratt.simon.compiler.source.SourceProvider;
+import com.abstratt.simon.compiler.source.annotated.AnnotatedJavaMetamodelSource;
+import com.abstratt.simon.compiler.source.ecore.EPackageMetamodelSource;
+import com.abstratt.simon.examples.IM;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+public class MetamodelSourceCacheTests {
+
+    private final MetamodelSourceCache cache = new MetamodelSourceCache();
+
+    @Test
+    void equalFactoriesShareSources() {
+        var first = cache.get(new AnnotatedJavaMetamodelSource.Factory(IM.class.getPackageName()));
+        var second = cache.get(new AnnotatedJavaMetamodelSource.Factory(IM.class.getPackageName()));
+        var entity = first.resolveType("Entity", null);
+        assertNotNull(entity);
+        assertSame(entity.wrapped(), second.resolveType("Entity", null).wrapped());
+    }
+
+    @Test
+    void buildsOnce() {
+        var factory = new CountingFactory("im");
+        cache.get(factory).close();
+        cache.get(new CountingFactory("im")).close();
+        assertEquals(1, factory.builds.get());
+        assertEquals(0, factory.closes.get());
+    }
+
+    @Test
+    void invalidate() {
+        var factory = new CountingFactory("im");
+        cache.get(factory).close();
+        cache.invalidate(factory);
+        assertEquals(1, factory.closes.get());
+        cache.get(factory).close();
+        assertEquals(2, factory.builds.get());
+        cache.invalidateAll();
+        assertEquals(2, factory.closes.get());
+    }
+
+    @Test
+    void invalidatedSourcesClosedOnceUnused() {
+        var factory = new CountingFactory("im");
+        var first = cache.get(factory);
+        var second = cache.get(factory);
+        cache.invalidate(factory);
+        first.close();
+        first.close();
+        assertEquals(0, factory.closes.get());
+        assertNotNull(second.resolveType("Entity", null));
+        second.close();
+        assertEquals(1, factory.closes.get());
+        // a fresh one from now on
+        cache.get(factory).close();
+        assertEquals(2, factory.builds.get());
+    }
+
+    @Test
+    void invalidatedDuringSession() {
+        var factory = new CountingFactory("im");
+        var sources = buildSourceProvider(Map.of("unit", """
+                @language IM
+                namespace ns {
+                    entities {
+                        entity Customer
+                    }
+                }
+                """));
+        try (var session = openSession(cache.cached(factory))) {
+            ensureSuccess(session.compile(List.of("unit"), sources));
+            cache.invalidate(factory);
+            assertEquals(0, factory.closes.get());
+            ensureSuccess(session.compile(List.of("unit"), sources));
+        }
+        assertEquals(1, factory.closes.get());
+        assertEquals(1, factory.builds.get());
+    }
+
+    @Test
+    void failedBuildsAreRetried() {
+        var factory = new CountingFactory("im");
+        factory.failNextBuild = true;
+        assertThrows(IllegalStateException.class, () -> cache.get(factory));
+        assertNotNull(cache.get(factory).resolveType("Entity", null));
+        assertEquals(2, factory.builds.get());
+    }
+
+    @Test
+    void buildsOnceWhenContended() throws Exception {
+        var factory = new CountingFactory("im");
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var start = new CountDownLatch(1);
+            var lookups = new ArrayList<Future<EcoreType<? extends EClassifier>>>();
+            for (int i = 0; i < 8; i++)
+                lookups.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(factory).resolveType("Entity", null);
+                }));
+            start.countDown();
+            for (Future<EcoreType<? extends EClassifier>> lookup : lookups)
+                assertNotNull(lookup.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, factory.builds.get());
+    }
+
+    @Test
+    void compileWithCachedSource() {
+        var factory = new CountingFactory("im");
+        var sources = buildSourceProvider(Map.of("unit", """
+                @language IM
+                namespace ns {
+                    entities {
+                        entity Customer
+                    }
+                }
+                """));
+        for (int i = 0; i < 3; i++)
+            ensureSuccess(compileProject(List.of("unit"), cache.cached(factory), sources));
+        assertEquals(1, factory.builds.get());
+        assertEquals(0, factory.closes.get());
+    }
+
+    /**
+     * Provides the IM metamodel, keeping track of how many times sources are
+     * built and closed.
+     */
+    private static class CountingFactory implements MetamodelSource.Factory<EcoreType<? extends EClassifier>> {
+        private final String key;
+        private final AtomicInteger builds = new AtomicInteger();
+        private final AtomicInteger closes = new AtomicInteger();
+        private boolean failNextBuild;
+
+        CountingFactory(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public MetamodelSource<EcoreType<? extends EClassifier>> build() {
+            builds.incrementAndGet();
+            if (failNextBuild) {
+                failNextBuild = false;
+                throw new IllegalStateException("Build failed");
+            }
+            return countClosing(new EPackageMetamodelSource.Factory(TestHelper.IM_PACKAGE).build());
+        }
+
+        private MetamodelSource<EcoreType<? extends EClassifier>> countClosing(
+                MetamodelSource<EcoreType<? extends EClassifier>> source) {
+            return new MetamodelSource<>() {
+                @Override
+                public EcoreType<? extends EClassifier> resolveType(String typeName, Set<String> languages) {
+                    return source.resolveType(typeName, languages);
+                }
+
+                @Override
+                public Stream<EcoreType<? extends EClassifier>> enumerate(Set<String> languages) {
+                    return source.enumerate(languages);
+                }
+
+                @Override
+                public SourceProvider builtInSources() {
+                    return source.builtInSources();
+                }
+
+                @Override
+                public void close() {
+                    closes.incrementAndGet();
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CountingFactory && key.equals(((CountingFactory) other).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+}
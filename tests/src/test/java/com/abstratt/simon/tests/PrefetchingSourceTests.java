@@ -0,0 +1,182 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildMetamodelSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeProblems;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.source.PrefetchingSourceProvider;
+import com.abstratt.simon.compiler.source.SourceProvider;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+/**
+ * Checks that imported sources are fetched ahead of time, and compile the same
+ * as sources fetched as they are needed.
+ */
+public class PrefetchingSourceTests {
+
+    private static final String PREFETCHER = "prefetcher";
+
+    private ExecutorService executor;
+
+    /** The threads each source was accessed from, in order. */
+    private final Map<String, List<String>> accesses = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startExecutor() {
+        executor = Executors.newSingleThreadExecutor(it -> new Thread(it, PREFETCHER));
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void importsArePrefetched() {
+        var sources = buildSources("lib0");
+        var prefetched = ensureSuccess(compile(sources));
+        assertEquals(describeModel(ensureSuccess(compileFromScratch(sources))), describeModel(prefetched));
+        assertEquals(List.of(Thread.currentThread().getName()), accesses.get("app"));
+        for (int i = 0; i < 3; i++)
+            assertEquals(List.of(PREFETCHER), accesses.get("lib" + i));
+    }
+
+    @Test
+    void missingImportsAreReported() {
+        var sources = buildSources("missing");
+        var prefetched = compile(sources);
+        assertFalse(describeProblems(prefetched).isEmpty());
+        assertEquals(describeProblems(compileFromScratch(sources)), describeProblems(prefetched));
+        assertEquals(List.of(PREFETCHER), accesses.get("missing"));
+    }
+
+    @Test
+    void builtInsAreNotPrefetched() {
+        var sources = Map.of("app", buildUnit("app", "im-primitives"));
+        ensureSuccess(compile(sources));
+        assertNull(accesses.get("im-primitives"));
+    }
+
+    @Test
+    void accessTakesPrefetchOver() throws Exception {
+        var tasks = new LinkedBlockingQueue<Runnable>();
+        var sources = new PrefetchingSourceProvider(recording(buildSourceProvider(buildSources("lib0"))), tasks::add);
+        sources.prefetch("lib1");
+        var accessing = CompletableFuture.supplyAsync(() -> sources.access("lib1"));
+        tasks.take().run();
+        assertNotNull(accessing.get(10, TimeUnit.SECONDS));
+        sources.prefetch("lib1");
+        assertNull(tasks.poll());
+        assertEquals(List.of(Thread.currentThread().getName()), accesses.get("lib1"));
+    }
+
+    @Test
+    void prefetchAfterAccess() {
+        var tasks = new LinkedBlockingQueue<Runnable>();
+        var sources = new PrefetchingSourceProvider(recording(buildSourceProvider(buildSources("lib0"))), tasks::add);
+        assertNotNull(sources.access("lib1"));
+        sources.prefetch("lib1");
+        assertNull(tasks.poll());
+        assertEquals(List.of(Thread.currentThread().getName()), accesses.get("lib1"));
+    }
+
+    @Test
+    void prefetchesRacingAccesses() throws Exception {
+        var contents = new LinkedHashMap<String, String>();
+        for (int i = 0; i < 1000; i++)
+            contents.put("unit" + i, buildUnit("unit" + i));
+        var names = new ArrayList<>(contents.keySet());
+        var sources = new PrefetchingSourceProvider(recording(buildSourceProvider(contents)), executor);
+        var start = new CountDownLatch(1);
+        var prefetching = CompletableFuture.runAsync(() -> {
+            awaitQuietly(start);
+            names.forEach(sources::prefetch);
+        });
+        var accessing = CompletableFuture.runAsync(() -> {
+            awaitQuietly(start);
+            names.forEach(name -> assertNotNull(sources.access(name), name));
+        });
+        start.countDown();
+        CompletableFuture.allOf(prefetching, accessing).get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        // each source is accessed once, either prefetched or not
+        for (String name : names)
+            assertEquals(1, accesses.get(name).size(), name);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Result<EObject>> compile(Map<String, String> sources) {
+        var recording = recording(buildSourceProvider(sources));
+        return compileProject(List.of("app"), buildMetamodelSourceFactory(Arrays.asList(TestHelper.IM_PACKAGE)),
+                new PrefetchingSourceProvider(recording, executor));
+    }
+
+    private static List<Result<EObject>> compileFromScratch(Map<String, String> sources) {
+        return compileProject(List.of("app"), buildMetamodelSourceFactory(Arrays.asList(TestHelper.IM_PACKAGE)),
+                buildSourceProvider(sources));
+    }
+
+    private SourceProvider recording(SourceProvider sources) {
+        return name -> {
+            accesses.computeIfAbsent(name, it -> new CopyOnWriteArrayList<>()).add(Thread.currentThread().getName());
+            return sources.access(name);
+        };
+    }
+
+    /**
+     * The application imports two libraries, the second of which imports the
+     * given one.
+     */
+    private static Map<String, String> buildSources(String lastImport) {
+        return Map.of("app", buildUnit("app", "lib1", "lib2"), "lib1", buildUnit("lib1"), "lib2",
+                buildUnit("lib2", lastImport), "lib0", buildUnit("lib0"));
+    }
+
+    private static String buildUnit(String name, String... imports) {
+        var unit = new StringBuilder();
+        for (String imported : imports)
+            unit.append("@import '").append(imported).append("'\n");
+        return unit.append("""
+                @language IM
+                namespace %s {
+                    entities { entity Entity { } }
+                }
+                """.formatted(name)).toString();
+    }
+}
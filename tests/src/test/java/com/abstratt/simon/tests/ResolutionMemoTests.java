@@ -0,0 +1,154 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.findChildByAttributeValue;
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.getValue;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.backend.NameResolution;
+import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
+import com.abstratt.simon.tests.fixtures.TestHelper;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Checks that lookups shared between scopes resolve the same as they would on
+ * their own, shadowed names included.
+ */
+public class ResolutionMemoTests {
+
+    private static final String SOURCE = """
+            @language IM
+            namespace ns {
+                entities {
+                    entity Order {
+                        relationships {
+                            relationship self { type: Order }
+                        }
+                    }
+                    entity Customer {
+                        relationships {
+                            relationship first { type: Order }
+                            relationship second { type: Order }
+                            relationship third { type: ns.Order }
+                        }
+                    }
+                }
+            }
+            namespace other {
+                entities {
+                    entity Order
+                    entity Customer {
+                        relationships {
+                            relationship first { type: Order }
+                            relationship second { type: ns.Order }
+                        }
+                    }
+                }
+            }
+            """;
+
+    private final NameResolution<EObject> nameResolution = new EMFModelBackendFactory().create().nameResolution();
+
+    @Test
+    void sharedScopesResolveAlike() {
+        var roots = compile();
+        var objects = new ArrayList<EObject>();
+        roots.forEach(root -> {
+            objects.add(root);
+            root.eAllContents().forEachRemaining(objects::add);
+        });
+        var paths = Arrays.asList(new String[] { "Order" }, new String[] { "Customer" }, new String[] { "first" },
+                new String[] { "self" }, new String[] { "ns", "Order" }, new String[] { "other", "Customer", "first" },
+                new String[] { "Missing" }, new String[] { "ns", "Missing" });
+        int shared = 0;
+        for (String[] path : paths) {
+            Map<EObject, List<EObject>> bySharedScope = new HashMap<>();
+            for (EObject scope : objects) {
+                var sharedScope = nameResolution.sharedScope(scope, path);
+                if (sharedScope != null)
+                    bySharedScope.computeIfAbsent(sharedScope, it -> new ArrayList<>()).add(scope);
+            }
+            for (List<EObject> scopes : bySharedScope.values()) {
+                var expected = nameResolution.resolve(scopes.get(0), path);
+                for (EObject scope : scopes)
+                    assertSame(expected, nameResolution.resolve(scope, path),
+                            () -> Arrays.toString(path) + " from " + scope);
+                shared += scopes.size() - 1;
+            }
+        }
+        assertTrue(shared > 0);
+    }
+
+    @Test
+    void scopeMatchesAreNotShared() {
+        var ns = compile().get(0);
+        var order = findChildByAttributeValue(ns, "name", "Order");
+        var self = findChildByAttributeValue(order, "name", "self");
+        // the scope itself matches
+        assertNull(nameResolution.sharedScope(order, "Order"));
+        // a child of the scope matches
+        assertNull(nameResolution.sharedScope(order, "self"));
+        assertSame(order, nameResolution.sharedScope(self, "Order"));
+        assertNull(nameResolution.sharedScope(ns, "Order"));
+    }
+
+    @Test
+    void shadowing() {
+        var roots = compile();
+        var nsOrder = findChildByAttributeValue(roots.get(0), "name", "Order");
+        var otherOrder = findChildByAttributeValue(roots.get(1), "name", "Order");
+        var nsCustomer = findChildByAttributeValue(roots.get(0), "name", "Customer");
+        var otherCustomer = findChildByAttributeValue(roots.get(1), "name", "Customer");
+        assertSame(nsOrder, typeOf(findChildByAttributeValue(nsOrder, "name", "self")));
+        for (String relationship : Arrays.asList("first", "second", "third"))
+            assertSame(nsOrder, typeOf(findChildByAttributeValue(nsCustomer, "name", relationship)));
+        assertSame(otherOrder, typeOf(findChildByAttributeValue(otherCustomer, "name", "first")));
+        assertSame(nsOrder, typeOf(findChildByAttributeValue(otherCustomer, "name", "second")));
+    }
+
+    @Test
+    void memoizedLookups() throws Exception {
+        var recordingFile = Files.createTempFile("resolution-memo", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable("com.abstratt.simon.NameResolution");
+            recording.start();
+            compile();
+            recording.stop();
+            recording.dump(recordingFile);
+            var memoized = RecordingFile.readAllEvents(recordingFile).stream()
+                    .filter(it -> it.getEventType().getName().equals("com.abstratt.simon.NameResolution"))
+                    .filter(it -> it.getString("source").equals("source0"))
+                    .filter(it -> it.getBoolean("memoized")).map(it -> it.getString("name")).toList();
+            // "Order" from the second relationship in ns.Customer
+            assertEquals(List.of("Order"), memoized);
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
+    private static EObject typeOf(EObject relationship) {
+        assertNotNull(relationship);
+        return getValue(relationship, "type");
+    }
+
+    private static List<EObject> compile() {
+        return ensureSuccess(compileProject(Arrays.asList(TestHelper.IM_PACKAGE), SOURCE)).get(0).getRootObjects();
+    }
+}
@@ -0,0 +1,116 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.compiler.source.annotated.AnnotatedJavaMetamodelSource;
+import com.abstratt.simon.compiler.source.ecore.SnapshotMetamodelSource;
+import com.abstratt.simon.examples.UI;
+import com.abstratt.simon.metamodel.ecore.EcoreMetamodel.EcoreType;
+
+/**
+ * Runs {@link AbstractMetamodelSourceTests} against a snapshot of the
+ * annotated Java example metamodels, and checks that models compiled against
+ * the snapshot are the same as when compiling against the original.
+ */
+public class SnapshotMetamodelSourceTest extends AbstractMetamodelSourceTests {
+
+    @TempDir
+    static Path directory;
+
+    private static Path snapshot;
+
+    @BeforeAll
+    static void writeSnapshot() throws IOException {
+        snapshot = directory.resolve("examples.bin");
+        try (var original = originalSourceFactory().build()) {
+            SnapshotMetamodelSource.write(original, snapshot);
+        }
+    }
+
+    @Override
+    protected EPackage uiPackage() {
+        try {
+            return SnapshotMetamodelSource.load(snapshot.toUri().toURL()).getContents().stream()
+                    .map(EPackage.class::cast).filter(it -> "UI".equals(it.getName())).findAny().orElseThrow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected MetamodelSource.Factory<?> dynamicSourceFactory() {
+        try {
+            return new SnapshotMetamodelSource.Factory(snapshot.toUri().toURL());
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void sameModelAsOriginal() {
+        var sources = Map.of("app", """
+                @language UI
+                application myApplication {
+                    screens {
+                      screen screen1 {
+                        children {
+                          link {
+                              targetScreen: myApplication.screen2
+                          }
+                        }
+                      }
+                      screen screen2 {}
+                    }
+                }
+                """);
+        var expected = ensureSuccess(compileProject(List.of("app"), originalSourceFactory(),
+                buildSourceProvider(sources)));
+        var actual = ensureSuccess(compileProject(List.of("app"), dynamicSourceFactory(),
+                buildSourceProvider(sources)));
+        assertEquals(describeModel(expected), describeModel(actual));
+    }
+
+    @Test
+    void writtenFromCommandLine() throws Exception {
+        var written = directory.resolve("snapshots").resolve("command-line.bin");
+        SnapshotMetamodelSource.main(new String[] { OriginalSourceFactory.class.getName(), written.toString() });
+        var sources = Map.of("app", "@language UI application myApplication { screens { screen screen1 {} } }");
+        var expected = ensureSuccess(compileProject(List.of("app"), originalSourceFactory(),
+                buildSourceProvider(sources)));
+        var actual = ensureSuccess(compileProject(List.of("app"),
+                new SnapshotMetamodelSource.Factory(written.toUri().toURL()), buildSourceProvider(sources)));
+        assertEquals(describeModel(expected), describeModel(actual));
+    }
+
+    private static MetamodelSource.Factory<?> originalSourceFactory() {
+        return new AnnotatedJavaMetamodelSource.Factory(UI.class.getPackageName());
+    }
+
+    /**
+     * A factory that can be named on the command line.
+     */
+    public static class OriginalSourceFactory implements MetamodelSource.Factory<EcoreType<EClassifier>> {
+        @Override
+        public MetamodelSource<EcoreType<EClassifier>> build() {
+            return new AnnotatedJavaMetamodelSource.Factory(UI.class.getPackageName()).build();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildEntityUnits;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildIMSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.SimonCompiler;
+import com.abstratt.simon.compiler.antlr.SimonCompilerAntlrFactory;
+import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
+import com.abstratt.simon.compiler.backend.ecore.SpillDirectory;
+
+/**
+ * Checks that units stored away as they are done can be loaded back into the
+ * same model a regular compilation builds.
+ */
+public class SpillingCompilationTests {
+
+    private static final int UNITS = 8;
+
+    @TempDir
+    Path spillPath;
+
+    @Test
+    void spilledOnceCompiled() throws IOException {
+        var spillDirectory = new SpillDirectory(spillPath);
+        var results = newCompiler(spillDirectory).compile(entryPoints(), buildSourceProvider(buildSources()));
+        checkSpilled(spillDirectory, ensureSuccess(results));
+    }
+
+    @Test
+    void spilledWhileStreaming() throws IOException {
+        var spillDirectory = new SpillDirectory(spillPath);
+        var handedOver = new ArrayList<Result<EObject>>();
+        var results = newCompiler(spillDirectory).compile(entryPoints(), buildSourceProvider(buildSources()),
+                result -> {
+                    // still in memory when handed over
+                    assertTrue(result.getRootObjects().stream().noneMatch(EObject::eIsProxy), result.getSource());
+                    handedOver.add(result);
+                });
+        assertEquals(UNITS, handedOver.size());
+        checkSpilled(spillDirectory, ensureSuccess(results));
+    }
+
+    /**
+     * Nothing is kept in memory for units once they have been stored, apart from
+     * where their objects went, so objects of earlier units (or proxies for them)
+     * are collectable while later units are still being compiled.
+     */
+    @Test
+    void spilledObjectsNotRetained() {
+        var units = 32;
+        var spillDirectory = new SpillDirectory(spillPath);
+        var sources = buildEntityUnits(units, false, true, false);
+        var tracked = new ArrayList<List<WeakReference<EObject>>>();
+        var retained = new int[] { -1 };
+        newCompiler(spillDirectory).compile(new ArrayList<>(sources.keySet()), buildSourceProvider(sources),
+                result -> {
+                    tracked.add(track(result));
+                    if (tracked.size() < units)
+                        return;
+                    // the units before the last couple ones are gone by now
+                    var earlier = tracked.subList(0, units - 2);
+                    retained[0] = collect(earlier);
+                });
+        assertEquals(0, retained[0]);
+    }
+
+    /**
+     * Tracks the objects of the given result and the objects they refer to.
+     */
+    private static List<WeakReference<EObject>> track(Result<EObject> result) {
+        var objects = new ArrayList<EObject>();
+        for (EObject root : result.getRootObjects()) {
+            objects.add(root);
+            root.eAllContents().forEachRemaining(objects::add);
+        }
+        var tracked = new ArrayList<WeakReference<EObject>>();
+        for (EObject object : objects) {
+            tracked.add(new WeakReference<>(object));
+            for (EReference reference : object.eClass().getEAllReferences())
+                if (!reference.isContainment() && !reference.isMany()
+                        && object.eGet(reference, false) instanceof EObject referred)
+                    tracked.add(new WeakReference<>(referred));
+        }
+        return tracked;
+    }
+
+    /**
+     * Collects garbage until none of the tracked objects are left, or giving up.
+     *
+     * @return how many tracked objects are still reachable
+     */
+    private static int collect(List<List<WeakReference<EObject>>> tracked) {
+        int retained = 0;
+        for (int attempt = 0; attempt < 20; attempt++) {
+            System.gc();
+            retained = (int) tracked.stream().flatMap(List::stream).filter(it -> it.get() != null).count();
+            if (retained == 0)
+                break;
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        return retained;
+    }
+
+    private void checkSpilled(SpillDirectory spillDirectory, List<Result<EObject>> results) throws IOException {
+        try (var files = Files.list(spillPath)) {
+            assertEquals(UNITS, files.filter(it -> it.toString().endsWith("." + SpillDirectory.EXTENSION)).count());
+        }
+        var resourceSet = spillDirectory.newResourceSet();
+        var loaded = new ArrayList<Result<EObject>>();
+        for (Result<EObject> result : results) {
+            var roots = new ArrayList<EObject>();
+            for (EObject root : result.getRootObjects()) {
+                assertTrue(root.eIsProxy(), result.getSource());
+                roots.add(EcoreUtil.resolve(root, resourceSet));
+                assertTrue(!roots.get(roots.size() - 1).eIsProxy(), ((InternalEObject) root).eProxyURI().toString());
+            }
+            loaded.add(new Result<>(result.getSource(), roots, List.of()));
+        }
+        EcoreUtil.resolveAll(resourceSet);
+        var expected = ensureSuccess(compileProject(entryPoints(), buildIMSourceFactory(),
+                buildSourceProvider(buildSources())));
+        assertEquals(describeModel(expected), describeModel(loaded));
+    }
+
+    private static SimonCompiler<EObject> newCompiler(SpillDirectory spillDirectory) {
+        var backend = new EMFModelBackendFactory(spillDirectory).create();
+        return new SimonCompilerAntlrFactory().create(buildIMSourceFactory(), backend);
+    }
+
+    private static List<String> entryPoints() {
+        return new ArrayList<>(buildSources().keySet());
+    }
+
+    private static Map<String, String> buildSources() {
+        return buildEntityUnits(UNITS, false, true, true);
+    }
+}
@@ -0,0 +1,146 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildEntityUnits;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildIMSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProjectStreaming;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeProblems;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.source.SourceProvider;
+import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
+
+/**
+ * Checks that results handed over as units complete are the same as the
+ * results of a regular compilation, and that units are handed over as soon as
+ * they are done.
+ */
+public class StreamingCompilationTests {
+
+    private static final int UNITS = 8;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sameResultsAsCompile() {
+        var sources = buildEntityUnits(UNITS, false, true, false);
+        var entryPoints = new ArrayList<>(sources.keySet());
+        var expected = ensureSuccess(compileProject(entryPoints, buildIMSourceFactory(), buildSourceProvider(sources)));
+        var handedOver = new ArrayList<Result<EObject>>();
+        var returned = compileProjectStreaming(entryPoints, buildIMSourceFactory(), buildSourceProvider(sources), null,
+                handedOver::add);
+        assertEquals(returned, handedOver);
+        assertEquals(describeModel(expected), describeModel(ensureSuccess(handedOver)));
+    }
+
+    @Test
+    void backReferencesHandedOverRightAway() {
+        var sources = buildEntityUnits(UNITS, false, true, false);
+        var accessed = new ArrayList<String>();
+        var handedOverAfter = new LinkedHashMap<String, List<String>>();
+        SourceProvider recording = source -> {
+            accessed.add(source);
+            return buildSourceProvider(sources).access(source);
+        };
+        compileProjectStreaming(new ArrayList<>(sources.keySet()), buildIMSourceFactory(), recording, null,
+                result -> handedOverAfter.put(result.getSource(), new ArrayList<>(accessed)));
+        for (int i = 0; i < UNITS; i++) {
+            var source = "unit" + i;
+            // handed over before any later unit was read
+            var accessedBefore = handedOverAfter.get(source);
+            assertNotNull(accessedBefore, source);
+            assertEquals(source, accessedBefore.get(accessedBefore.size() - 1));
+        }
+    }
+
+    @Test
+    void forwardReferencesResolvedBeforeHandingOver() {
+        var sources = buildEntityUnits(UNITS, false, false, true);
+        var handedOver = new ArrayList<Result<EObject>>();
+        compileProjectStreaming(new ArrayList<>(sources.keySet()), buildIMSourceFactory(), buildSourceProvider(sources),
+                null, result -> {
+                    // references must already be resolved when results are handed over
+                    var source = result.getSource();
+                    var index = Integer.parseInt(source.substring("unit".length()));
+                    if (index < UNITS - 1) {
+                        var entity = EcoreHelper.findChildByAttributeValue(result.getRootObject(), "name",
+                                "Entity" + index);
+                        var relationship = EcoreHelper.findChildByAttributeValue(entity, "name", "next");
+                        assertNotNull(EcoreHelper.getValue(relationship, "type"), source);
+                    }
+                    handedOver.add(result);
+                });
+        ensureSuccess(handedOver);
+        assertEquals(sources.keySet(),
+                handedOver.stream().map(Result::getSource).collect(Collectors.toCollection(LinkedHashSet::new)));
+    }
+
+    @Test
+    void concurrently() {
+        var sources = buildEntityUnits(UNITS, true, true, false);
+        var entryPoints = Arrays.asList("unit" + (UNITS - 1));
+        var expected = ensureSuccess(compileProject(entryPoints, buildIMSourceFactory(), buildSourceProvider(sources)));
+        var handedOver = new ArrayList<Result<EObject>>();
+        var returned = compileProjectStreaming(entryPoints, buildIMSourceFactory(), buildSourceProvider(sources),
+                executor, handedOver::add);
+        assertEquals(UNITS, handedOver.size());
+        // handed over as they complete, returned in the usual order
+        assertEquals(Set.copyOf(returned), Set.copyOf(handedOver));
+        assertEquals(describeModel(expected), describeModel(ensureSuccess(returned)));
+    }
+
+    @Test
+    void problemsHandedOver() {
+        var sources = Map.of("unit0", """
+                @language IM
+                namespace ns0 {
+                    entities {
+                        entity Entity0 {
+                            relationships {
+                                relationship missing { type: Unknown }
+                            }
+                        }
+                    }
+                }
+                """);
+        var expected = compileProject(List.of("unit0", "unit1"), buildIMSourceFactory(), buildSourceProvider(sources));
+        var handedOver = new ArrayList<Result<EObject>>();
+        var returned = compileProjectStreaming(List.of("unit0", "unit1"), buildIMSourceFactory(),
+                buildSourceProvider(sources), null, handedOver::add);
+        assertEquals(Set.copyOf(returned), Set.copyOf(handedOver));
+        assertEquals(describeProblems(expected), describeProblems(returned));
+        assertEquals(2, describeProblems(returned).size());
+    }
+
+}
@@ -2,8 +2,10 @@ package com.abstratt.simon.tests;
 
 import static com.abstratt.simon.tests.fixtures.TestHelper.compileResource;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -21,18 +23,20 @@ import org.junit.jupiter.api.Test;
 import com.abstratt.simon.compiler.Result;
 import com.abstratt.simon.compiler.backend.ecore.EObjectTraversalProvider;
 import com.abstratt.simon.examples.UI;
+import com.abstratt.simon.genutils.SearchPlan;
+import com.abstratt.simon.genutils.SearchTrace;
 import com.abstratt.simon.genutils.Traversal;
 import com.abstratt.simon.metamodel.ecore.impl.EcoreHelper;
 
 public class TraversalTests {
-    private static EObject application;
+    protected static EObject application;
     private static EObject screen1;
     private static EObject screen2;
     private static EObject button1a;
     private static EObject button1b;
     private static EObject link;
     private static EObject button2a;
-    private static EAttribute nameAttribute;
+    protected static EAttribute nameAttribute;
     private static List<Result<EObject>> setupResults;
 
     public static <O> O getValue(EObject eObject, String featureName) {
@@ -221,7 +225,33 @@ public class TraversalTests {
         assertSame(button2a, provider().children().then(search(nameAttribute, "btn2a")).hop(application));
     }
 
-    private Traversal.Provider<EObject, EAttribute> provider() {
+    @Test
+    void searchingTraced() {
+        var trace = new SearchTrace();
+        assertSame(button1b, provider().search(trace, nameAttribute, "screen1", "btn1b").hop(button1b));
+        // button1b and screen1 for the first value, then one for the second one
+        assertEquals(3, trace.getHops());
+        assertFalse(trace.fellBack());
+    }
+
+    @Test
+    void searchingTracedFallingBack() {
+        var trace = new SearchTrace();
+        assertNull(provider().search(trace, nameAttribute, "screen1", "missing").hop(screen1));
+        assertEquals(3, trace.getHops());
+        assertTrue(trace.fellBack());
+    }
+
+    @Test
+    void searchPlansCached() {
+        assertSame(SearchPlan.forLength(2), SearchPlan.forLength(2));
+        assertSame(button1b, SearchPlan.forLength(2).execute(provider(), null, nameAttribute, application, 0,
+                "screen1", "btn1b"));
+        assertSame(button1b, SearchPlan.forLength(1).execute(provider(), null, nameAttribute, screen1, 1,
+                "screen1", "btn1b"));
+    }
+
+    protected Traversal.Provider<EObject, EAttribute> provider() {
         return EObjectTraversalProvider.INSTANCE;
     }
 
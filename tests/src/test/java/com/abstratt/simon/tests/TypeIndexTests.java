@@ -0,0 +1,64 @@
+package com.abstratt.simon.tests;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.source.TypeIndex;
+import com.abstratt.simon.metamodel.Metamodel.Type;
+
+public class TypeIndexTests {
+
+    private record TestType(String name, String language) implements Type {
+        @Override
+        public boolean isRoot() {
+            return false;
+        }
+
+        @Override
+        public boolean isInstantiable() {
+            return true;
+        }
+    }
+
+    private final TestType firstShared = new TestType("Shared", "first");
+    private final TestType firstOnly = new TestType("FirstOnly", "first");
+    private final TestType secondShared = new TestType("Shared", "second");
+    private final TestType secondOnly = new TestType("SecondOnly", "second");
+
+    private final TypeIndex<TestType> index = TypeIndex.build(Stream.of(
+            new TypeIndex.Language<>("first", List.of(firstShared, firstOnly)),
+            new TypeIndex.Language<>("second", List.of(secondShared, secondOnly))));
+
+    @Test
+    void allLanguages() {
+        assertSame(firstShared, index.resolveType("Shared", null));
+        assertSame(secondOnly, index.resolveType("SecondOnly", null));
+        assertNull(index.resolveType("Missing", null));
+    }
+
+    @Test
+    void enabledLanguages() {
+        assertSame(secondShared, index.resolveType("Shared", Set.of("second")));
+        assertNull(index.resolveType("FirstOnly", Set.of("second")));
+        assertNull(index.resolveType("Shared", Set.of()));
+        // earlier languages win regardless of the order they are enabled in
+        assertSame(firstShared, index.resolveType("Shared", new LinkedHashSet<>(List.of("second", "first"))));
+    }
+
+    @Test
+    void languageSetsChangingAfterLookup() {
+        var languages = new LinkedHashSet<String>();
+        languages.add("second");
+        assertSame(secondShared, index.resolveType("Shared", languages));
+        languages.add("first");
+        assertSame(firstShared, index.resolveType("Shared", languages));
+        assertSame(firstOnly, index.resolveType("FirstOnly", languages));
+    }
+}
@@ -0,0 +1,133 @@
+package com.abstratt.simon.tests;
+
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.findChildByAttributeValue;
+import static com.abstratt.simon.metamodel.ecore.impl.EcoreHelper.getValue;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildEntityUnit;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildIMSourceFactory;
+import static com.abstratt.simon.tests.fixtures.TestHelper.buildSourceProvider;
+import static com.abstratt.simon.tests.fixtures.TestHelper.compileProject;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeModel;
+import static com.abstratt.simon.tests.fixtures.TestHelper.describeProblems;
+import static com.abstratt.simon.tests.fixtures.TestHelper.ensureSuccess;
+import static com.abstratt.simon.tests.fixtures.TestHelper.findEntity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.abstratt.simon.compiler.Result;
+import com.abstratt.simon.compiler.antlr.SimonCompilerAntlrFactory;
+import com.abstratt.simon.compiler.antlr.impl.UnitCache;
+import com.abstratt.simon.compiler.backend.ecore.EMFModelBackendFactory;
+import com.abstratt.simon.compiler.source.MetamodelSource;
+import com.abstratt.simon.compiler.source.MetamodelSourceCache;
+
+/**
+ * Checks that imported units materialized from a unit cache yield the same
+ * results as parsing them.
+ */
+public class UnitCacheTests {
+
+    private static final int UNITS = 4;
+
+    private final UnitCache<EObject> unitCache = new UnitCache<>();
+
+    private final MetamodelSourceCache metamodelCache = new MetamodelSourceCache();
+
+    private Map<String, String> sources;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void buildSources() {
+        sources = new LinkedHashMap<>();
+        for (int i = 0; i < UNITS; i++)
+            sources.put("unit" + i,
+                    buildEntityUnit(i, "Entity" + i, i > 0 ? "ns%d.Entity%d".formatted(i - 1, i - 1) : null, true));
+        sources.put("app", buildEntityUnit(UNITS, "App", "ns%d.Entity%d".formatted(UNITS - 1, UNITS - 1), true));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        metamodelCache.invalidateAll();
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    @Test
+    void importedUnitsAreMaterialized() {
+        var first = ensureSuccess(compile(metamodelCache.cached(buildIMSourceFactory())));
+        assertEquals(0, unitCache.getHits());
+        assertEquals(UNITS, unitCache.size());
+        var second = ensureSuccess(compile(metamodelCache.cached(buildIMSourceFactory())));
+        assertEquals(UNITS, unitCache.getHits());
+        for (int i = 0; i < first.size(); i++)
+            assertNotSame(first.get(i).getRootObject(), second.get(i).getRootObject());
+        assertEquals(describeModel(compileFromScratch()), describeModel(second));
+    }
+
+    @Test
+    void referencesAreResolvedToMaterializedObjects() {
+        compile(metamodelCache.cached(buildIMSourceFactory()));
+        var results = ensureSuccess(compile(metamodelCache.cached(buildIMSourceFactory())));
+        var relationship = findChildByAttributeValue(findEntity(results, "unit2", "Entity2"), "name", "previous");
+        assertSame(findEntity(results, "unit1", "Entity1"), getValue(relationship, "type"));
+    }
+
+    @Test
+    void changedUnitsAreParsedAgain() {
+        compile(metamodelCache.cached(buildIMSourceFactory()));
+        sources.put("unit1", buildEntityUnit(1, "Entity1", "ns0.Entity0", true) + "\n");
+        var results = ensureSuccess(compile(metamodelCache.cached(buildIMSourceFactory())));
+        assertEquals(UNITS - 1, unitCache.getHits());
+        assertEquals(describeModel(compileFromScratch()), describeModel(results));
+    }
+
+    @Test
+    void problemsAreReported() {
+        sources.put("unit1", buildEntityUnit(1, "Entity1", "ns0.Missing", true));
+        compile(metamodelCache.cached(buildIMSourceFactory()));
+        var results = compile(metamodelCache.cached(buildIMSourceFactory()));
+        assertEquals(UNITS, unitCache.getHits());
+        assertEquals(describeProblems(compileFromScratch()), describeProblems(results));
+        assertEquals(1, describeProblems(results).size());
+    }
+
+    @Test
+    void materializedConcurrently() {
+        executor = Executors.newFixedThreadPool(UNITS);
+        compile(metamodelCache.cached(buildIMSourceFactory()));
+        var results = ensureSuccess(compile(metamodelCache.cached(buildIMSourceFactory())));
+        assertEquals(UNITS, unitCache.getHits());
+        assertEquals(describeModel(compileFromScratch()), describeModel(results));
+    }
+
+    @Test
+    void otherMetamodelsDropCachedUnits() {
+        compile(buildIMSourceFactory());
+        var results = ensureSuccess(compile(buildIMSourceFactory()));
+        assertEquals(0, unitCache.getHits());
+        assertEquals(describeModel(compileFromScratch()), describeModel(results));
+    }
+
+    private List<Result<EObject>> compile(MetamodelSource.Factory<?> typeSourceFactory) {
+        var compiler = new SimonCompilerAntlrFactory(executor, unitCache).create(typeSourceFactory,
+                new EMFModelBackendFactory().create());
+        return compiler.compile(List.of("app"), buildSourceProvider(Map.copyOf(sources)));
+    }
+
+    private List<Result<EObject>> compileFromScratch() {
+        return compileProject(List.of("app"), buildIMSourceFactory(), buildSourceProvider(sources));
+    }
+
+}
@@ -42,6 +42,17 @@ public class SimonDSLProcessorTest {
         assertTrue(dslRelated.get().getName().endsWith("examples.DAUI.IEntityComponent.entity.Typed.txt"));
     }
 
+    @Test
+    void metamodelGeneratedOnlyWhenRequested() {
+        JavaFileObject javaFileObject = JavaFileObjects.forResource("com/abstratt/simon/examples/DAUI.java");
+        var compiled = compileJava(javaFileObject);
+        assertTrue(compiled.generatedSourceFile("com.abstratt.simon.examples.DAUIMetamodel").isEmpty());
+        var generating = Compiler.javac().withProcessors(new SimonDSLProcessor())
+                .withOptions("-A" + SimonDSLProcessor.GENERATE_METAMODELS + "=true").compile(javaFileObject);
+        assertEquals(Compilation.Status.SUCCESS, generating.status());
+        assertTrue(generating.generatedSourceFile("com.abstratt.simon.examples.DAUIMetamodel").isPresent());
+    }
+
     private static Compilation compileJava(JavaFileObject javaFileObject) {
         return Compiler.javac().withProcessors(new SimonDSLProcessor()).compile(javaFileObject);
     }